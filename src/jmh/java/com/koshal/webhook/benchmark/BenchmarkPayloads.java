@@ -0,0 +1,39 @@
+package com.koshal.webhook.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Shared fixtures for the JMH benchmarks: the sample payload from collection.json and a mapper
+ * configured like the application's
+ */
+final class BenchmarkPayloads {
+
+    static final String SECRET = "super-key";
+
+    private BenchmarkPayloads() {
+    }
+
+    static ObjectMapper mapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    static byte[] payload(String eventId, String transactionId) {
+        return ("""
+                {"event_id":"%s","event_type":"transaction.completed","timestamp":"%s",\
+                "data":{"transaction_id":"%s","amount":2500.75,"currency":"USD",\
+                "sender":{"id":"usr_sender_123","name":"Alice Johnson","email":"alice.j@example.com","country":"US"},\
+                "receiver":{"id":"usr_receiver_456","name":"Raj Patel","email":"raj.p@example.in","country":"IN"},\
+                "status":"completed","payment_method":"bank_transfer",\
+                "metadata":{"reference":"INV-2025-001","notes":"Q4 payment"}}}""")
+                .formatted(eventId, Instant.now(), transactionId)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package com.koshal.webhook.benchmark;
+
+import com.koshal.webhook.util.AdaptiveConcurrencyLimiter;
+import com.koshal.webhook.util.HmacKey;
+import com.koshal.webhook.util.HmacSignatureValidator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the thread-per-request model with virtual threads under a burst of concurrent webhooks
+ *
+ * Each simulated request signs a 1 KB body (the CPU part of the hot path) and then holds one of
+ * {@code poolSize} connections for {@code dbMillis} (the blocking MySQL part). Three models are run:
+ * <ul>
+ *     <li>platform: 200 platform threads, Tomcat's default max-threads</li>
+ *     <li>virtual: one virtual thread per request, no limit</li>
+ *     <li>virtual-limited: virtual threads behind {@link AdaptiveConcurrencyLimiter} configured like
+ *     ConcurrencyLimitFilter, which rejects requests over the limit at once</li>
+ * </ul>
+ * Latency is measured from submission to completion, so time spent queued for a thread or connection counts.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:java -Dexec.mainClass=com.koshal.webhook.benchmark.ExecutionModelBenchmark \
+ *     -Drequests=20000 -DpoolSize=10 -DdbMillis=2
+ * </pre>
+ */
+public class ExecutionModelBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("requests", 20_000);
+    private static final int POOL_SIZE = Integer.getInteger("poolSize", 10);
+    private static final int DB_MILLIS = Integer.getInteger("dbMillis", 2);
+    private static final int PLATFORM_THREADS = Integer.getInteger("platformThreads", 200);
+    private static final int REQUESTS_PER_CONNECTION = Integer.getInteger("requestsPerConnection", 2);
+    private static final int MIN_LIMIT = Integer.getInteger("minLimit", 2);
+    private static final int MAX_LIMIT = Integer.getInteger("maxLimit", 200);
+    private static final long LATENCY_TARGET_MILLIS = Long.getLong("latencyTargetMillis", 250);
+
+    private static final byte[] BODY = "x".repeat(1024).getBytes(StandardCharsets.UTF_8);
+    private static final HmacKey KEY = new HmacKey("benchmark-secret", HmacSignatureValidator.HMAC_SHA256);
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("requests=%d poolSize=%d dbMillis=%d%n", REQUESTS, POOL_SIZE, DB_MILLIS);
+        // Warm up JIT and the Mac pool
+        run("warmup", Executors.newVirtualThreadPerTaskExecutor(), null, false);
+
+        run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), null, true);
+        run("virtual", Executors.newVirtualThreadPerTaskExecutor(), null, true);
+        run("virtual-limited", Executors.newVirtualThreadPerTaskExecutor(),
+                new AdaptiveConcurrencyLimiter(
+                        Math.max(MIN_LIMIT, Math.min(MAX_LIMIT, POOL_SIZE * REQUESTS_PER_CONNECTION)),
+                        MIN_LIMIT, MAX_LIMIT, TimeUnit.MILLISECONDS.toNanos(LATENCY_TARGET_MILLIS), 0.9), true);
+    }
+
+    private static void run(String name, ExecutorService executor, AdaptiveConcurrencyLimiter limiter, boolean report)
+            throws Exception {
+        Semaphore connections = new Semaphore(POOL_SIZE, true);
+        AtomicInteger rejected = new AtomicInteger();
+        long[] latencies = new long[REQUESTS];
+        List<Future<?>> futures = new ArrayList<>(REQUESTS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                if (limiter != null && !limiter.tryAcquire()) {
+                    rejected.incrementAndGet();
+                    latencies[index] = System.nanoTime() - submitted;
+                    return null;
+                }
+                long acquired = System.nanoTime();
+                try {
+                    KEY.sign(BODY);
+                    connections.acquire();
+                    try {
+                        Thread.sleep(DB_MILLIS);
+                    } finally {
+                        connections.release();
+                    }
+                } finally {
+                    if (limiter != null) {
+                        limiter.release(acquired, System.nanoTime(), false);
+                    }
+                }
+                latencies[index] = System.nanoTime() - submitted;
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        if (report) {
+            Arrays.sort(latencies);
+            System.out.printf("%-16s throughput=%8.0f req/s  p50=%7.1f ms  p99=%7.1f ms  max=%7.1f ms  rejected=%d%n",
+                    name,
+                    REQUESTS / (elapsed / 1e9),
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6,
+                    rejected.get());
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,90 @@
+package com.koshal.webhook.benchmark;
+
+import com.koshal.webhook.fee.FeeRule;
+import com.koshal.webhook.fee.FeeSchedule;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event fee lookup and evaluation as the rule count grows, against the flat 2% it replaced
+ * Rules mix exact values and wildcards over a few payment methods, currencies and countries; events cycle
+ * through a fixed set so lookups hit both specific rules and the catch-all
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeeScheduleBenchmark {
+
+    private static final String[] METHODS = {"card", "bank_transfer", "wallet", "upi", "sepa", "ach"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "INR", "JPY", "CAD", "AUD", "SGD", "CHF", "BRL"};
+    private static final String[] COUNTRIES = {"US", "IN", "GB", "DE", "FR", "JP", "CA", "AU", "SG", "CH", "BR", "NL",
+            "ES", "IT", "MX", "AE", "ZA", "SE", "NO", "PL"};
+    private static final int EVENTS = 1024;
+
+    @Param({"1", "100", "10000"})
+    private int ruleCount;
+
+    private FeeSchedule schedule;
+    private String[][] events;
+    private BigDecimal[] amounts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<FeeRule> rules = new ArrayList<>();
+        rules.add(new FeeRule(null, null, null, null, new BigDecimal("2.0"), null, null, null, null));
+        Set<String> keys = new HashSet<>(Set.of("*/*/*/*"));
+        while (rules.size() < ruleCount) {
+            String method = pickOrAny(random, METHODS);
+            String currency = pickOrAny(random, CURRENCIES);
+            String sender = pickOrAny(random, COUNTRIES);
+            String receiver = pickOrAny(random, COUNTRIES);
+            if (keys.add(method + "/" + currency + "/" + sender + "/" + receiver)) {
+                rules.add(new FeeRule(method, currency, sender, receiver,
+                        BigDecimal.valueOf(random.nextInt(400), 2), BigDecimal.valueOf(random.nextInt(50), 2),
+                        null, null, null));
+            }
+        }
+        schedule = FeeSchedule.compile(rules);
+
+        events = new String[EVENTS][];
+        amounts = new BigDecimal[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            events[i] = new String[]{pick(random, METHODS), pick(random, CURRENCIES), pick(random, COUNTRIES),
+                    pick(random, COUNTRIES)};
+            amounts[i] = BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal compiledSchedule() {
+        int i = next++ & (EVENTS - 1);
+        String[] event = events[i];
+        return schedule.fee(event[0], event[1], event[2], event[3], amounts[i]);
+    }
+
+    @Benchmark
+    public BigDecimal flatRate() {
+        int i = next++ & (EVENTS - 1);
+        return amounts[i].multiply(BigDecimal.valueOf(0.02));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String pickOrAny(Random random, String[] values) {
+        return random.nextInt(3) == 0 ? "*" : pick(random, values);
+    }
+}
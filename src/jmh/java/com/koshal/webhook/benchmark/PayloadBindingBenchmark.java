@@ -0,0 +1,55 @@
+package com.koshal.webhook.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.service.WebhookPayloadReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson binding of the raw body into WebhookPayloadDto, plain and through WebhookPayloadReader, which
+ * validates the fields as it binds them
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadBindingBenchmark {
+
+    private ObjectReader reader;
+    private ValidatorFactory factory;
+    private WebhookPayloadReader payloadReader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        reader = BenchmarkPayloads.mapper().readerFor(WebhookPayloadDto.class);
+        factory = Validation.buildDefaultValidatorFactory();
+        payloadReader = new WebhookPayloadReader(BenchmarkPayloads.mapper(), factory.getValidator(),
+                new WebhookMetrics(new SimpleMeterRegistry()));
+        body = BenchmarkPayloads.payload("evt_bench_001", "txn_bench_001");
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public WebhookPayloadDto bind() throws IOException {
+        return reader.readValue(body);
+    }
+
+    @Benchmark
+    public WebhookPayloadDto bindAndValidate() {
+        return payloadReader.read(body);
+    }
+}
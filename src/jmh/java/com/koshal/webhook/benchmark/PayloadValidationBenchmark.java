@@ -0,0 +1,60 @@
+package com.koshal.webhook.benchmark;
+
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.validation.CurrencyValidator;
+import com.koshal.webhook.validation.TransactionStatusValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of a bound payload, in full and for the two custom constraint validators alone
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadValidationBenchmark {
+
+    private final CurrencyValidator currencyValidator = new CurrencyValidator();
+    private final TransactionStatusValidator statusValidator = new TransactionStatusValidator();
+    private ValidatorFactory factory;
+    private Validator validator;
+    private WebhookPayloadDto payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        payload = BenchmarkPayloads.mapper().readValue(
+                BenchmarkPayloads.payload("evt_bench_001", "txn_bench_001"), WebhookPayloadDto.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<WebhookPayloadDto>> validatePayload() {
+        return validator.validate(payload);
+    }
+
+    @Benchmark
+    public boolean currency() {
+        return currencyValidator.isValid(payload.getData().getCurrency(), null);
+    }
+
+    @Benchmark
+    public boolean status() {
+        return statusValidator.isValid(payload.getData().getStatus(), null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.koshal.webhook.benchmark;
+
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.service.SenderRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SenderRateLimiter.check with the sender and global buckets, over a thousand or two million distinct senders
+ * Subtract senderIdOnly, which just builds the id string, to get the cost of the check itself.
+ * Limits are high enough that checks are admitted, as most are in production. The call sequence is long enough
+ * to keep reaching new senders; with two million the table holds about one million, so new senders keep
+ * claiming slots from old ones and the insert path is measured as well
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class SenderRateLimiterBenchmark {
+
+    private static final int SEQUENCE = 1 << 23;
+
+    @Param({"1000", "2000000"})
+    private int senders;
+
+    private SenderRateLimiter limiter;
+    private int[] sequence;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "webhook.rate-limit.global.rate-per-second", "1000000000",
+                "webhook.rate-limit.global.burst", "1000000000",
+                "webhook.rate-limit.tiers.standard.rate-per-second", "1000000",
+                "webhook.rate-limit.tiers.standard.burst", "1000000")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter = new SenderRateLimiter(environment, registry, new WebhookMetrics(registry), true, "", 1_000_000);
+
+        Random random = new Random(42);
+        sequence = new int[SEQUENCE];
+        for (int i = 0; i < SEQUENCE; i++) {
+            sequence[i] = random.nextInt(senders);
+        }
+    }
+
+    @Benchmark
+    public void check() {
+        limiter.check(nextSenderId());
+    }
+
+    /**
+     * Cost of producing the id alone, to subtract from check
+     */
+    @Benchmark
+    public String senderIdOnly() {
+        return nextSenderId();
+    }
+
+    private String nextSenderId() {
+        // Built per call like an id freshly parsed from a payload, rather than fetched cold from a big array
+        return "usr_sender_" + sequence[next++ & (SEQUENCE - 1)];
+    }
+}
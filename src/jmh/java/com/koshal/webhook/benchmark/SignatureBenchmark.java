@@ -0,0 +1,45 @@
+package com.koshal.webhook.benchmark;
+
+import com.koshal.webhook.util.HmacKey;
+import com.koshal.webhook.util.HmacSignatureValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC verification of a webhook body: the prepared-key byte[] path the controller uses,
+ * against the String path that derives the key on every call
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureBenchmark {
+
+    private final HmacSignatureValidator validator = new HmacSignatureValidator();
+    private HmacKey key;
+    private byte[] body;
+    private String bodyString;
+    private String signature;
+
+    @Setup
+    public void setUp() {
+        key = new HmacKey(BenchmarkPayloads.SECRET, HmacSignatureValidator.HMAC_SHA256);
+        body = BenchmarkPayloads.payload("evt_bench_001", "txn_bench_001");
+        bodyString = new String(body, StandardCharsets.UTF_8);
+        signature = "sha256=" + validator.calculateSignature(bodyString, BenchmarkPayloads.SECRET);
+    }
+
+    @Benchmark
+    public boolean preparedKey() {
+        return validator.isValidSignature(body, signature, key);
+    }
+
+    @Benchmark
+    public boolean stringSecret() {
+        return validator.isValidSignature(bodyString, signature, BenchmarkPayloads.SECRET);
+    }
+}
@@ -0,0 +1,314 @@
+package com.koshal.webhook.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.util.HmacKey;
+import com.koshal.webhook.util.HmacSignatureValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Drives signed webhook traffic against a running instance
+ *
+ * Payload templates come from the Postman collection (the {@code const payload = {...}} of each
+ * pre-request script and any raw JSON body) and from NDJSON files with one payload per line.
+ * Every request gets a unique event and transaction id and a fresh timestamp, and is signed over the exact
+ * bytes sent, so the tolerance check and the signature check pass. A share of requests, {@code duplicateRatio},
+ * resends a recently sent event id to exercise the idempotency path.
+ *
+ * The load is an open model: requests are sent on a fixed schedule of {@code rate} per second whether or
+ * not earlier ones have completed. Latency is measured from the scheduled send time, so time a request
+ * spends waiting behind a slow server is counted rather than hidden (no coordinated omission).
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:java -Dexec.mainClass=com.koshal.webhook.benchmark.WebhookLoadGenerator \
+ *     -Drate=500 -Dduration=60 -DduplicateRatio=0.05 -Dsources=collection.json
+ * </pre>
+ */
+public class WebhookLoadGenerator {
+
+    private static final String URL = System.getProperty("url", "http://localhost:8080/api/v1/webhooks/payment");
+    private static final String SECRET = System.getProperty("secret", "super-key");
+    private static final String SOURCES = System.getProperty("sources", "collection.json");
+    private static final double RATE = Double.parseDouble(System.getProperty("rate", "200"));
+    private static final long DURATION_SECONDS = Long.getLong("duration", 60);
+    private static final long WARMUP_SECONDS = Long.getLong("warmup", 10);
+    private static final double DUPLICATE_RATIO = Double.parseDouble(System.getProperty("duplicateRatio", "0.05"));
+    private static final boolean ALL_TEMPLATES = Boolean.getBoolean("allTemplates");
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("maxInFlight", 10_000);
+    private static final long TIMEOUT_MILLIS = Long.getLong("timeoutMillis", 10_000);
+
+    private static final int RECENT_EVENTS = 4096;
+    private static final Pattern TIMESTAMP_EXPRESSION = Pattern.compile("(\"timestamp\"\\s*:\\s*)[^,\\n}]+");
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .addModule(new JavaTimeModule())
+            .build();
+    private final HmacKey key = new HmacKey(SECRET, HmacSignatureValidator.HMAC_SHA256);
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.SECONDS.toNanos(60), 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder duplicatesSent = new LongAdder();
+
+    private List<ObjectNode> templates;
+
+    public static void main(String[] args) throws Exception {
+        new WebhookLoadGenerator().run();
+    }
+
+    private void run() throws Exception {
+        templates = loadTemplates();
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("No webhook payloads found in " + SOURCES);
+        }
+        System.out.printf("url=%s rate=%.0f/s duration=%ds warmup=%ds duplicateRatio=%.2f templates=%d%n",
+                URL, RATE, DURATION_SECONDS, WARMUP_SECONDS, DUPLICATE_RATIO, templates.size());
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long[] recent = new long[RECENT_EVENTS];
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / RATE);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+        long eventSeq = 0;
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intended >= measureFrom;
+
+            // Resend a recent event id for duplicates, otherwise a fresh one
+            boolean duplicate = eventSeq > 0 && ThreadLocalRandom.current().nextDouble() < DUPLICATE_RATIO;
+            long seq = duplicate
+                    ? recent[ThreadLocalRandom.current().nextInt((int) Math.min(eventSeq, RECENT_EVENTS))]
+                    : eventSeq++;
+            if (!duplicate) {
+                recent[(int) (seq % RECENT_EVENTS)] = seq;
+            }
+
+            if (!inFlight.tryAcquire()) {
+                // The server is so far behind that the generator itself would become the bottleneck
+                if (measured) {
+                    count("client_backlog");
+                }
+                continue;
+            }
+            if (measured) {
+                sent.increment();
+                if (duplicate) {
+                    duplicatesSent.increment();
+                }
+            }
+            client.sendAsync(signedRequest(seq), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (!measured) {
+                            return;
+                        }
+                        latencies.recordValue(Math.min(System.nanoTime() - intended, latencies.getHighestTrackableValue()));
+                        count(error == null ? String.valueOf(response.statusCode()) : errorName(error));
+                    });
+        }
+
+        if (!inFlight.tryAcquire(MAX_IN_FLIGHT, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            System.out.printf("%d requests still in flight after %dms%n",
+                    MAX_IN_FLIGHT - inFlight.availablePermits(), TIMEOUT_MILLIS);
+        }
+        report();
+    }
+
+    private HttpRequest signedRequest(long seq) {
+        String eventId = "evt_load_" + runId + "_" + seq;
+        ObjectNode payload = templates.get((int) (seq % templates.size())).deepCopy();
+        payload.put("event_id", eventId);
+        payload.put("timestamp", Instant.now().toString());
+        ((ObjectNode) payload.get("data")).put("transaction_id", "txn_load_" + runId + "_" + seq);
+
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return HttpRequest.newBuilder(URI.create(URL))
+                .timeout(Duration.ofMillis(TIMEOUT_MILLIS))
+                .header("Content-Type", "application/json")
+                .header("X-Webhook-Signature", "sha256=" + Base64.getEncoder().encodeToString(key.sign(body)))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private void count(String outcome) {
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    private static String errorName(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName();
+    }
+
+    private void report() {
+        long completed = latencies.getTotalCount();
+        System.out.printf("%nsent=%d (duplicates=%d) completed=%d achieved=%.1f/s%n",
+                sent.sum(), duplicatesSent.sum(), completed, completed / (double) DURATION_SECONDS);
+        System.out.println("latency from scheduled send (ms):");
+        for (double percentile : new double[]{50, 90, 99, 99.9, 99.99}) {
+            System.out.printf("  p%-6s %10.3f%n", percentile, latencies.getValueAtPercentile(percentile) / 1e6);
+        }
+        System.out.printf("  max     %10.3f%n", latencies.getMaxValue() / 1e6);
+        System.out.println("outcomes:");
+        new TreeMap<>(outcomes).forEach((outcome, count) -> System.out.printf("  %-20s %10d%n", outcome, count.sum()));
+    }
+
+    /**
+     * Reads payload templates from every source; unless allTemplates is set, only payloads that pass
+     * the service's own Bean Validation are kept, so the collection's negative test cases are skipped
+     */
+    private List<ObjectNode> loadTemplates() throws IOException {
+        List<ObjectNode> candidates = new ArrayList<>();
+        for (String source : SOURCES.split(",")) {
+            Path path = Path.of(source.trim());
+            List<ObjectNode> found = path.toString().endsWith(".json")
+                    ? fromCollection(mapper.readTree(path.toFile()))
+                    : fromNdjson(path);
+            System.out.printf("%s: %d payloads%n", path, found.size());
+            candidates.addAll(found);
+        }
+        if (ALL_TEMPLATES) {
+            return candidates;
+        }
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = factory.getValidator();
+            List<ObjectNode> valid = new ArrayList<>();
+            for (ObjectNode candidate : candidates) {
+                ObjectNode probe = candidate.deepCopy();
+                probe.put("timestamp", Instant.now().toString());
+                if (validator.validate(mapper.treeToValue(probe, WebhookPayloadDto.class)).isEmpty()) {
+                    valid.add(candidate);
+                }
+            }
+            return valid;
+        }
+    }
+
+    private List<ObjectNode> fromCollection(JsonNode collection) {
+        List<ObjectNode> payloads = new ArrayList<>();
+        for (JsonNode item : collection.path("item")) {
+            if (item.has("item")) {
+                payloads.addAll(fromCollection(item));
+                continue;
+            }
+            for (JsonNode event : item.path("event")) {
+                if ("prerequest".equals(event.path("listen").asText())) {
+                    StringBuilder script = new StringBuilder();
+                    event.path("script").path("exec").forEach(line -> script.append(line.asText()).append('\n'));
+                    addIfPayload(payloads, scriptPayload(script.toString()));
+                }
+            }
+            addIfPayload(payloads, item.path("request").path("body").path("raw").asText(null));
+        }
+        return payloads;
+    }
+
+    /**
+     * Extracts the object literal assigned to {@code payload}; the JavaScript timestamp expression is
+     * blanked out since every request gets a fresh one anyway
+     */
+    private static String scriptPayload(String script) {
+        int declaration = script.indexOf("const payload");
+        int open = script.indexOf('{', declaration);
+        if (declaration < 0 || open < 0) {
+            return null;
+        }
+        int depth = 0;
+        boolean inString = false;
+        for (int i = open; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return TIMESTAMP_EXPRESSION.matcher(script.substring(open, i + 1)).replaceAll("$1\"\"");
+            }
+        }
+        return null;
+    }
+
+    private List<ObjectNode> fromNdjson(Path path) throws IOException {
+        List<ObjectNode> payloads = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (!line.isBlank()) {
+                addIfPayload(payloads, line);
+            }
+        }
+        return payloads;
+    }
+
+    private void addIfPayload(List<ObjectNode> payloads, String json) {
+        if (json == null || json.isBlank()) {
+            return;
+        }
+        try {
+            if (mapper.readTree(json) instanceof ObjectNode node && node.has("event_id") && node.get("data") instanceof ObjectNode) {
+                payloads.add(node);
+            }
+        } catch (JsonProcessingException e) {
+            // Not a webhook payload, e.g. a line of some other JSON document
+        }
+    }
+}
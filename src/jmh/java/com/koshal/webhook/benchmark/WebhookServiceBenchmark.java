@@ -0,0 +1,77 @@
+package com.koshal.webhook.benchmark;
+
+import com.koshal.webhook.WebhookProcessorApplication;
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.service.WebhookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebhookService.processWebhook end to end against an embedded H2 database in MySQL mode
+ * The schema is generated from the entities because the Flyway migrations are MySQL specific.
+ * Every invocation stores a new event, so the table grows over the run like it does in production
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private WebhookService webhookService;
+    private WebhookPayloadDto payload;
+    private byte[] rawBody;
+    private long sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(WebhookProcessorApplication.class)
+                .web(WebApplicationType.NONE)
+                // Passed as arguments so they take precedence over application.yml
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:webhook-bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.flyway.enabled=false",
+                        "--webhook.ingestion.mode=sync",
+                        // The outbox tables are not entities, so they are not generated
+                        "--webhook.outbound.enabled=false",
+                        "--logging.level.root=WARN");
+        // Not an entity either, so created here as V14 does
+        context.getBean(JdbcTemplate.class).execute("""
+                CREATE TABLE webhook_event_ids (
+                    event_id VARCHAR(255) NOT NULL PRIMARY KEY,
+                    received_at DATETIME(3) NOT NULL
+                )""");
+        webhookService = context.getBean(WebhookService.class);
+        rawBody = BenchmarkPayloads.payload("evt_bench_0", "txn_bench_0");
+        payload = BenchmarkPayloads.mapper().readValue(rawBody, WebhookPayloadDto.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void processWebhook() {
+        // Fresh ids keep every call on the insert path; the raw body is only stored, never re-verified
+        long id = ++sequence;
+        payload.setEventId("evt_bench_" + id);
+        payload.getData().setTransactionId("txn_bench_" + id);
+        webhookService.processWebhook(new IncomingWebhook(payload, rawBody));
+    }
+}
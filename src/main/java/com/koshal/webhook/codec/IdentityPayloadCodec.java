@@ -0,0 +1,27 @@
+package com.koshal.webhook.codec;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores payloads uncompressed
+ */
+@Component
+public class IdentityPayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "none";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(byte[] raw) {
+        return raw;
+    }
+
+    @Override
+    public byte[] decode(byte[] encoded) {
+        return encoded;
+    }
+}
@@ -0,0 +1,17 @@
+package com.koshal.webhook.codec;
+
+/**
+ * Encoding applied to raw webhook bodies before they are stored
+ * The codec name is persisted next to each payload so stored rows stay readable after the default changes
+ */
+public interface PayloadCodec {
+
+    /**
+     * Name stored in webhook_events.payload_codec
+     */
+    String name();
+
+    byte[] encode(byte[] raw);
+
+    byte[] decode(byte[] encoded);
+}
@@ -0,0 +1,40 @@
+package com.koshal.webhook.codec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of available payload codecs
+ * New payloads are written with the configured codec, stored payloads are read with the codec recorded on the row
+ */
+@Component
+public class PayloadCodecs {
+
+    private final Map<String, PayloadCodec> codecs;
+    private final PayloadCodec writeCodec;
+
+    public PayloadCodecs(List<PayloadCodec> codecs, @Value("${webhook.payload.codec:deflate}") String writeCodec) {
+        this.codecs = codecs.stream().collect(Collectors.toUnmodifiableMap(PayloadCodec::name, Function.identity()));
+        this.writeCodec = forName(writeCodec);
+    }
+
+    /**
+     * Codec used for newly stored payloads
+     */
+    public PayloadCodec writeCodec() {
+        return writeCodec;
+    }
+
+    public PayloadCodec forName(String name) {
+        PayloadCodec codec = codecs.get(name == null ? IdentityPayloadCodec.NAME : name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown payload codec: " + name + ", available: " + codecs.keySet());
+        }
+        return codec;
+    }
+}
@@ -0,0 +1,66 @@
+package com.koshal.webhook.controller;
+
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.service.FeeCalculator;
+import com.koshal.webhook.service.SenderRateLimiter;
+import com.koshal.webhook.service.TenantKeyStore;
+import com.koshal.webhook.service.WebhookEventReprocessor;
+import com.koshal.webhook.service.WebhookEventReprocessor.ReplayResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Operator endpoints; they carry no signature check, so expose /api/v1/admin on the internal network only
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final FeeCalculator feeCalculator;
+    private final SenderRateLimiter rateLimiter;
+    private final TenantKeyStore tenantKeyStore;
+    private final WebhookEventReprocessor eventReprocessor;
+
+    @PostMapping("/fee-rules/reload")
+    public Map<String, Object> reloadFeeRules() {
+        return Map.of("rules", feeCalculator.reload());
+    }
+
+    @PostMapping("/rate-limits/reload")
+    public Map<String, Object> reloadRateLimits() {
+        return Map.of("tiers", rateLimiter.reload());
+    }
+
+    /**
+     * Picks up rotated or new tenant secrets now rather than at the next scheduled refresh
+     */
+    @PostMapping("/tenants/reload")
+    public Map<String, Object> reloadTenantKeys() {
+        return Map.of("tenants", tenantKeyStore.reload());
+    }
+
+    /**
+     * Runs failed events again now, dead letters included, oldest first; from/to bound received_at
+     */
+    @PostMapping("/events/replay")
+    public Map<String, Object> replayFailedEvents(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "10000") int limit) {
+        if (limit < 1) {
+            throw new ApiException("limit must be positive", HttpStatus.BAD_REQUEST);
+        }
+        ReplayResult result = eventReprocessor.replay(from == null ? Instant.EPOCH : from,
+                to == null ? Instant.now() : to, limit);
+        return Map.of("replayed", result.replayed(), "processed", result.processed(), "failed", result.failed());
+    }
+}
@@ -0,0 +1,46 @@
+package com.koshal.webhook.controller;
+
+import com.koshal.webhook.dto.SubscriberDto;
+import com.koshal.webhook.dto.SubscriberRequestDto;
+import com.koshal.webhook.service.SubscriberService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Subscribers to outbound transaction events; like /api/v1/admin, expose on the internal network only
+ */
+@RestController
+@RequestMapping("/api/v1/subscribers")
+@RequiredArgsConstructor
+public class SubscriberController {
+
+    private final SubscriberService subscriberService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public SubscriberDto register(@Valid @RequestBody SubscriberRequestDto request) {
+        return subscriberService.register(request);
+    }
+
+    @GetMapping
+    public List<SubscriberDto> list() {
+        return subscriberService.list();
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deactivate(@PathVariable long id) {
+        subscriberService.deactivate(id);
+    }
+}
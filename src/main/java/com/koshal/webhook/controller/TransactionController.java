@@ -0,0 +1,92 @@
+package com.koshal.webhook.controller;
+
+import com.koshal.webhook.dto.TransactionAggregateDto;
+import com.koshal.webhook.dto.TransactionFilter;
+import com.koshal.webhook.dto.TransactionPageDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.service.TransactionAggregates;
+import com.koshal.webhook.service.TransactionQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/v1/transactions")
+@RequiredArgsConstructor
+public class TransactionController {
+
+    private final TransactionQueryService transactionQueryService;
+    private final TransactionAggregates transactionAggregates;
+
+    /**
+     * Lists transactions newest first; pass next_cursor of a page as cursor to get the following page
+     */
+    @GetMapping
+    public TransactionPageDto listTransactions(
+            @RequestParam(name = "sender_id", required = false) String senderId,
+            @RequestParam(name = "receiver_id", required = false) String receiverId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        TransactionFilter filter = new TransactionFilter(senderId, receiverId, parseStatus(status),
+                currency == null ? null : currency.toUpperCase(Locale.ROOT), from, to);
+        return transactionQueryService.findTransactions(filter, cursor, limit);
+    }
+
+    /**
+     * Serves count and amount sums per currency, status and payment method from memory.
+     * Without from/to the totals cover all time; with either, they cover the minutes in [from, to),
+     * summed per group or, with granularity=minute, one row per minute
+     */
+    @GetMapping("/aggregates")
+    public List<TransactionAggregateDto> aggregates(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "total") String granularity) {
+
+        String currencyCode = currency == null ? null : currency.toUpperCase(Locale.ROOT);
+        boolean perMinute = switch (granularity) {
+            case "total" -> false;
+            case "minute" -> true;
+            default -> throw new ApiException("granularity must be total or minute", HttpStatus.BAD_REQUEST);
+        };
+        if (from == null && to == null && !perMinute) {
+            return transactionAggregates.totals(currencyCode, parseStatus(status));
+        }
+        Instant end = to == null ? Instant.now() : to;
+        Instant oldest = Instant.now().minus(Duration.ofMinutes(transactionAggregates.getWindowMinutes()));
+        Instant start = from == null ? oldest : from;
+        if (start.isBefore(oldest.minusSeconds(60))) {
+            throw new ApiException("from is older than the aggregation window of "
+                    + transactionAggregates.getWindowMinutes() + " minutes", HttpStatus.BAD_REQUEST);
+        }
+        return transactionAggregates.window(start, end, currencyCode, parseStatus(status), perMinute);
+    }
+
+    private static TransactionStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return TransactionStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Invalid value for status: " + status, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.koshal.webhook.controller;
 
+import com.koshal.webhook.dto.IncomingWebhook;
 import com.koshal.webhook.dto.WebhookPayloadDto;
 import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.exception.GlobalExceptionHandler.RateLimitedException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Outcome;
+import com.koshal.webhook.model.enums.EventStatus;
+import com.koshal.webhook.model.enums.IngestionMode;
+import com.koshal.webhook.service.WebhookBatchIngestionService;
+import com.koshal.webhook.service.WebhookIngestionJournal;
+import com.koshal.webhook.service.WebhookIngestionQueue;
+import com.koshal.webhook.service.WebhookPayloadReader;
+import com.koshal.webhook.service.SenderRateLimiter;
 import com.koshal.webhook.service.WebhookService;
 import com.koshal.webhook.service.WebhookSignatureValidationService;
 import com.koshal.webhook.util.CachedBodyHttpServletRequest;
-import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/webhooks")
@@ -20,36 +36,67 @@ public class WebhookController {
 
     private final WebhookService webhookService;
     private final WebhookSignatureValidationService signatureValidationService;
+    private final WebhookPayloadReader payloadReader;
+    private final WebhookIngestionQueue ingestionQueue;
+    private final WebhookIngestionJournal ingestionJournal;
+    private final WebhookBatchIngestionService batchIngestionService;
+    private final SenderRateLimiter rateLimiter;
+    private final WebhookMetrics metrics;
+
+    @Value("${webhook.ingestion.mode:sync}")
+    private IngestionMode ingestionMode;
 
     @PostMapping("/payment")
     public ResponseEntity<?> receiveWebhook(
-            @Valid @RequestBody WebhookPayloadDto payload,
             @RequestHeader(value = "X-Webhook-Signature", required = false) String signature,
             CachedBodyHttpServletRequest request) {
+        return receive(null, signature, request);
+    }
+
+    /**
+     * Same as /payment, verified with the tenant's own keys instead of webhook.secret
+     */
+    @PostMapping("/{tenant}/payment")
+    public ResponseEntity<?> receiveTenantWebhook(
+            @PathVariable String tenant,
+            @RequestHeader(value = "X-Webhook-Signature", required = false) String signature,
+            CachedBodyHttpServletRequest request) {
+        return receive(tenant, signature, request);
+    }
 
+    private ResponseEntity<?> receive(String tenant, String signature, CachedBodyHttpServletRequest request) {
         try {
-            String rawBody = request.getCachedBody();
+            byte[] rawBody = request.getCachedBodyBytes();
 
             if (signature == null || signature.isBlank()) {
+                metrics.outcome(Outcome.BAD_SIGNATURE);
                 throw new ApiException("Missing webhook signature header", HttpStatus.UNAUTHORIZED);
             }
 
-            // Validate webhook signature and timestamp
-            signatureValidationService.validateWebhook(
-                    rawBody,
-                    signature,
-                    payload.getTimestamp().getEpochSecond()
-            );
+            // Authenticate the raw body before spending time on parsing it
+            signatureValidationService.validateSignature(tenant, rawBody, signature);
 
-            webhookService.processWebhook(payload);
+            WebhookPayloadDto payload = payloadReader.read(rawBody);
 
-            return ResponseEntity.ok(
-                    java.util.Map.of(
-                            "eventId", payload.getEventId(),
-                            "message", "Webhook received and processed successfully"
-                    )
-            );
+            long timestamp = payload.getTimestamp().getEpochSecond();
+            signatureValidationService.validateTimestamp(timestamp);
+            signatureValidationService.checkReplay(signature, timestamp);
 
+            try {
+                return ingest(payload, rawBody);
+            } catch (RuntimeException e) {
+                // Not taken, so the sender may retry with the same signed request
+                signatureValidationService.forgetReplay(signature, timestamp);
+                throw e;
+            }
+        } catch (RateLimitedException ex) {
+            log.warn("Rate limited: {}", ex.getMessage());
+            return ResponseEntity.status(ex.getStatus())
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                    .body(java.util.Map.of(
+                            "error", ex.getMessage(),
+                            "status", ex.getStatus().value()
+                    ));
         } catch (ApiException ex) {
             log.error("API Exception: {}", ex.getMessage());
             return ResponseEntity.status(ex.getStatus())
@@ -58,6 +105,7 @@ public class WebhookController {
                             "status", ex.getStatus().value()
                     ));
         } catch (Exception e) {
+            metrics.outcome(Outcome.ERROR);
             log.error("Error processing webhook", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(java.util.Map.of(
@@ -67,4 +115,123 @@ public class WebhookController {
         }
     }
 
+    /**
+     * Hands an authenticated webhook to the configured ingestion mode
+     */
+    private ResponseEntity<?> ingest(WebhookPayloadDto payload, byte[] rawBody) {
+        rateLimiter.check(payload.getData().getSender().getId());
+
+        if (ingestionMode == IngestionMode.JOURNAL) {
+            ingestionJournal.append(rawBody);
+            // The outcome is counted by the applier once the record reaches the database
+            return ResponseEntity.accepted().body(
+                    java.util.Map.of(
+                            "eventId", payload.getEventId(),
+                            "message", "Webhook accepted for processing"
+                    )
+            );
+        }
+
+        if (ingestionMode == IngestionMode.ASYNC) {
+            ingestionQueue.enqueue(new IncomingWebhook(payload, rawBody));
+            // The outcome is counted by the writer once the webhook is persisted or found duplicate
+            return ResponseEntity.accepted().body(
+                    java.util.Map.of(
+                            "eventId", payload.getEventId(),
+                            "message", "Webhook accepted for processing"
+                    )
+            );
+        }
+
+        if (webhookService.processWebhook(new IncomingWebhook(payload, rawBody)) == EventStatus.FAILED) {
+            // Stored, and retried by the reprocessor; a retry from the sender would only be a duplicate
+            return ResponseEntity.accepted().body(
+                    java.util.Map.of(
+                            "eventId", payload.getEventId(),
+                            "message", "Webhook stored for reprocessing"
+                    )
+            );
+        }
+
+        return ResponseEntity.ok(
+                java.util.Map.of(
+                        "eventId", payload.getEventId(),
+                        "message", "Webhook received and processed successfully"
+                )
+        );
+    }
+
+    /**
+     * Ingests many webhooks in one call; the body is NDJSON or a JSON array and is signed as a whole together
+     * with the X-Webhook-Timestamp header, which is checked against the tolerance window and for replays.
+     * Per-item timestamps are not checked so that backfills can be replayed.
+     * Answers with one NDJSON line per item: ok, duplicate, invalid or error
+     */
+    @PostMapping("/payment/batch")
+    public void receiveBatch(
+            @RequestHeader(value = "X-Webhook-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Webhook-Timestamp", required = false) String timestamp,
+            CachedBodyHttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        receiveBatch(null, signature, timestamp, request, response);
+    }
+
+    /**
+     * Same as /payment/batch, verified with the tenant's own keys instead of webhook.secret
+     */
+    @PostMapping("/{tenant}/payment/batch")
+    public void receiveTenantBatch(
+            @PathVariable String tenant,
+            @RequestHeader(value = "X-Webhook-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Webhook-Timestamp", required = false) String timestamp,
+            CachedBodyHttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        receiveBatch(tenant, signature, timestamp, request, response);
+    }
+
+    private void receiveBatch(String tenant, String signature, String timestampHeader,
+                              CachedBodyHttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (signature == null || signature.isBlank()) {
+            metrics.outcome(Outcome.BAD_SIGNATURE);
+            throw new ApiException("Missing webhook signature header", HttpStatus.UNAUTHORIZED);
+        }
+        long timestamp = parseTimestamp(timestampHeader);
+        byte[] rawBody = request.getCachedBodyBytes();
+        signatureValidationService.validateBatchSignature(tenant, timestamp, rawBody, signature);
+        signatureValidationService.validateTimestamp(timestamp);
+        signatureValidationService.checkReplay(signature, timestamp);
+
+        try {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            batchIngestionService.ingest(rawBody, response.getOutputStream());
+        } catch (RuntimeException | IOException e) {
+            // Items already stored come back as duplicates, so the sender may resend the same signed request
+            signatureValidationService.forgetReplay(signature, timestamp);
+            throw e;
+        }
+    }
+
+    private long parseTimestamp(String header) {
+        if (header == null || header.isBlank()) {
+            metrics.outcome(Outcome.BAD_SIGNATURE);
+            throw new ApiException("Missing webhook timestamp header", HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            metrics.outcome(Outcome.BAD_SIGNATURE);
+            throw new ApiException("Invalid webhook timestamp header", HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    /**
+     * Returns the original signed body of a stored event
+     */
+    @GetMapping("/events/{eventId}/payload")
+    public ResponseEntity<byte[]> getEventPayload(@PathVariable String eventId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(webhookService.getRawPayload(eventId));
+    }
 }
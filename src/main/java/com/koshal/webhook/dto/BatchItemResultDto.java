@@ -0,0 +1,25 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One line of the batch ingestion response
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResultDto(
+        int index,
+        @JsonProperty("event_id") String eventId,
+        Result result,
+        String error) {
+
+    public enum Result {
+        @JsonProperty("ok") OK,
+        @JsonProperty("duplicate") DUPLICATE,
+        @JsonProperty("invalid") INVALID,
+        @JsonProperty("rate_limited") RATE_LIMITED,
+        // Stored as failed; the reprocessor runs it again
+        @JsonProperty("reprocessing") REPROCESSING,
+        @JsonProperty("error") ERROR
+    }
+}
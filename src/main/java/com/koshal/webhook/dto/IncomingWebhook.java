@@ -0,0 +1,11 @@
+package com.koshal.webhook.dto;
+
+/**
+ * A verified webhook: the bound payload together with the raw body it was signed over
+ */
+public record IncomingWebhook(WebhookPayloadDto payload, byte[] rawBody) {
+
+    public String eventId() {
+        return payload.getEventId();
+    }
+}
@@ -0,0 +1,21 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Subscriber as returned by the API; the secret is never returned, only whether deliveries are signed
+ */
+public record SubscriberDto(
+        long id,
+        String name,
+        String url,
+        boolean signed,
+        List<String> statuses,
+        List<String> currencies,
+        @JsonProperty("max_concurrency") int maxConcurrency,
+        boolean active,
+        @JsonProperty("created_at") Instant createdAt) {
+}
@@ -0,0 +1,23 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.koshal.webhook.validation.ValidCurrency;
+import com.koshal.webhook.validation.ValidTransactionStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Registration of a subscriber; statuses and currencies narrow the transactions it is sent, empty means all
+ */
+public record SubscriberRequestDto(
+        @NotBlank @Size(max = 100) String name,
+        @NotBlank @Size(max = 2048) String url,
+        @Size(max = 255) String secret,
+        List<@NotBlank @ValidTransactionStatus String> statuses,
+        @Size(max = 60) List<@NotBlank @ValidCurrency String> currencies,
+        @JsonProperty("max_concurrency") @Min(1) @Max(64) Integer maxConcurrency) {
+}
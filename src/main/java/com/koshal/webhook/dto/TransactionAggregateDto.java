@@ -0,0 +1,23 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.koshal.webhook.model.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Totals of one currency, status and payment method; minute is set for per-minute rows only
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionAggregateDto(
+        Instant minute,
+        String currency,
+        TransactionStatus status,
+        @JsonProperty("payment_method") String paymentMethod,
+        long count,
+        BigDecimal amount,
+        @JsonProperty("processing_fee") BigDecimal processingFee,
+        @JsonProperty("net_amount") BigDecimal netAmount) {
+}
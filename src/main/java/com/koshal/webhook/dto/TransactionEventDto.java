@@ -0,0 +1,25 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.koshal.webhook.model.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Body of an outbound delivery: the state a transaction was committed with
+ */
+public record TransactionEventDto(
+        @JsonProperty("event_id") String eventId,
+        @JsonProperty("transaction_id") String transactionId,
+        TransactionStatus status,
+        BigDecimal amount,
+        String currency,
+        @JsonProperty("processing_fee") BigDecimal processingFee,
+        @JsonProperty("net_amount") BigDecimal netAmount,
+        @JsonProperty("payment_method") String paymentMethod,
+        @JsonProperty("sender_id") String senderId,
+        @JsonProperty("receiver_id") String receiverId,
+        @JsonProperty("event_timestamp") Instant eventTimestamp,
+        @JsonProperty("processed_at") Instant processedAt) {
+}
@@ -0,0 +1,18 @@
+package com.koshal.webhook.dto;
+
+import com.koshal.webhook.model.enums.TransactionStatus;
+
+import java.time.Instant;
+
+/**
+ * Optional filters of the transaction query API; null means no restriction.
+ * The processed_at range is from inclusive, to exclusive
+ */
+public record TransactionFilter(
+        String senderId,
+        String receiverId,
+        TransactionStatus status,
+        String currency,
+        Instant from,
+        Instant to) {
+}
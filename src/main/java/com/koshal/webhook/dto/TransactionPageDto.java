@@ -0,0 +1,13 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One page of the transaction query API; next_cursor is null on the last page
+ */
+public record TransactionPageDto(
+        List<TransactionSummaryDto> items,
+        @JsonProperty("next_cursor") String nextCursor) {
+}
@@ -0,0 +1,24 @@
+package com.koshal.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.koshal.webhook.model.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Transaction row as returned by the query API; selected directly, without loading the entity
+ */
+public record TransactionSummaryDto(
+        long id,
+        @JsonProperty("transaction_id") String transactionId,
+        @JsonProperty("event_id") String eventId,
+        BigDecimal amount,
+        String currency,
+        TransactionStatus status,
+        @JsonProperty("payment_method") String paymentMethod,
+        @JsonProperty("sender_id") String senderId,
+        @JsonProperty("receiver_id") String receiverId,
+        @JsonProperty("net_amount") BigDecimal netAmount,
+        @JsonProperty("processed_at") Instant processedAt) {
+}
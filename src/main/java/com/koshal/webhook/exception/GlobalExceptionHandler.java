@@ -22,6 +22,18 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimited(RateLimitedException ex) {
+        log.warn("Rate limited: {}", ex.getMessage());
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(Map.of(
+                        "timestamp", Instant.now(),
+                        "error", ex.getMessage(),
+                        "status", ex.getStatus().value()
+                ));
+    }
+
     @ExceptionHandler(org.springframework.web.bind.MissingRequestHeaderException.class)
     public ResponseEntity<Map<String, Object>> handleMissingHeader(org.springframework.web.bind.MissingRequestHeaderException ex) {
         log.error("Missing header: {}", ex.getHeaderName());
@@ -44,6 +56,14 @@ public class GlobalExceptionHandler {
                 .body(Map.of("timestamp", Instant.now(), "error", error, "status", 400));
     }
 
+    @ExceptionHandler(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleTypeMismatch(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException ex) {
+        String error = "Invalid value for " + ex.getName() + ": " + ex.getValue();
+        log.error("Type mismatch: {}", error);
+        return ResponseEntity.badRequest()
+                .body(Map.of("timestamp", Instant.now(), "error", error, "status", 400));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
         log.error("Generic Exception: {}", ex.getMessage(), ex);
@@ -63,4 +83,20 @@ public class GlobalExceptionHandler {
             return status;
         }
     }
+
+    /**
+     * 429 answered with a Retry-After header
+     */
+    public static class RateLimitedException extends ApiException {
+        private final long retryAfterSeconds;
+
+        public RateLimitedException(String message, long retryAfterSeconds) {
+            super(message, HttpStatus.TOO_MANY_REQUESTS);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
 }
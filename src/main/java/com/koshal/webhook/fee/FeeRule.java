@@ -0,0 +1,27 @@
+package com.koshal.webhook.fee;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One configured fee rule, bound from webhook.fees.rules
+ * A null or "*" payment method, currency or country matches any value. The fee is percent of the amount
+ * plus fixed, clamped to [min, max]; with tiers, the first tier whose up-to covers the amount supplies
+ * percent and fixed instead
+ */
+public record FeeRule(String paymentMethod,
+                      String currency,
+                      String senderCountry,
+                      String receiverCountry,
+                      BigDecimal percent,
+                      BigDecimal fixed,
+                      BigDecimal min,
+                      BigDecimal max,
+                      List<Tier> tiers) {
+
+    /**
+     * Amount band of a tiered rule; a null upTo is open ended and must be the last tier
+     */
+    public record Tier(BigDecimal upTo, BigDecimal percent, BigDecimal fixed) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.koshal.webhook.fee;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Fee rules compiled into a lookup tree keyed by payment method, currency, sender country and receiver country
+ * A lookup tries the exact value before the wildcard at each level, so the most specific rule wins, fields
+ * on the left outranking fields on the right. It visits at most 16 leaves whatever the rule count and
+ * allocates nothing besides the BigDecimal arithmetic of the fee itself.
+ * Instances are immutable once compiled
+ */
+public final class FeeSchedule {
+
+    static final String ANY = "*";
+    private static final int LEVELS = 4;
+    private static final int FEE_SCALE = 2;
+
+    private final Node root;
+    private final int size;
+
+    private FeeSchedule(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * A compiled rule: amount bands with their rate and fixed part, plus the clamp
+     */
+    static final class Compiled {
+        final BigDecimal[] upTo;
+        final BigDecimal[] rate;
+        final BigDecimal[] fixed;
+        final BigDecimal min;
+        final BigDecimal max;
+
+        Compiled(BigDecimal[] upTo, BigDecimal[] rate, BigDecimal[] fixed, BigDecimal min, BigDecimal max) {
+            this.upTo = upTo;
+            this.rate = rate;
+            this.fixed = fixed;
+            this.min = min;
+            this.max = max;
+        }
+
+        BigDecimal fee(BigDecimal amount) {
+            int band = 0;
+            while (upTo[band] != null && amount.compareTo(upTo[band]) > 0) {
+                band++;
+            }
+            BigDecimal fee = amount.multiply(rate[band]);
+            if (fixed[band].signum() != 0) {
+                fee = fee.add(fixed[band]);
+            }
+            if (min != null && fee.compareTo(min) < 0) {
+                fee = min;
+            } else if (max != null && fee.compareTo(max) > 0) {
+                fee = max;
+            }
+            return fee.setScale(FEE_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        Compiled rule;
+    }
+
+    /**
+     * Validates and compiles the rules; one rule matching everything is required so every event gets a fee
+     */
+    public static FeeSchedule compile(List<FeeRule> rules) {
+        Node root = new Node();
+        for (FeeRule rule : rules) {
+            Node node = root;
+            String[] key = {
+                    normalizeMethod(rule.paymentMethod()),
+                    normalizeCode(rule.currency()),
+                    normalizeCode(rule.senderCountry()),
+                    normalizeCode(rule.receiverCountry())};
+            for (String value : key) {
+                node = node.children.computeIfAbsent(value == null ? ANY : value, v -> new Node());
+            }
+            if (node.rule != null) {
+                throw new IllegalArgumentException("Duplicate fee rule for " + describe(rule));
+            }
+            node.rule = compileRule(rule);
+        }
+        FeeSchedule schedule = new FeeSchedule(root, rules.size());
+        if (schedule.find(null, null, null, null) == null) {
+            throw new IllegalArgumentException(
+                    "A catch-all fee rule without payment method, currency or countries is required");
+        }
+        return schedule;
+    }
+
+    /**
+     * Fee for the amount at DECIMAL(18,2) scale, rounded half up
+     */
+    public BigDecimal fee(String paymentMethod, String currency, String senderCountry, String receiverCountry,
+                          BigDecimal amount) {
+        return find(normalizeMethod(paymentMethod), normalizeCode(currency), normalizeCode(senderCountry),
+                normalizeCode(receiverCountry)).fee(amount);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    Compiled find(String paymentMethod, String currency, String senderCountry, String receiverCountry) {
+        return find(root, 0, paymentMethod, currency, senderCountry, receiverCountry);
+    }
+
+    private static Compiled find(Node node, int level, String paymentMethod, String currency,
+                                 String senderCountry, String receiverCountry) {
+        if (level == LEVELS) {
+            return node.rule;
+        }
+        String value = switch (level) {
+            case 0 -> paymentMethod;
+            case 1 -> currency;
+            case 2 -> senderCountry;
+            default -> receiverCountry;
+        };
+        if (value != null) {
+            Node exact = node.children.get(value);
+            if (exact != null) {
+                Compiled found = find(exact, level + 1, paymentMethod, currency, senderCountry, receiverCountry);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        Node any = node.children.get(ANY);
+        return any == null ? null : find(any, level + 1, paymentMethod, currency, senderCountry, receiverCountry);
+    }
+
+    private static Compiled compileRule(FeeRule rule) {
+        BigDecimal min = rule.min();
+        BigDecimal max = rule.max();
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("Fee min is above max for " + describe(rule));
+        }
+        if (rule.tiers() == null || rule.tiers().isEmpty()) {
+            return new Compiled(new BigDecimal[]{null}, new BigDecimal[]{rate(rule.percent(), rule)},
+                    new BigDecimal[]{amount(rule.fixed(), rule)}, min, max);
+        }
+        if (rule.percent() != null || rule.fixed() != null) {
+            throw new IllegalArgumentException("Tiered fee rule takes percent and fixed per tier: " + describe(rule));
+        }
+        int bands = rule.tiers().size();
+        BigDecimal[] upTo = new BigDecimal[bands];
+        BigDecimal[] rate = new BigDecimal[bands];
+        BigDecimal[] fixed = new BigDecimal[bands];
+        for (int i = 0; i < bands; i++) {
+            FeeRule.Tier tier = rule.tiers().get(i);
+            boolean last = i == bands - 1;
+            if ((tier.upTo() == null) != last) {
+                throw new IllegalArgumentException("Only the last fee tier must be open ended: " + describe(rule));
+            }
+            if (i > 0 && !last && tier.upTo().compareTo(upTo[i - 1]) <= 0) {
+                throw new IllegalArgumentException("Fee tiers must be in ascending up-to order: " + describe(rule));
+            }
+            upTo[i] = tier.upTo();
+            rate[i] = rate(tier.percent(), rule);
+            fixed[i] = amount(tier.fixed(), rule);
+        }
+        return new Compiled(upTo, rate, fixed, min, max);
+    }
+
+    private static BigDecimal rate(BigDecimal percent, FeeRule rule) {
+        if (percent == null) {
+            return BigDecimal.ZERO;
+        }
+        if (percent.signum() < 0) {
+            throw new IllegalArgumentException("Fee percent must not be negative: " + describe(rule));
+        }
+        return percent.movePointLeft(2);
+    }
+
+    private static BigDecimal amount(BigDecimal fixed, FeeRule rule) {
+        if (fixed == null) {
+            return BigDecimal.ZERO;
+        }
+        if (fixed.signum() < 0) {
+            throw new IllegalArgumentException("Fixed fee must not be negative: " + describe(rule));
+        }
+        return fixed;
+    }
+
+    private static String normalizeMethod(String value) {
+        return value == null || value.equals(ANY) ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeCode(String value) {
+        return value == null || value.equals(ANY) ? null : value.toUpperCase(Locale.ROOT);
+    }
+
+    private static String describe(FeeRule rule) {
+        return String.join("/", Objects.requireNonNullElse(rule.paymentMethod(), ANY),
+                Objects.requireNonNullElse(rule.currency(), ANY), Objects.requireNonNullElse(rule.senderCountry(), ANY),
+                Objects.requireNonNullElse(rule.receiverCountry(), ANY));
+    }
+}
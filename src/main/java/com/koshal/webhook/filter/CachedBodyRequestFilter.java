@@ -1,8 +1,17 @@
 package com.koshal.webhook.filter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Stage;
 import com.koshal.webhook.util.CachedBodyHttpServletRequest;
+import com.koshal.webhook.util.CachedBodyHttpServletRequest.BodyTooLargeException;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -10,21 +19,43 @@ import java.io.IOException;
 /**
  * Filter to wrap HttpServletRequest with cached body for HMAC validation
  * This allows reading the request body multiple times
+ * Oversized bodies are rejected with 413 before they are buffered
  */
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class CachedBodyRequestFilter implements Filter {
 
+    private final ObjectMapper mapper;
+    private final WebhookMetrics metrics;
+
+    @Value("${webhook.body.max-bytes:1048576}")
+    private int maxBodyBytes;
+
+    @Value("${webhook.body.max-batch-bytes:33554432}")
+    private int maxBatchBodyBytes;
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-        
+
         if (request instanceof HttpServletRequest) {
             HttpServletRequest httpRequest = (HttpServletRequest) request;
 
-            if ("POST".equalsIgnoreCase(httpRequest.getMethod()) && 
-                httpRequest.getRequestURI().contains("/webhooks/")) {
-                
-                CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(httpRequest);
+            if (WebhookFilterSupport.isWebhookPost(httpRequest)) {
+
+                CachedBodyHttpServletRequest cachedRequest;
+                long start = WebhookMetrics.start();
+                try {
+                    int limit = httpRequest.getRequestURI().endsWith("/batch") ? maxBatchBodyBytes : maxBodyBytes;
+                    cachedRequest = new CachedBodyHttpServletRequest(httpRequest, limit);
+                } catch (BodyTooLargeException e) {
+                    log.error("Rejected webhook body: {}", e.getMessage());
+                    WebhookFilterSupport.writeError(mapper, (HttpServletResponse) response,
+                            HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+                    return;
+                }
+                metrics.record(Stage.BODY_READ, start);
                 chain.doFilter(cachedRequest, response);
             } else {
                 chain.doFilter(request, response);
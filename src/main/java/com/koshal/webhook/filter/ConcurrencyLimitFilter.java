@@ -0,0 +1,120 @@
+package com.koshal.webhook.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koshal.webhook.model.enums.IngestionMode;
+import com.koshal.webhook.util.AdaptiveConcurrencyLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds concurrent webhook requests to what the database can currently serve
+ * With virtual threads Tomcat no longer caps concurrency through its thread pool, so without this
+ * every request would start, buffer its body and then park waiting for a Hikari connection.
+ * The limit starts from the pool size and adapts to observed latency (see AdaptiveConcurrencyLimiter):
+ * when MySQL slows down it shrinks, so excess requests are shed instead of queueing behind slow ones.
+ * Runs before body buffering; requests over the limit are rejected at once with 503 and Retry-After.
+ * Batch requests hold a permit but do not feed latency samples, as their duration grows with their size.
+ * In journal mode single webhooks never touch the pool and are not limited here, so that they
+ * can share group commits
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class ConcurrencyLimitFilter implements Filter {
+
+    private final ObjectMapper mapper;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean enabled;
+    private final boolean journalMode;
+    private final String retryAfterSeconds;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(ObjectMapper mapper,
+                                  DataSource dataSource,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${webhook.ingestion.mode:sync}") IngestionMode ingestionMode,
+                                  @Value("${webhook.concurrency.enabled:true}") boolean enabled,
+                                  @Value("${webhook.concurrency.requests-per-connection:2}") int requestsPerConnection,
+                                  @Value("${webhook.concurrency.min-limit:2}") int minLimit,
+                                  @Value("${webhook.concurrency.max-limit:200}") int maxLimit,
+                                  @Value("${webhook.concurrency.latency-target-ms:250}") long latencyTargetMillis,
+                                  @Value("${webhook.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${webhook.concurrency.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.journalMode = ingestionMode == IngestionMode.JOURNAL;
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+        int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        int initialLimit = Math.max(minLimit, Math.min(maxLimit, poolSize * requestsPerConnection));
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis), backoffRatio);
+
+        Gauge.builder("webhook.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Webhook requests currently holding a permit")
+                .register(meterRegistry);
+        Gauge.builder("webhook.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent webhook requests")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("webhook.concurrency.rejected")
+                .description("Webhook requests rejected by the concurrency limit")
+                .register(meterRegistry);
+        log.info("Webhook concurrency limit: {} adapting within [{}, {}] (pool size {}, enabled={})",
+                limiter.getLimit(), minLimit, maxLimit, poolSize, enabled);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!enabled || !(request instanceof HttpServletRequest httpRequest)
+                || !WebhookFilterSupport.isWebhookPost(httpRequest)
+                || (journalMode && !httpRequest.getRequestURI().endsWith("/batch"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            WebhookFilterSupport.writeError(mapper, httpResponse, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many concurrent webhook requests, retry later");
+            return;
+        }
+
+        if (httpRequest.getRequestURI().endsWith("/batch")) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                limiter.release();
+            }
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Exceptions and 5xx answers (pool timeouts, full queues) count as overload whatever their latency
+        boolean overloaded = true;
+        try {
+            chain.doFilter(request, response);
+            overloaded = httpResponse.getStatus() >= 500;
+        } finally {
+            limiter.release(start, System.nanoTime(), overloaded);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.koshal.webhook.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Helpers shared by the filters guarding webhook ingestion endpoints
+ */
+final class WebhookFilterSupport {
+
+    private WebhookFilterSupport() {
+    }
+
+    /**
+     * True for requests that deliver webhooks
+     */
+    static boolean isWebhookPost(HttpServletRequest request) {
+        return "POST".equalsIgnoreCase(request.getMethod()) && request.getRequestURI().contains("/webhooks/");
+    }
+
+    /**
+     * Writes an error body in the same shape as GlobalExceptionHandler
+     */
+    static void writeError(ObjectMapper mapper, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(), Map.of(
+                "timestamp", Instant.now(),
+                "error", message,
+                "status", status.value()
+        ));
+    }
+}
@@ -0,0 +1,530 @@
+package com.koshal.webhook.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable append-only journal of opaque records, kept in memory-mapped segment files
+ *
+ * Appenders copy their record into the active segment under a short lock and then wait until it is on disk.
+ * A single flusher thread forces everything written so far in one go, so appends that arrive while a force
+ * is running share the next one (group commit) instead of paying for an msync each.
+ * A {@link Reader} replays durable records in sequence order; once they are applied, {@link #checkpoint}
+ * stores the position and recycles the segments behind it. Opening the directory again recovers every
+ * record written after the last checkpoint, so a record is delivered at least once.
+ */
+@Slf4j
+public class Journal implements Closeable {
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int SPARE_SEGMENTS = 2;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    // Segment list, spares and sequence assignment
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ArrayDeque<JournalSegment> segments = new ArrayDeque<>();
+    private final ArrayDeque<JournalSegment> spares = new ArrayDeque<>();
+    private long nextSequence;
+
+    // Appenders unpark the flusher and wait on forced; the flusher never takes syncLock to find work,
+    // so it does not queue behind the appenders it is about to release
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition forced = syncLock.newCondition();
+    private volatile long writtenSequence;
+    private volatile long durableSequence;
+    private volatile long checkpointSequence;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private final LongAdder forces = new LongAdder();
+    private final Thread flusher;
+
+    /**
+     * Thrown when the journal already holds maxSegments segments that are not applied yet
+     */
+    public static class JournalFullException extends IOException {
+        public JournalFullException(String message) {
+            super(message);
+        }
+    }
+
+    private Journal(Path directory, int segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.flusher = new Thread(this::flushLoop, "webhook-journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in the directory, recovering records written after the last checkpoint
+     */
+    public static Journal open(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        if (segmentBytes <= JournalSegment.HEADER_BYTES || maxSegments < 2) {
+            throw new IllegalArgumentException("Journal needs segments larger than a record header and at least 2 of them");
+        }
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, segmentBytes, maxSegments);
+        journal.recover();
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * Appends a record and waits until it is durable
+     *
+     * @return the sequence of the record
+     * @throws JournalFullException when no segment can be added until the reader catches up
+     * @throws TimeoutException when the record was written but not forced in time; it may still be replayed
+     */
+    public long append(byte[] body, long timeout, TimeUnit unit)
+            throws IOException, InterruptedException, TimeoutException {
+        int crc = crc(body);
+        long sequence;
+        appendLock.lock();
+        try {
+            ensureUsable();
+            if (JournalSegment.HEADER_BYTES + body.length > segmentBytes) {
+                throw new IllegalArgumentException("Record of " + body.length + " bytes does not fit a journal segment");
+            }
+            JournalSegment active = segments.getLast();
+            if (!active.fits(body.length)) {
+                active = roll();
+            }
+            sequence = nextSequence++;
+            active.write(sequence, crc, body);
+            writtenSequence = sequence;
+        } finally {
+            appendLock.unlock();
+        }
+        awaitDurable(sequence, unit.toNanos(timeout));
+        return sequence;
+    }
+
+    private void awaitDurable(long sequence, long nanos) throws IOException, InterruptedException, TimeoutException {
+        LockSupport.unpark(flusher);
+        if (durableSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                ensureUsable();
+                if (nanos <= 0) {
+                    throw new TimeoutException("Journal record " + sequence + " not forced in time");
+                }
+                nanos = forced.awaitNanos(nanos);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a record after the given sequence is durable
+     *
+     * @return false on timeout or when the journal is closed
+     */
+    public boolean awaitRecordsAfter(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        syncLock.lock();
+        try {
+            while (durableSequence <= sequence) {
+                if (closed || nanos <= 0) {
+                    return false;
+                }
+                nanos = forced.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Records everything up to the sequence as applied and recycles the segments it covers
+     */
+    public void checkpoint(long sequence) throws IOException {
+        if (sequence <= checkpointSequence) {
+            return;
+        }
+        // Write then rename, so a crash leaves either the old or the new checkpoint
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        checkpointSequence = sequence;
+
+        appendLock.lock();
+        try {
+            while (segments.size() > 1 && second().baseSequence() - 1 <= sequence) {
+                retire(segments.removeFirst());
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a reader positioned after the given sequence, normally the checkpoint
+     */
+    public Reader reader(long afterSequence) {
+        return new Reader(afterSequence + 1);
+    }
+
+    /**
+     * Replays durable records in order; not thread-safe, meant for one applier thread
+     */
+    public class Reader {
+
+        private long next;
+        private JournalSegment segment;
+        private int offset;
+
+        private Reader(long next) {
+            this.next = next;
+            appendLock.lock();
+            try {
+                for (JournalSegment candidate : segments) {
+                    if (candidate.baseSequence() <= next) {
+                        segment = candidate;
+                    }
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            // Skip forward to the first record to return
+            if (segment != null) {
+                long sequence = segment.baseSequence();
+                JournalEntry entry;
+                while (sequence < next && (entry = segment.read(offset, sequence)) != null) {
+                    offset += JournalSegment.HEADER_BYTES + entry.body().length;
+                    sequence++;
+                }
+            }
+        }
+
+        /**
+         * Returns up to max durable records, or an empty list when the reader has caught up
+         */
+        public List<JournalEntry> poll(int max) {
+            List<JournalEntry> entries = new ArrayList<>(Math.min(max, 64));
+            while (entries.size() < max && next <= durableSequence) {
+                JournalEntry entry = segment == null ? null : segment.read(offset, next);
+                if (entry == null) {
+                    // End of this segment; the record continues the segment that starts at its sequence
+                    segment = segmentStartingAt(next);
+                    offset = 0;
+                    if (segment == null) {
+                        break;
+                    }
+                    continue;
+                }
+                entries.add(entry);
+                offset += JournalSegment.HEADER_BYTES + entry.body().length;
+                next++;
+            }
+            return entries;
+        }
+
+        public long lastReadSequence() {
+            return next - 1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            closed = true;
+            forced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+            for (JournalSegment spare : spares) {
+                spare.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        return writtenSequence;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Number of forces so far; appends divided by forces is the average group commit size
+     */
+    public long getForceCount() {
+        return forces.sum();
+    }
+
+    public int getSegmentCount() {
+        appendLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    static int crc(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private void flushLoop() {
+        List<JournalSegment> dirty = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        while (true) {
+            while (!closed && writtenSequence == durableSequence) {
+                LockSupport.park(this);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            if (closed && writtenSequence == durableSequence) {
+                return;
+            }
+
+            long target;
+            appendLock.lock();
+            try {
+                target = writtenSequence;
+                for (JournalSegment segment : segments) {
+                    if (segment.forcedPosition() < segment.position()) {
+                        dirty.add(segment);
+                        ranges.add(new int[]{segment.forcedPosition(), segment.position()});
+                        segment.forcedPosition(segment.position());
+                    }
+                }
+            } finally {
+                appendLock.unlock();
+            }
+
+            try {
+                // Segments holding records past durableSequence are never recycled, so these stay valid
+                for (int i = 0; i < dirty.size(); i++) {
+                    dirty.get(i).force(ranges.get(i)[0], ranges.get(i)[1]);
+                }
+                forces.increment();
+            } catch (UncheckedIOException e) {
+                log.error("Journal force failed, refusing further appends", e);
+                failure = e.getCause();
+            } finally {
+                dirty.clear();
+                ranges.clear();
+            }
+
+            syncLock.lock();
+            try {
+                if (failure == null) {
+                    durableSequence = target;
+                }
+                forced.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    private JournalSegment roll() throws IOException {
+        if (segments.size() >= maxSegments) {
+            throw new JournalFullException("Journal holds " + segments.size() + " unapplied segments");
+        }
+        JournalSegment next = spares.pollFirst();
+        if (next != null) {
+            next.recycle(nextSequence);
+        } else {
+            next = JournalSegment.create(directory, nextSequence, segmentBytes);
+        }
+        // The new name must be durable before records in it are acknowledged
+        forceDirectory();
+        segments.addLast(next);
+        return next;
+    }
+
+    private void retire(JournalSegment segment) throws IOException {
+        if (spares.size() < SPARE_SEGMENTS && segment.capacity() == segmentBytes) {
+            spares.addLast(segment);
+        } else {
+            segment.delete();
+        }
+    }
+
+    private JournalSegment second() {
+        var iterator = segments.iterator();
+        iterator.next();
+        return iterator.next();
+    }
+
+    private JournalSegment segmentStartingAt(long sequence) {
+        appendLock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                if (segment.baseSequence() == sequence) {
+                    return segment;
+                }
+            }
+            return null;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void ensureUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal failed", failure);
+        }
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+    }
+
+    /**
+     * Rebuilds the segment list from disk
+     * Segments before the one holding the first unapplied record become spares. From there on
+     * segments must continue each other's sequences; a gap means the records after it were never
+     * acknowledged, so those segments are dropped
+     */
+    private void recover() throws IOException {
+        checkpointSequence = readCheckpoint();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(JournalSegment::isSegmentFile)
+                    .sorted(Comparator.comparingLong(JournalSegment::parseBaseSequence))
+                    .toList();
+        }
+
+        long firstUnapplied = checkpointSequence + 1;
+        int start = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (JournalSegment.parseBaseSequence(files.get(i)) <= firstUnapplied) {
+                start = i;
+            }
+        }
+
+        long expected = -1;
+        for (int i = 0; i < files.size(); i++) {
+            JournalSegment segment = JournalSegment.open(files.get(i));
+            if (i < start) {
+                retire(segment);
+                continue;
+            }
+            if (expected >= 0 && segment.baseSequence() != expected) {
+                log.warn("Dropping journal segment {} after a sequence gap at {}", segment.path(), expected);
+                segment.delete();
+                continue;
+            }
+            int offset = 0;
+            long sequence = segment.baseSequence();
+            JournalEntry entry;
+            while ((entry = segment.read(offset, sequence)) != null) {
+                offset += JournalSegment.HEADER_BYTES + entry.body().length;
+                sequence++;
+            }
+            // Pages written before a JVM crash may still sit in the page cache
+            segment.force(0, offset);
+            segment.position(offset);
+            segments.addLast(segment);
+            expected = sequence;
+        }
+
+        if (segments.isEmpty() || expected <= checkpointSequence) {
+            // Nothing left to replay; start a fresh segment right after the checkpoint
+            while (!segments.isEmpty()) {
+                retire(segments.removeFirst());
+            }
+            expected = firstUnapplied;
+            JournalSegment spare = spares.pollFirst();
+            if (spare != null) {
+                spare.recycle(expected);
+            } else {
+                spare = JournalSegment.create(directory, expected, segmentBytes);
+            }
+            forceDirectory();
+            segments.addLast(spare);
+        }
+        nextSequence = expected;
+        writtenSequence = expected - 1;
+        durableSequence = expected - 1;
+        if (expected - 1 > checkpointSequence) {
+            log.info("Journal recovered {} unapplied records after checkpoint {}",
+                    expected - 1 - checkpointSequence, checkpointSequence);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        try {
+            return Long.parseLong(Files.readString(directory.resolve(CHECKPOINT_FILE), StandardCharsets.US_ASCII).trim());
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (NumberFormatException e) {
+            log.warn("Unreadable journal checkpoint, replaying from the oldest segment");
+            return 0;
+        }
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory; renames are still atomic there
+            log.debug("Cannot force journal directory: {}", e.getMessage());
+        }
+    }
+}
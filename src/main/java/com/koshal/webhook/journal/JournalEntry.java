@@ -0,0 +1,7 @@
+package com.koshal.webhook.journal;
+
+/**
+ * One record read back from the journal
+ */
+public record JournalEntry(long sequence, byte[] body) {
+}
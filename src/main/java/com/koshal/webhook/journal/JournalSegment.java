@@ -0,0 +1,159 @@
+package com.koshal.webhook.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One fixed-size journal file, mapped into memory for its whole lifetime
+ * The file name carries the sequence of its first record. Records are laid out back to back as
+ * [int length][int crc32c][long sequence][body]; there is no end marker, a reader stops at the first
+ * record whose sequence is not the one it expects. That makes recycled files safe to reuse without
+ * zeroing them, since their stale records all carry older sequences.
+ * Positions are guarded by the journal's append lock; the buffer is only accessed with absolute offsets
+ */
+final class JournalSegment {
+
+    static final int HEADER_BYTES = 16;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private Path path;
+    private long baseSequence;
+    private int position;
+    private int forcedPosition;
+
+    private JournalSegment(Path path, FileChannel channel, long baseSequence) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        this.baseSequence = baseSequence;
+    }
+
+    /**
+     * Creates a new segment file of the given size, allocated up front
+     */
+    static JournalSegment create(Path directory, long baseSequence, int sizeBytes) throws IOException {
+        Path path = directory.resolve(fileName(baseSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Write the last byte so the file has its full size before it is mapped
+        channel.write(ByteBuffer.allocate(1), sizeBytes - 1L);
+        channel.force(true);
+        return new JournalSegment(path, channel, baseSequence);
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JournalSegment(path, channel, parseBaseSequence(path));
+    }
+
+    static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static long parseBaseSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static String fileName(long baseSequence) {
+        return String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX);
+    }
+
+    /**
+     * Renames an applied segment so it can take the records starting at a new sequence
+     */
+    void recycle(long newBaseSequence) throws IOException {
+        Path target = path.resolveSibling(fileName(newBaseSequence));
+        Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+        baseSequence = newBaseSequence;
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    boolean fits(int bodyBytes) {
+        return (long) position + HEADER_BYTES + bodyBytes <= buffer.capacity();
+    }
+
+    void write(long sequence, int crc, byte[] body) {
+        buffer.putInt(position + 4, crc);
+        buffer.putLong(position + 8, sequence);
+        buffer.put(position + HEADER_BYTES, body);
+        buffer.putInt(position, body.length);
+        position += HEADER_BYTES + body.length;
+    }
+
+    /**
+     * Reads the record at the offset if it is intact and carries the expected sequence, otherwise null
+     */
+    JournalEntry read(int offset, long expectedSequence) {
+        if (offset + HEADER_BYTES > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length < 0 || (long) offset + HEADER_BYTES + length > buffer.capacity()
+                || buffer.getLong(offset + 8) != expectedSequence) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        buffer.get(offset + HEADER_BYTES, body);
+        return Journal.crc(body) == buffer.getInt(offset + 4) ? new JournalEntry(expectedSequence, body) : null;
+    }
+
+    /**
+     * Forces written but not yet forced bytes up to the given position to disk
+     */
+    void force(int from, int to) {
+        if (to > from) {
+            buffer.force(from, to - from);
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    int position() {
+        return position;
+    }
+
+    void position(int position) {
+        this.position = position;
+        this.forcedPosition = position;
+    }
+
+    int forcedPosition() {
+        return forcedPosition;
+    }
+
+    void forcedPosition(int forcedPosition) {
+        this.forcedPosition = forcedPosition;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+}
@@ -7,14 +7,21 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_transactions_event_id", columnNames = "event_id"),
+                @UniqueConstraint(name = "uk_transactions_transaction_id", columnNames = "transaction_id")
+        })
 @Getter @Setter @Builder
 @NoArgsConstructor @AllArgsConstructor
 public class Transaction {
+    // Rows are written by TransactionUpsertRepository, whose INSERT ... ON DUPLICATE KEY UPDATE batches
+    // without pooled ids, so the id comes from AUTO_INCREMENT
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false)
     private String eventId;
     private String transactionId;
     private BigDecimal amount;
@@ -30,10 +37,14 @@ public class Transaction {
 
     @Enumerated(EnumType.STRING)
     private TransactionStatus status;
+    // Timestamp of the event that set the current status
+    private Instant eventTimestamp;
 
     private BigDecimal processingFee;
     private BigDecimal netAmount;
+    @Column(precision = 24, scale = 10)
     private BigDecimal exchangeRate;
+    private BigDecimal baseAmount;
     private Instant processedAt;
 
     @Column(updatable = false, insertable = false)
@@ -6,22 +6,34 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "webhook_events")
+@Table(name = "webhook_events", indexes = @Index(name = "idx_webhook_events_event_id", columnList = "event_id"))
 @Getter @Setter @Builder
 @NoArgsConstructor @AllArgsConstructor
 public class WebhookEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "webhook_events_id")
+    @TableGenerator(name = "webhook_events_id", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "webhook_events", allocationSize = 50)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    // Unique through webhook_event_ids, as a partitioned table cannot have a unique key without received_at
+    @Column(nullable = false)
     private String eventId;
 
-    @Lob
-    private String payload;
+    @Column(length = 16_777_215)
+    private byte[] rawPayload;
+
+    private String payloadCodec;
 
     @Enumerated(EnumType.STRING)
     private EventStatus status;
 
+    // Processing attempts made; a FAILED event is retried at next_attempt_at, and is dead once that is null
+    private int attempts;
+    @Column(length = 1024)
+    private String lastError;
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
     private Instant receivedAt;
 }
@@ -0,0 +1,37 @@
+package com.koshal.webhook.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "webhook_subscribers")
+@Getter @Setter @Builder
+@NoArgsConstructor @AllArgsConstructor
+public class WebhookSubscriber {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, length = 2048)
+    private String url;
+
+    // Signs deliveries when set
+    private String secret;
+
+    // Comma-separated filters; null matches every status or currency
+    private String statuses;
+    private String currencies;
+
+    @Column(nullable = false)
+    private int maxConcurrency;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
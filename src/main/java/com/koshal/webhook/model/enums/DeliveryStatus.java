@@ -0,0 +1,7 @@
+package com.koshal.webhook.model.enums;
+
+public enum DeliveryStatus {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
@@ -0,0 +1,10 @@
+package com.koshal.webhook.model.enums;
+
+/**
+ * Where the exchange rate provider loads its rates from
+ * TABLE reads the exchange_rates table, FILE reads a CSV file of currency,rate_to_base lines
+ */
+public enum FxRateSource {
+    TABLE,
+    FILE
+}
@@ -0,0 +1,12 @@
+package com.koshal.webhook.model.enums;
+
+/**
+ * How accepted webhooks are handed over to persistence
+ * SYNC persists inside the request, ASYNC acknowledges first and persists from a bounded queue,
+ * JOURNAL acknowledges once the body is forced to a local journal and applies it from there
+ */
+public enum IngestionMode {
+    SYNC,
+    ASYNC,
+    JOURNAL
+}
@@ -0,0 +1,10 @@
+package com.koshal.webhook.model.enums;
+
+/**
+ * What the retention job does with an expired webhook_events partition
+ * DROP discards it, ARCHIVE swaps it into its own webhook_events_archive_pYYYYMMDD table first
+ */
+public enum RetentionAction {
+    DROP,
+    ARCHIVE
+}
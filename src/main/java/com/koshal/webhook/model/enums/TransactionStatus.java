@@ -1,7 +1,18 @@
 package com.koshal.webhook.model.enums;
 
+/**
+ * Lifecycle of a transaction: it starts PENDING and settles once as COMPLETED or FAILED
+ */
 public enum TransactionStatus {
     PENDING,
     COMPLETED,
-    FAILED
+    FAILED;
+
+    /**
+     * True when a transaction in this status may take the next one; staying in the same status is allowed,
+     * so a newer event can refresh the details of its current state
+     */
+    public boolean canTransitionTo(TransactionStatus next) {
+        return this == next || this == PENDING;
+    }
 }
@@ -0,0 +1,23 @@
+package com.koshal.webhook.outbound;
+
+/**
+ * One outbox entry on its way to one subscriber
+ *
+ * @param attempts attempts made so far
+ */
+public record Delivery(long outboxId, long subscriberId, String eventId, String payload, int attempts) {
+
+    /**
+     * Key of the delivery's outbound_deliveries row
+     */
+    public record Id(long outboxId, long subscriberId) {
+    }
+
+    public Id id() {
+        return new Id(outboxId, subscriberId);
+    }
+
+    Delivery nextAttempt() {
+        return new Delivery(outboxId, subscriberId, eventId, payload, attempts + 1);
+    }
+}
@@ -0,0 +1,306 @@
+package com.koshal.webhook.outbound;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Posts deliveries to subscribers over one shared HTTP client and schedules their retries
+ * Requests are sent asynchronously, so no thread waits on a slow subscriber. Each subscriber has a limit of
+ * requests in flight; a delivery that finds its subscriber at the limit waits in that subscriber's queue and
+ * takes over the slot of the next request to complete, in arrival order, so it costs nothing while it waits.
+ * A 2xx response delivers; a network error, a timeout, 408, 429 or 5xx is retried with exponential backoff
+ * and jitter until the attempts run out, and any other response fails the delivery at once.
+ * Retries wait on a {@link TimingWheel} advanced by a single thread. The outcome of each attempt goes to the
+ * listener, which is where it is persisted
+ */
+@Slf4j
+public final class OutboundSender implements AutoCloseable {
+
+    public static final String EVENT_ID_HEADER = "X-Webhook-Event-Id";
+    public static final String ATTEMPT_HEADER = "X-Webhook-Delivery-Attempt";
+    public static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    /**
+     * Receives the outcome of each attempt; called from the HTTP client's threads, so it should not block
+     */
+    public interface Listener {
+
+        void delivered(Delivery delivery);
+
+        void retrying(Delivery delivery, Instant nextAttemptAt, String error);
+
+        void failed(Delivery delivery, String error);
+    }
+
+    public record Settings(Duration tick, int wheelSize, Duration requestTimeout, int maxAttempts,
+                           Duration initialBackoff, Duration maxBackoff) {
+    }
+
+    private final HttpClient client;
+    private final LongFunction<Subscription> subscriptions;
+    private final Listener listener;
+    private final Settings settings;
+    private final TimingWheel<Delivery> wheel;
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger parked = new AtomicInteger();
+    private final Set<Delivery.Id> held = ConcurrentHashMap.newKeySet();
+    private volatile Thread timer;
+
+    /**
+     * @param subscriptions active subscription by id, or null once the subscriber is gone
+     */
+    public OutboundSender(HttpClient client, LongFunction<Subscription> subscriptions, Listener listener,
+                          Settings settings) {
+        this.client = client;
+        this.subscriptions = subscriptions;
+        this.listener = listener;
+        this.settings = settings;
+        this.wheel = new TimingWheel<>(settings.tick().toNanos(), settings.wheelSize(), System.nanoTime());
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::advanceLoop, "webhook-outbound-timer");
+        thread.setDaemon(true);
+        timer = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the timer; deliveries still waiting stay pending in the database and are recovered from there
+     */
+    @Override
+    public void close() {
+        Thread thread = timer;
+        timer = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Makes the next attempt of the delivery now
+     */
+    public void submit(Delivery delivery) {
+        held.add(delivery.id());
+        try {
+            attempt(delivery);
+        } catch (RuntimeException e) {
+            held.remove(delivery.id());
+            log.error("Delivery of {} to subscriber {} failed to start: {}",
+                    delivery.eventId(), delivery.subscriberId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deliveries waiting on the wheel for their next attempt
+     */
+    public int scheduled() {
+        return wheel.size();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Whether the delivery was submitted here and is not delivered or failed yet
+     */
+    public boolean holds(Delivery delivery) {
+        return held.contains(delivery.id());
+    }
+
+    /**
+     * Deliveries submitted here and not delivered or failed yet: in flight, parked or on the wheel
+     */
+    public List<Delivery.Id> held() {
+        return List.copyOf(held);
+    }
+
+    /**
+     * Deliveries waiting for a request slot of their subscriber
+     */
+    public int parked() {
+        return parked.get();
+    }
+
+    private void advanceLoop() {
+        long tickNanos = settings.tick().toNanos();
+        while (timer == Thread.currentThread()) {
+            wheel.advance(System.nanoTime(), this::submit);
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+
+    private void attempt(Delivery delivery) {
+        Subscription subscription = subscriptions.apply(delivery.subscriberId());
+        if (subscription == null) {
+            held.remove(delivery.id());
+            listener.failed(delivery, "Subscriber is no longer active");
+            return;
+        }
+        Lane lane = lanes.computeIfAbsent(subscription.id(), id -> new Lane(subscription.maxConcurrency()));
+        if (lane.acquireOrPark(delivery)) {
+            send(subscription, lane, delivery);
+        }
+    }
+
+    /**
+     * Sends the next attempt of the delivery, which holds a slot of the lane until the response arrives
+     */
+    private void send(Subscription subscription, Lane lane, Delivery delivery) {
+        Delivery attempt = delivery.nextAttempt();
+        inFlight.incrementAndGet();
+        try {
+            client.sendAsync(request(subscription, attempt), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        release(lane);
+                        completed(attempt, response, error);
+                    });
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            release(lane);
+            throw e;
+        }
+    }
+
+    /**
+     * Hands the slot to the delivery parked longest on the lane, if any
+     */
+    private void release(Lane lane) {
+        for (Delivery next = lane.release(); next != null; next = lane.release()) {
+            Subscription subscription = subscriptions.apply(next.subscriberId());
+            if (subscription == null) {
+                held.remove(next.id());
+                listener.failed(next, "Subscriber is no longer active");
+                continue;
+            }
+            try {
+                send(subscription, lane, next);
+                return;
+            } catch (RuntimeException e) {
+                held.remove(next.id());
+                log.error("Delivery of {} to subscriber {} failed to start: {}",
+                        next.eventId(), next.subscriberId(), e.getMessage());
+            }
+        }
+    }
+
+    private HttpRequest request(Subscription subscription, Delivery delivery) {
+        byte[] body = delivery.payload().getBytes(UTF_8);
+        HttpRequest.Builder request = HttpRequest.newBuilder(subscription.url())
+                .timeout(settings.requestTimeout())
+                .header("Content-Type", "application/json")
+                .header(EVENT_ID_HEADER, delivery.eventId())
+                .header(ATTEMPT_HEADER, Integer.toString(delivery.attempts()))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (subscription.signingKey() != null) {
+            request.header(SIGNATURE_HEADER,
+                    SIGNATURE_PREFIX + Base64.getEncoder().encodeToString(subscription.signingKey().sign(body)));
+        }
+        return request.build();
+    }
+
+    private void completed(Delivery delivery, HttpResponse<Void> response, Throwable error) {
+        try {
+            if (error == null && response.statusCode() / 100 == 2) {
+                held.remove(delivery.id());
+                listener.delivered(delivery);
+                return;
+            }
+            String reason = error == null ? "HTTP " + response.statusCode() : describe(error);
+            if ((error != null || retryable(response.statusCode())) && delivery.attempts() < settings.maxAttempts()) {
+                Duration delay = backoff(delivery.attempts());
+                wheel.schedule(delivery, System.nanoTime() + delay.toNanos());
+                listener.retrying(delivery, Instant.now().plus(delay), reason);
+            } else {
+                held.remove(delivery.id());
+                listener.failed(delivery, reason);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not record attempt {} of {} to subscriber {}: {}",
+                    delivery.attempts(), delivery.eventId(), delivery.subscriberId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Half the capped exponential delay plus a random share of the other half, so retries of deliveries that
+     * failed together spread out
+     */
+    Duration backoff(int attempts) {
+        long initial = settings.initialBackoff().toMillis();
+        long cap = settings.maxBackoff().toMillis();
+        long delay = attempts >= 31 || initial << (attempts - 1) > cap ? cap : initial << (attempts - 1);
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    /**
+     * Request slots of one subscriber and the deliveries waiting for one
+     * A released slot passes straight to the first parked delivery, so a newcomer cannot take it first
+     */
+    private final class Lane {
+
+        private final int limit;
+        private final ArrayDeque<Delivery> waiting = new ArrayDeque<>();
+        private int active;
+
+        Lane(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Takes a slot for the delivery, or parks it when all are taken
+         */
+        synchronized boolean acquireOrPark(Delivery delivery) {
+            if (active < limit) {
+                active++;
+                return true;
+            }
+            waiting.addLast(delivery);
+            parked.incrementAndGet();
+            return false;
+        }
+
+        /**
+         * The parked delivery that now holds the released slot, or null when the slot is free again
+         */
+        synchronized Delivery release() {
+            Delivery next = waiting.pollFirst();
+            if (next == null) {
+                active--;
+            } else {
+                parked.decrementAndGet();
+            }
+            return next;
+        }
+    }
+
+    private static boolean retryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName() + (cause.getMessage() == null ? "" : ": " + cause.getMessage());
+    }
+}
@@ -0,0 +1,26 @@
+package com.koshal.webhook.outbound;
+
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.util.HmacKey;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * An active subscriber as the dispatcher sees it; empty filters match everything
+ *
+ * @param signingKey signs the body of each delivery, or null when the subscriber has no secret
+ */
+public record Subscription(long id, URI url, HmacKey signingKey, Set<TransactionStatus> statuses,
+                           Set<String> currencies, int maxConcurrency) {
+
+    public Subscription {
+        statuses = Set.copyOf(statuses);
+        currencies = Set.copyOf(currencies);
+    }
+
+    public boolean matches(TransactionStatus status, String currency) {
+        return (statuses.isEmpty() || statuses.contains(status))
+                && (currencies.isEmpty() || currencies.contains(currency));
+    }
+}
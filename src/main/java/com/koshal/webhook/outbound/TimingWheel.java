@@ -0,0 +1,118 @@
+package com.koshal.webhook.outbound;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel holding tasks due at a later time, with one timer thread for all of them
+ * Time is cut into ticks and the wheel has a power of two buckets; a task goes to the bucket of its
+ * deadline tick, and a deadline more than one turn ahead waits in its bucket for as many turns. Scheduling
+ * is a queue offer from any thread, and each tick of {@link #advance} walks one bucket, so the cost does not
+ * grow with the number of pending tasks. A task takes one small node, so tens of thousands of pending
+ * retries cost a few megabytes. Tasks fire up to one tick late, never early
+ */
+public final class TimingWheel<T> {
+
+    private final long tickNanos;
+    private final Node<T>[] buckets;
+    private final int mask;
+    private final Queue<Node<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private long currentTick;
+
+    private static final class Node<T> {
+        final T task;
+        final long deadlineTick;
+        Node<T> next;
+
+        Node(T task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime} the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickNanos, int wheelSize, long startNanos) {
+        if (tickNanos <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Timing wheel needs tick > 0 and size > 0");
+        }
+        this.tickNanos = tickNanos;
+        int buckets = Integer.highestOneBit(Math.max(1, wheelSize - 1) << 1);
+        this.buckets = (Node<T>[]) new Node[buckets];
+        this.mask = buckets - 1;
+        this.currentTick = Math.floorDiv(startNanos, tickNanos);
+    }
+
+    /**
+     * Schedules the task to fire at the first tick at or after the deadline; safe from any thread
+     */
+    public void schedule(T task, long deadlineNanos) {
+        // Round up, so a task never fires before its deadline
+        long tick = Math.floorDiv(deadlineNanos, tickNanos) + (Math.floorMod(deadlineNanos, tickNanos) == 0 ? 0 : 1);
+        size.incrementAndGet();
+        scheduled.offer(new Node<>(task, tick));
+    }
+
+    /**
+     * Moves the wheel to now and hands every task that is due to the consumer
+     * Called by one thread only; tasks whose deadline already passed fire on the next call
+     */
+    public void advance(long nowNanos, Consumer<? super T> expired) {
+        long nowTick = Math.floorDiv(nowNanos, tickNanos);
+        for (Node<T> node; (node = scheduled.poll()) != null; ) {
+            if (node.deadlineTick <= nowTick) {
+                fire(node, expired);
+            } else {
+                int bucket = (int) (node.deadlineTick & mask);
+                node.next = buckets[bucket];
+                buckets[bucket] = node;
+            }
+        }
+        if (nowTick <= currentTick) {
+            return;
+        }
+        // Ticks missed by a late call are walked in one go; past one turn every bucket is walked once
+        long ticks = Math.min(nowTick - currentTick, buckets.length);
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            expire((int) (tick & mask), nowTick, expired);
+        }
+        currentTick = nowTick;
+    }
+
+    /**
+     * Tasks scheduled and not fired yet
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void expire(int bucket, long nowTick, Consumer<? super T> expired) {
+        Node<T> previous = null;
+        Node<T> node = buckets[bucket];
+        while (node != null) {
+            Node<T> next = node.next;
+            if (node.deadlineTick <= nowTick) {
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                node.next = null;
+                fire(node, expired);
+            } else {
+                previous = node;
+            }
+            node = next;
+        }
+    }
+
+    private void fire(Node<T> node, Consumer<? super T> expired) {
+        size.decrementAndGet();
+        expired.accept(node.task);
+    }
+}
@@ -0,0 +1,41 @@
+package com.koshal.webhook.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single theoretical arrival time (the generic cell rate algorithm)
+ * Each admitted request pushes the arrival time one emission interval further; a request is refused while the
+ * arrival time is more than the burst tolerance ahead of now. Checking is one read and one CAS, without locks,
+ * and a bucket whose arrival time has passed is full, so dropping it loses nothing
+ */
+public final class GcraBucket {
+
+    private final AtomicLong arrival = new AtomicLong();
+
+    /**
+     * @param now             monotonic nanos, never negative
+     * @param intervalNanos   nanos between requests at the sustained rate
+     * @param toleranceNanos  how far ahead of now the arrival time may run, interval x (burst - 1)
+     * @return 0 when admitted, otherwise nanos until a request would be
+     */
+    public long tryAcquire(long now, long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long current = arrival.get();
+            long wait = waitNanos(current, now, toleranceNanos);
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, nextArrival(current, now, intervalNanos))) {
+                return 0;
+            }
+        }
+    }
+
+    static long waitNanos(long arrival, long now, long toleranceNanos) {
+        return Math.max(arrival, now) - toleranceNanos - now;
+    }
+
+    static long nextArrival(long arrival, long now, long intervalNanos) {
+        return Math.max(arrival, now) + intervalNanos;
+    }
+}
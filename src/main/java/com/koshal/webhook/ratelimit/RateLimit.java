@@ -0,0 +1,11 @@
+package com.koshal.webhook.ratelimit;
+
+import java.util.List;
+
+/**
+ * One configured limit, bound from webhook.rate-limit.global or webhook.rate-limit.tiers.&lt;name&gt;
+ * Requests are admitted at ratePerSecond on average, with up to burst at once; senders lists the sender ids
+ * placed in a tier and is ignored for the global limit
+ */
+public record RateLimit(double ratePerSecond, int burst, List<String> senders) {
+}
@@ -0,0 +1,82 @@
+package com.koshal.webhook.ratelimit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits resolved for lookup: each sender id maps straight to the limit of its tier
+ * Immutable once compiled; a reload compiles a new policy
+ */
+public final class RateLimitPolicy {
+
+    /**
+     * A limit converted to GCRA parameters, with the tier name for rejection messages
+     */
+    public record Limit(String tier, double ratePerSecond, int burst, long intervalNanos, long toleranceNanos) {
+
+        static Limit of(String tier, RateLimit limit) {
+            if (limit.ratePerSecond() <= 0 || limit.burst() < 1) {
+                throw new IllegalArgumentException("Rate limit " + tier + " needs a positive rate-per-second and burst");
+            }
+            long interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / limit.ratePerSecond()));
+            return new Limit(tier, limit.ratePerSecond(), limit.burst(), interval, interval * (limit.burst() - 1));
+        }
+    }
+
+    private final Limit global;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> senderLimits;
+    private final int tierCount;
+
+    private RateLimitPolicy(Limit global, Limit defaultLimit, Map<String, Limit> senderLimits, int tierCount) {
+        this.global = global;
+        this.defaultLimit = defaultLimit;
+        this.senderLimits = senderLimits;
+        this.tierCount = tierCount;
+    }
+
+    /**
+     * @param global      limit over all senders together, null for none
+     * @param tiers       per-sender limits by tier name; senders not listed in any tier get defaultTier
+     */
+    public static RateLimitPolicy compile(RateLimit global, Map<String, RateLimit> tiers, String defaultTier) {
+        Map<String, Limit> senderLimits = new HashMap<>();
+        Limit defaultLimit = null;
+        for (Map.Entry<String, RateLimit> tier : tiers.entrySet()) {
+            Limit limit = Limit.of(tier.getKey(), tier.getValue());
+            if (tier.getKey().equals(defaultTier)) {
+                defaultLimit = limit;
+            }
+            List<String> senders = tier.getValue().senders() == null ? List.of() : tier.getValue().senders();
+            for (String sender : senders) {
+                Limit previous = senderLimits.put(sender, limit);
+                if (previous != null) {
+                    throw new IllegalArgumentException("Sender " + sender + " is listed in tiers "
+                            + previous.tier() + " and " + tier.getKey());
+                }
+            }
+        }
+        if (defaultLimit == null) {
+            throw new IllegalArgumentException("Default rate limit tier " + defaultTier + " is not configured");
+        }
+        return new RateLimitPolicy(global == null ? null : Limit.of("global", global), defaultLimit,
+                Map.copyOf(senderLimits), tiers.size());
+    }
+
+    public Limit forSender(String senderId) {
+        return senderLimits.getOrDefault(senderId, defaultLimit);
+    }
+
+    /**
+     * Limit over all senders, null when there is none
+     */
+    public Limit global() {
+        return global;
+    }
+
+    public int tierCount() {
+        return tierCount;
+    }
+}
@@ -0,0 +1,138 @@
+package com.koshal.webhook.ratelimit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-sender GCRA buckets in one preallocated table, split into stripes of eight slots
+ * A slot is two longs, a 64-bit fingerprint of the sender id and the bucket's arrival time, so a stripe is
+ * one 128-byte run of memory and a check costs one cache miss and a CAS, without locks or allocation.
+ * A sender lives in the stripe picked by its fingerprint. A new sender takes a free slot of that stripe,
+ * or one whose bucket has refilled, as such a bucket carries no state; failing both it evicts the bucket with
+ * the oldest arrival time. Idle senders are thereby dropped as their slots are needed, with no sweep, and
+ * memory is fixed at 16 bytes per slot whatever the number of distinct ids.
+ * Two ids with the same fingerprint share a bucket, which at 64 bits is negligible; a request racing with
+ * the eviction of its slot may be counted against the new occupant
+ */
+public final class SenderBuckets {
+
+    private static final int STRIPE_SLOTS = 8;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // [fingerprint, arrival] per slot; fingerprint 0 marks a free slot
+    private final long[] table;
+    private final int stripeMask;
+    private final LongAdder evictions = new LongAdder();
+
+    public SenderBuckets(int maxSenders) {
+        int slots = Integer.highestOneBit(Math.max(STRIPE_SLOTS, maxSenders - 1) << 1);
+        this.table = new long[slots * 2];
+        this.stripeMask = slots / STRIPE_SLOTS - 1;
+    }
+
+    /**
+     * Charges one request to the sender's bucket
+     *
+     * @return 0 when admitted, otherwise nanos until a request would be
+     * @see GcraBucket#tryAcquire(long, long, long)
+     */
+    public long tryAcquire(String senderId, long now, long intervalNanos, long toleranceNanos) {
+        long fingerprint = fingerprint(senderId);
+        int base = ((int) (fingerprint >>> 32) & stripeMask) * STRIPE_SLOTS * 2;
+        int slot = find(base, fingerprint);
+        if (slot < 0) {
+            slot = claim(base, fingerprint, now);
+        }
+        while (true) {
+            long arrival = (long) SLOTS.getVolatile(table, slot + 1);
+            long wait = GcraBucket.waitNanos(arrival, now, toleranceNanos);
+            if (wait > 0) {
+                return wait;
+            }
+            if (SLOTS.compareAndSet(table, slot + 1, arrival, GcraBucket.nextArrival(arrival, now, intervalNanos))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Senders whose bucket has not refilled yet; walks the whole table
+     */
+    public long activeSenders(long now) {
+        long active = 0;
+        for (int i = 0; i < table.length; i += 2) {
+            if ((long) SLOTS.getOpaque(table, i) != 0 && (long) SLOTS.getOpaque(table, i + 1) > now) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Buckets evicted before they refilled to make room for new senders
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    private int find(int base, long fingerprint) {
+        for (int i = base; i < base + STRIPE_SLOTS * 2; i += 2) {
+            if ((long) SLOTS.getVolatile(table, i) == fingerprint) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int claim(int base, long fingerprint, long now) {
+        while (true) {
+            int victim = -1;
+            long oldest = Long.MAX_VALUE;
+            for (int i = base; i < base + STRIPE_SLOTS * 2; i += 2) {
+                long arrival = (long) SLOTS.getVolatile(table, i + 1);
+                if ((long) SLOTS.getVolatile(table, i) == 0 || arrival <= now) {
+                    victim = i;
+                    oldest = Long.MIN_VALUE;
+                    break;
+                }
+                if (arrival < oldest) {
+                    oldest = arrival;
+                    victim = i;
+                }
+            }
+            long previous = (long) SLOTS.getVolatile(table, victim);
+            if (SLOTS.compareAndSet(table, victim, previous, fingerprint)) {
+                // A fresh bucket is full: any arrival time at or before now
+                SLOTS.setVolatile(table, victim + 1, 0L);
+                if (oldest != Long.MIN_VALUE) {
+                    evictions.increment();
+                }
+                return victim;
+            }
+            // Another thread claimed the slot, possibly for this same sender
+            int slot = find(base, fingerprint);
+            if (slot >= 0) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, then a final mix; never 0
+     */
+    static long fingerprint(String senderId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < senderId.length(); i++) {
+            h = (h ^ senderId.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
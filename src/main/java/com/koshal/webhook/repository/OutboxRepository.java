@@ -0,0 +1,217 @@
+package com.koshal.webhook.repository;
+
+import com.koshal.webhook.model.enums.DeliveryStatus;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.outbound.Delivery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * The transaction outbox and the deliveries fanned out from it
+ * Outbox rows are appended in the transaction that changes the transactions they describe, so a change is
+ * published if and only if it commits. Claims lock with FOR UPDATE SKIP LOCKED, so several instances can poll
+ * the same tables without handing out a row twice or waiting on each other. Every method expects to run in
+ * a transaction; a pending delivery is held by whoever last set its next_attempt_at, until a lease past it.
+ * Instants are bound and read as UTC, as in TransactionUpsertRepository
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+
+    /**
+     * One committed transaction state waiting to be fanned out; the id is assigned on append
+     */
+    public record OutboxEntry(long id, String eventId, String transactionId, TransactionStatus status,
+                              String currency, String payload) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(List<OutboxEntry> entries, Instant createdAt) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO transaction_outbox (event_id, transaction_id, status, currency, payload, created_at)
+                        VALUES (?, ?, ?, ?, ?, ?)""",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setString(1, entry.eventId());
+                    ps.setString(2, entry.transactionId());
+                    ps.setString(3, entry.status().name());
+                    ps.setString(4, entry.currency());
+                    ps.setString(5, entry.payload());
+                    ps.setTimestamp(6, Timestamp.from(createdAt), utc());
+                });
+    }
+
+    /**
+     * Locks the oldest entries not fanned out yet; entries locked by another instance are skipped
+     */
+    public List<OutboxEntry> claimUndispatched(int limit) {
+        return jdbcTemplate.query("""
+                        SELECT id, event_id, transaction_id, status, currency, payload FROM transaction_outbox
+                        WHERE dispatched_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED""",
+                (rs, row) -> new OutboxEntry(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        TransactionStatus.valueOf(rs.getString(4)), rs.getString(5), rs.getString(6)),
+                limit);
+    }
+
+    public void markDispatched(Collection<Long> outboxIds, Instant dispatchedAt) {
+        if (outboxIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("UPDATE transaction_outbox SET dispatched_at = ? WHERE id IN ("
+                    + String.join(",", Collections.nCopies(outboxIds.size(), "?")) + ")");
+            ps.setTimestamp(1, Timestamp.from(dispatchedAt), utc());
+            int parameter = 2;
+            for (long id : outboxIds) {
+                ps.setLong(parameter++, id);
+            }
+            return ps;
+        });
+    }
+
+    /**
+     * Creates the pending deliveries of newly fanned out entries, held by the caller from now
+     */
+    public void insertDeliveries(List<Delivery> deliveries, Instant now) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO outbound_deliveries (outbox_id, subscriber_id, status, attempts, next_attempt_at)
+                        VALUES (?, ?, ?, 0, ?)""",
+                deliveries, deliveries.size(), (ps, delivery) -> {
+                    ps.setLong(1, delivery.outboxId());
+                    ps.setLong(2, delivery.subscriberId());
+                    ps.setString(3, DeliveryStatus.PENDING.name());
+                    ps.setTimestamp(4, Timestamp.from(now), utc());
+                });
+    }
+
+    /**
+     * Takes over pending deliveries whose holder has not touched them since before dueBefore, as after a
+     * crash or restart, and holds them from now
+     */
+    public List<Delivery> claimStale(Instant dueBefore, Instant now, int limit) {
+        List<Delivery> stale = jdbcTemplate.query("""
+                        SELECT d.outbox_id, d.subscriber_id, o.event_id, o.payload, d.attempts
+                        FROM outbound_deliveries d JOIN transaction_outbox o ON o.id = d.outbox_id
+                        WHERE d.status = ? AND d.next_attempt_at < ?
+                        ORDER BY d.next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED""",
+                ps -> {
+                    ps.setString(1, DeliveryStatus.PENDING.name());
+                    ps.setTimestamp(2, Timestamp.from(dueBefore), utc());
+                    ps.setInt(3, limit);
+                },
+                (rs, row) -> new Delivery(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4), rs.getInt(5)));
+        jdbcTemplate.batchUpdate(
+                "UPDATE outbound_deliveries SET next_attempt_at = ? WHERE outbox_id = ? AND subscriber_id = ?",
+                stale, stale.size(), (ps, delivery) -> {
+                    ps.setTimestamp(1, Timestamp.from(now), utc());
+                    ps.setLong(2, delivery.outboxId());
+                    ps.setLong(3, delivery.subscriberId());
+                });
+        return stale;
+    }
+
+    /**
+     * Renews the hold on the given pending deliveries that are due, as while they wait for a request slot;
+     * retries scheduled for later keep their time
+     */
+    public void renew(List<Delivery.Id> ids, Instant now) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE outbound_deliveries SET next_attempt_at = ?
+                    WHERE status = ? AND next_attempt_at < ? AND (outbox_id, subscriber_id) IN ("""
+                    + String.join(",", Collections.nCopies(ids.size(), "(?, ?)")) + ")");
+            Timestamp timestamp = Timestamp.from(now);
+            ps.setTimestamp(1, timestamp, utc());
+            ps.setString(2, DeliveryStatus.PENDING.name());
+            ps.setTimestamp(3, timestamp, utc());
+            int parameter = 4;
+            for (Delivery.Id id : ids) {
+                ps.setLong(parameter++, id.outboxId());
+                ps.setLong(parameter++, id.subscriberId());
+            }
+            return ps;
+        });
+    }
+
+    public void delivered(Delivery delivery, Instant deliveredAt) {
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE outbound_deliveries SET status = ?, attempts = ?, delivered_at = ?, last_error = NULL
+                    WHERE outbox_id = ? AND subscriber_id = ?""");
+            ps.setString(1, DeliveryStatus.DELIVERED.name());
+            ps.setInt(2, delivery.attempts());
+            ps.setTimestamp(3, Timestamp.from(deliveredAt), utc());
+            ps.setLong(4, delivery.outboxId());
+            ps.setLong(5, delivery.subscriberId());
+            return ps;
+        });
+    }
+
+    public void retrying(Delivery delivery, Instant nextAttemptAt, String error) {
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE outbound_deliveries SET attempts = ?, next_attempt_at = ?, last_error = ?
+                    WHERE outbox_id = ? AND subscriber_id = ? AND status = ?""");
+            ps.setInt(1, delivery.attempts());
+            ps.setTimestamp(2, Timestamp.from(nextAttemptAt), utc());
+            ps.setString(3, truncate(error));
+            ps.setLong(4, delivery.outboxId());
+            ps.setLong(5, delivery.subscriberId());
+            ps.setString(6, DeliveryStatus.PENDING.name());
+            return ps;
+        });
+    }
+
+    public void failed(Delivery delivery, String error) {
+        jdbcTemplate.update("""
+                        UPDATE outbound_deliveries SET status = ?, attempts = ?, last_error = ?
+                        WHERE outbox_id = ? AND subscriber_id = ? AND status = ?""",
+                DeliveryStatus.FAILED.name(), delivery.attempts(), truncate(error), delivery.outboxId(),
+                delivery.subscriberId(), DeliveryStatus.PENDING.name());
+    }
+
+    /**
+     * Drops delivered deliveries of entries fanned out before the cutoff, then those entries with no delivery
+     * left; failed deliveries and their entries are kept for inspection
+     *
+     * @return outbox entries deleted
+     */
+    public int purge(Instant dispatchedBefore) {
+        Timestamp cutoff = Timestamp.from(dispatchedBefore);
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    DELETE d FROM outbound_deliveries d JOIN transaction_outbox o ON o.id = d.outbox_id
+                    WHERE d.status = ? AND o.dispatched_at < ?""");
+            ps.setString(1, DeliveryStatus.DELIVERED.name());
+            ps.setTimestamp(2, cutoff, utc());
+            return ps;
+        });
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    DELETE FROM transaction_outbox WHERE dispatched_at < ?
+                    AND NOT EXISTS (SELECT 1 FROM outbound_deliveries d WHERE d.outbox_id = transaction_outbox.id)""");
+            ps.setTimestamp(1, cutoff, utc());
+            return ps;
+        });
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 512 ? error : error.substring(0, 512);
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -0,0 +1,16 @@
+package com.koshal.webhook.repository;
+
+import com.koshal.webhook.dto.TransactionFilter;
+import com.koshal.webhook.dto.TransactionSummaryDto;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TransactionQueryRepository {
+
+    /**
+     * Returns up to limit transactions matching the filter, newest first by (processed_at, id),
+     * starting after the given key; a null key starts at the newest
+     */
+    List<TransactionSummaryDto> findPage(TransactionFilter filter, Instant afterProcessedAt, Long afterId, int limit);
+}
@@ -0,0 +1,61 @@
+package com.koshal.webhook.repository;
+
+import com.koshal.webhook.dto.TransactionFilter;
+import com.koshal.webhook.dto.TransactionSummaryDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seek pagination over (processed_at, id)
+ * Instead of an OFFSET the next page starts strictly after the last row returned, so every page is an
+ * index range scan of limit rows whatever its depth. Each equality filter pairs with one of the
+ * (column, processed_at) indexes from V8. processed_at is set when a transaction is first stored and upserts
+ * never change it, so a row cannot move across pages while a client walks them
+ */
+class TransactionQueryRepositoryImpl implements TransactionQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionSummaryDto> findPage(TransactionFilter filter, Instant afterProcessedAt, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("""
+                select new com.koshal.webhook.dto.TransactionSummaryDto(
+                    t.id, t.transactionId, t.eventId, t.amount, t.currency, t.status, t.paymentMethod,
+                    t.senderId, t.receiverId, t.netAmount, t.processedAt)
+                from Transaction t
+                where t.processedAt is not null""");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        condition(jpql, parameters, "t.senderId =", "senderId", filter.senderId());
+        condition(jpql, parameters, "t.receiverId =", "receiverId", filter.receiverId());
+        condition(jpql, parameters, "t.status =", "status", filter.status());
+        condition(jpql, parameters, "t.currency =", "currency", filter.currency());
+        condition(jpql, parameters, "t.processedAt >=", "from", filter.from());
+        condition(jpql, parameters, "t.processedAt <", "to", filter.to());
+        if (afterProcessedAt != null) {
+            jpql.append(" and (t.processedAt < :afterProcessedAt"
+                    + " or (t.processedAt = :afterProcessedAt and t.id < :afterId))");
+            parameters.put("afterProcessedAt", afterProcessedAt);
+            parameters.put("afterId", afterId);
+        }
+        jpql.append(" order by t.processedAt desc, t.id desc");
+
+        TypedQuery<TransactionSummaryDto> query = entityManager.createQuery(jpql.toString(), TransactionSummaryDto.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    private static void condition(StringBuilder jpql, Map<String, Object> parameters,
+                                  String predicate, String name, Object value) {
+        if (value != null) {
+            jpql.append(" and ").append(predicate).append(" :").append(name);
+            parameters.put(name, value);
+        }
+    }
+}
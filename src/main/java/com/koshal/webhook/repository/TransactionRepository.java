@@ -3,4 +3,4 @@ package com.koshal.webhook.repository;
 import com.koshal.webhook.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {}
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionQueryRepository {}
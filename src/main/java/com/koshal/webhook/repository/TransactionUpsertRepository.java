@@ -0,0 +1,158 @@
+package com.koshal.webhook.repository;
+
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+/**
+ * Writes transactions with one INSERT ... ON DUPLICATE KEY UPDATE per row, keyed by transaction_id
+ * A row that exists is only overwritten by a state that supersedes it: an event not older than event_timestamp
+ * whose status the stored status may move to (TransactionStatus#canTransitionTo). The check runs in the
+ * statement, so two writers racing on one transaction cannot move it backwards. The insert can also collide
+ * on event_id, so the row must belong to the same transaction too; a row of another transaction is never
+ * overwritten, though webhook_event_ids already refuses a repeated event id before it gets here. There is
+ * one statement per target status, since the allowed previous statuses are spelled out in it. processed_at
+ * keeps the time the transaction was first stored, since query pages seek on it; updated_at tracks the last
+ * change. Rows are
+ * batched, and with rewriteBatchedStatements a batch is a single multi-row statement.
+ * Instants are bound and read as UTC, the way Hibernate maps Instant on MySQL
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionUpsertRepository {
+
+    private static final String[] COLUMNS = {
+            "event_id", "transaction_id", "amount", "currency", "sender_id", "sender_name", "sender_country",
+            "receiver_id", "receiver_name", "receiver_country", "payment_method", "processing_fee", "net_amount",
+            "exchange_rate", "base_amount", "processed_at", "status", "event_timestamp"
+    };
+    private static final Map<TransactionStatus, String> UPSERTS = upserts();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Current state of the given transactions, by transaction id; transactions not stored yet are absent.
+     * The rows are read FOR UPDATE, so call inside the transaction that writes them: a concurrent writer of
+     * the same transaction waits until this one commits and then plans from the state written here.
+     * Only the columns the aggregates and the lifecycle check need are loaded
+     */
+    public Map<String, Transaction> lockStates(Collection<String> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(transactionIds.size(), "?"));
+        Map<String, Transaction> states = new HashMap<>(transactionIds.size() * 2);
+        jdbcTemplate.query("""
+                        SELECT transaction_id, status, event_timestamp, processed_at, currency, payment_method,
+                               amount, processing_fee, net_amount
+                        FROM transactions WHERE transaction_id IN (""" + placeholders + ") FOR UPDATE",
+                rs -> {
+                    Transaction state = Transaction.builder()
+                            .transactionId(rs.getString(1))
+                            .status(TransactionStatus.valueOf(rs.getString(2)))
+                            .eventTimestamp(instant(rs, 3))
+                            .processedAt(instant(rs, 4))
+                            .currency(rs.getString(5))
+                            .paymentMethod(rs.getString(6))
+                            .amount(rs.getBigDecimal(7))
+                            .processingFee(rs.getBigDecimal(8))
+                            .netAmount(rs.getBigDecimal(9))
+                            .build();
+                    states.put(state.getTransactionId(), state);
+                },
+                transactionIds.toArray());
+        return states;
+    }
+
+    /**
+     * Inserts or supersedes each transaction; a transaction whose stored state is newer is left as it is
+     */
+    public void upsert(List<Transaction> transactions) {
+        Map<TransactionStatus, List<Transaction>> byStatus = new EnumMap<>(TransactionStatus.class);
+        for (Transaction transaction : transactions) {
+            byStatus.computeIfAbsent(transaction.getStatus(), status -> new ArrayList<>()).add(transaction);
+        }
+        byStatus.forEach((status, rows) ->
+                jdbcTemplate.batchUpdate(UPSERTS.get(status), rows, rows.size(), TransactionUpsertRepository::bind));
+    }
+
+    private static void bind(PreparedStatement ps, Transaction t) throws SQLException {
+        ps.setString(1, t.getEventId());
+        ps.setString(2, t.getTransactionId());
+        ps.setBigDecimal(3, t.getAmount());
+        ps.setString(4, t.getCurrency());
+        ps.setString(5, t.getSenderId());
+        ps.setString(6, t.getSenderName());
+        ps.setString(7, t.getSenderCountry());
+        ps.setString(8, t.getReceiverId());
+        ps.setString(9, t.getReceiverName());
+        ps.setString(10, t.getReceiverCountry());
+        ps.setString(11, t.getPaymentMethod());
+        ps.setBigDecimal(12, t.getProcessingFee());
+        ps.setBigDecimal(13, t.getNetAmount());
+        ps.setBigDecimal(14, t.getExchangeRate());
+        ps.setBigDecimal(15, t.getBaseAmount());
+        ps.setTimestamp(16, timestamp(t.getProcessedAt()), utc());
+        ps.setString(17, t.getStatus().name());
+        ps.setTimestamp(18, timestamp(t.getEventTimestamp()), utc());
+    }
+
+    /**
+     * The statement for rows moving to the given status
+     * MySQL assigns left to right and later assignments see earlier ones, so status and event_timestamp come
+     * last; by then the condition still holds for a row being superseded, as a status may stay the same
+     */
+    private static Map<TransactionStatus, String> upserts() {
+        Map<TransactionStatus, String> upserts = new EnumMap<>(TransactionStatus.class);
+        for (TransactionStatus status : TransactionStatus.values()) {
+            String previous = Arrays.stream(TransactionStatus.values())
+                    .filter(from -> from.canTransitionTo(status))
+                    .map(from -> "'" + from.name() + "'")
+                    .collect(Collectors.joining(", "));
+            String supersedes = "transaction_id = VALUES(transaction_id)"
+                    + " AND (event_timestamp IS NULL OR event_timestamp <= VALUES(event_timestamp))"
+                    + " AND status IN (" + previous + ")";
+            String assignments = Arrays.stream(COLUMNS)
+                    .filter(column -> !column.equals("transaction_id") && !column.equals("processed_at"))
+                    .map(column -> column + " = CASE WHEN " + supersedes + " THEN VALUES(" + column + ") ELSE "
+                            + column + " END")
+                    .collect(Collectors.joining(",\n    "));
+            upserts.put(status, "INSERT INTO transactions (" + String.join(", ", COLUMNS) + ")\nVALUES ("
+                    + String.join(", ", Collections.nCopies(COLUMNS.length, "?")) + ")\nON DUPLICATE KEY UPDATE\n    "
+                    + assignments);
+        }
+        return upserts;
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
+    }
+
+    private static Instant instant(ResultSet rs, int column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column, utc());
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.koshal.webhook.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Event ids stored so far, keyed by event_id (see V14)
+ * webhook_events cannot hold the unique key itself, as every unique key of a partitioned table must contain
+ * received_at. An id is inserted in the transaction that stores its event, so a repeated event fails with
+ * DuplicateKeyException, and a concurrent one waits on the row lock until the first commits or rolls back.
+ * Instants are bound as UTC, the way Hibernate maps Instant on MySQL
+ */
+@Repository
+@RequiredArgsConstructor
+public class WebhookEventIdRepository {
+
+    private static final String INSERT = "INSERT INTO webhook_event_ids (event_id, received_at) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException when the event id is already stored
+     */
+    public void insert(String eventId, Instant receivedAt) {
+        jdbcTemplate.update(INSERT, ps -> {
+            ps.setString(1, eventId);
+            ps.setTimestamp(2, Timestamp.from(receivedAt), utc());
+        });
+    }
+
+    /**
+     * Inserts the ids as one JDBC batch
+     *
+     * @throws org.springframework.dao.DuplicateKeyException when one of them is already stored
+     */
+    public void insertAll(List<String> eventIds, Instant receivedAt) {
+        Timestamp timestamp = Timestamp.from(receivedAt);
+        jdbcTemplate.batchUpdate(INSERT, eventIds, eventIds.size(), (ps, eventId) -> {
+            ps.setString(1, eventId);
+            ps.setTimestamp(2, timestamp, utc());
+        });
+    }
+
+    public boolean exists(String eventId) {
+        return !jdbcTemplate.queryForList(
+                "SELECT 1 FROM webhook_event_ids WHERE event_id = ?", Integer.class, eventId).isEmpty();
+    }
+
+    /**
+     * The given event ids that are already stored
+     */
+    public List<String> findExisting(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(eventIds.size(), "?"));
+        return jdbcTemplate.queryForList("SELECT event_id FROM webhook_event_ids WHERE event_id IN ("
+                + placeholders + ")", String.class, eventIds.toArray());
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -2,8 +2,9 @@ package com.koshal.webhook.repository;
 
 import com.koshal.webhook.model.WebhookEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+
 import java.util.Optional;
 
 public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
-    Optional<WebhookEvent> findByEventId(String eventId);
+    Optional<WebhookEvent> findFirstByEventIdOrderByIdAsc(String eventId);
 }
@@ -0,0 +1,143 @@
+package com.koshal.webhook.repository;
+
+import com.koshal.webhook.model.enums.EventStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Claims and settles webhook events for reprocessing
+ * A claim locks due rows with FOR UPDATE SKIP LOCKED and marks them RECEIVED until a lease, so several
+ * instances can reprocess without running an event twice or waiting on each other; a claimant that goes away
+ * leaves its rows RECEIVED, and they are due again once the lease passes. A settle only applies while the row
+ * still holds the claim it was taken under, so a claimant whose lease lapsed cannot overwrite the outcome of
+ * the instance that claimed the event after it. Rows are addressed by
+ * (id, received_at), the primary key, so each statement touches one partition. Every method expects to run in
+ * a transaction. Instants are bound and read as UTC, as in TransactionUpsertRepository
+ */
+@Repository
+@RequiredArgsConstructor
+public class WebhookEventStateRepository {
+
+    /**
+     * A stored event with what is needed to run it again
+     *
+     * @param attempts   attempts made before this claim
+     * @param leaseUntil the lease of this claim, as stored in next_attempt_at
+     */
+    public record StoredEvent(long id, Instant receivedAt, String eventId, byte[] rawPayload, String payloadCodec,
+                              int attempts, Instant leaseUntil) {
+    }
+
+    private static final String COLUMNS = "id, received_at, event_id, raw_payload, payload_codec, attempts";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims failed events whose retry is due and events whose previous claim lapsed, oldest due first
+     */
+    public List<StoredEvent> claimDue(Instant now, Instant leaseUntil, int limit) {
+        Instant lease = stored(leaseUntil);
+        List<StoredEvent> events = jdbcTemplate.query("SELECT " + COLUMNS + """
+                         FROM webhook_events
+                        WHERE status IN (?, ?) AND next_attempt_at <= ?
+                        ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED""",
+                ps -> {
+                    ps.setString(1, EventStatus.FAILED.name());
+                    ps.setString(2, EventStatus.RECEIVED.name());
+                    ps.setTimestamp(3, Timestamp.from(now), utc());
+                    ps.setInt(4, limit);
+                },
+                storedEvent(lease));
+        lease(events, lease);
+        return events;
+    }
+
+    /**
+     * Claims failed events received in [from, to), dead ones included, walking by id after afterId
+     */
+    public List<StoredEvent> claimFailed(Instant from, Instant to, long afterId, Instant leaseUntil, int limit) {
+        Instant lease = stored(leaseUntil);
+        List<StoredEvent> events = jdbcTemplate.query("SELECT " + COLUMNS + """
+                         FROM webhook_events
+                        WHERE status = ? AND received_at >= ? AND received_at < ? AND id > ?
+                        ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED""",
+                ps -> {
+                    ps.setString(1, EventStatus.FAILED.name());
+                    ps.setTimestamp(2, Timestamp.from(from), utc());
+                    ps.setTimestamp(3, Timestamp.from(to), utc());
+                    ps.setLong(4, afterId);
+                    ps.setInt(5, limit);
+                },
+                storedEvent(lease));
+        lease(events, lease);
+        return events;
+    }
+
+    private void lease(List<StoredEvent> events, Instant leaseUntil) {
+        jdbcTemplate.batchUpdate("""
+                        UPDATE webhook_events SET status = ?, next_attempt_at = ?
+                        WHERE id = ? AND received_at = ?""",
+                events, events.size(), (ps, event) -> {
+                    ps.setString(1, EventStatus.RECEIVED.name());
+                    ps.setTimestamp(2, Timestamp.from(leaseUntil), utc());
+                    ps.setLong(3, event.id());
+                    ps.setTimestamp(4, Timestamp.from(event.receivedAt()), utc());
+                });
+    }
+
+    /**
+     * @return false when the claim was lost and nothing was written
+     */
+    public boolean markProcessed(StoredEvent event) {
+        return settle(event, EventStatus.PROCESSED, null, null);
+    }
+
+    /**
+     * @param error   at most 1024 characters
+     * @param retryAt when to try again, or null to give up on the event
+     * @return false when the claim was lost and nothing was written
+     */
+    public boolean markFailed(StoredEvent event, String error, Instant retryAt) {
+        return settle(event, EventStatus.FAILED, error, retryAt);
+    }
+
+    private boolean settle(StoredEvent event, EventStatus status, String error, Instant retryAt) {
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE webhook_events SET status = ?, attempts = ?, last_error = ?, next_attempt_at = ?
+                    WHERE id = ? AND received_at = ? AND status = ? AND next_attempt_at = ?""");
+            ps.setString(1, status.name());
+            ps.setInt(2, event.attempts() + 1);
+            ps.setString(3, error);
+            ps.setTimestamp(4, retryAt == null ? null : Timestamp.from(retryAt), utc());
+            ps.setLong(5, event.id());
+            ps.setTimestamp(6, Timestamp.from(event.receivedAt()), utc());
+            ps.setString(7, EventStatus.RECEIVED.name());
+            ps.setTimestamp(8, Timestamp.from(event.leaseUntil()), utc());
+            return ps;
+        }) == 1;
+    }
+
+    private static RowMapper<StoredEvent> storedEvent(Instant leaseUntil) {
+        return (rs, row) -> new StoredEvent(rs.getLong(1), rs.getTimestamp(2, utc()).toInstant(), rs.getString(3),
+                rs.getBytes(4), rs.getString(5), rs.getInt(6), leaseUntil);
+    }
+
+    // next_attempt_at is a DATETIME(3), and a settle compares the lease with it for equality
+    private static Instant stored(Instant leaseUntil) {
+        return leaseUntil.truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
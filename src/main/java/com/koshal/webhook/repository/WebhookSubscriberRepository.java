@@ -0,0 +1,10 @@
+package com.koshal.webhook.repository;
+
+import com.koshal.webhook.model.WebhookSubscriber;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface WebhookSubscriberRepository extends JpaRepository<WebhookSubscriber, Long> {
+    List<WebhookSubscriber> findByActiveTrue();
+}
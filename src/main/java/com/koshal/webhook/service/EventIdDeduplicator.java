@@ -0,0 +1,111 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory front for the event_id idempotency check
+ * Recently committed event ids are tracked in two rotating Bloom filter generations plus a
+ * small exact LRU. Ids the filter has never seen are new and skip the database lookup.
+ * This is per instance and starts empty, so the primary key of webhook_event_ids stays the
+ * source of truth for anything the filter does not know, such as ids stored before a restart
+ * or by another instance
+ */
+@Component
+public class EventIdDeduplicator {
+
+    public enum Verdict {
+        /** Never seen by this instance, safe to insert and rely on the unique constraint */
+        NEW,
+        /** Possibly seen, needs a database lookup */
+        POSSIBLE_DUPLICATE,
+        /** Committed recently by this instance */
+        DUPLICATE
+    }
+
+    private record Generations(BloomFilter current, BloomFilter previous) {}
+
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final AtomicReference<Generations> generations;
+    private final Set<String> recent;
+    private final Counter skippedLookups;
+    private final Counter databaseLookups;
+
+    public EventIdDeduplicator(MeterRegistry meterRegistry,
+                               @Value("${webhook.idempotency.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${webhook.idempotency.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${webhook.idempotency.recent-ids:10000}") int recentIds) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.generations = new AtomicReference<>(new Generations(
+                new BloomFilter(expectedInsertions, falsePositiveRate),
+                new BloomFilter(expectedInsertions, falsePositiveRate)));
+        this.recent = Collections.newSetFromMap(Collections.synchronizedMap(
+                new LinkedHashMap<>(recentIds * 4 / 3 + 1, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > recentIds;
+                    }
+                }));
+        this.skippedLookups = Counter.builder("webhook.idempotency.lookups.skipped")
+                .description("Idempotency checks answered from memory")
+                .register(meterRegistry);
+        this.databaseLookups = Counter.builder("webhook.idempotency.lookups.database")
+                .description("Idempotency checks that needed a database lookup")
+                .register(meterRegistry);
+    }
+
+    public Verdict check(String eventId) {
+        Generations g = generations.get();
+        if (!g.current().mightContain(eventId) && !g.previous().mightContain(eventId)) {
+            skippedLookups.increment();
+            return Verdict.NEW;
+        }
+        if (recent.contains(eventId)) {
+            skippedLookups.increment();
+            return Verdict.DUPLICATE;
+        }
+        databaseLookups.increment();
+        return Verdict.POSSIBLE_DUPLICATE;
+    }
+
+    /**
+     * Records an event id known to be stored
+     */
+    public void record(String eventId) {
+        Generations g = generations.get();
+        g.current().put(eventId);
+        recent.add(eventId);
+        if (g.current().insertions() >= expectedInsertions) {
+            generations.compareAndSet(g, new Generations(new BloomFilter(expectedInsertions, falsePositiveRate), g.current()));
+        }
+    }
+
+    /**
+     * Records the event id once the surrounding transaction commits, or right away without one
+     */
+    public void recordAfterCommit(String eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(eventId);
+            }
+        });
+    }
+}
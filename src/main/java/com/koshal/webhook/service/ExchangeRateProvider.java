@@ -0,0 +1,166 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.model.enums.FxRateSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exchange rates into the base currency, served from an immutable snapshot
+ * A refresh loads a complete new snapshot and swaps it in atomically, so ingestion threads read rates
+ * with one volatile read and a map lookup, never a lock or I/O. A failed refresh keeps the previous
+ * snapshot. Rates are quoted as base currency units per one unit of the currency
+ */
+@Slf4j
+@Service
+public class ExchangeRateProvider {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String baseCurrency;
+    private final FxRateSource source;
+    private final Path file;
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * Rates loaded in one refresh; asOf is when the source says the rates were valid
+     */
+    public record Snapshot(String baseCurrency, Map<String, BigDecimal> rates, Instant asOf) {
+
+        public Snapshot {
+            rates = Map.copyOf(rates);
+        }
+
+        /**
+         * Base currency units per unit of the currency, ONE for the base currency itself, null when unknown
+         */
+        public BigDecimal rateToBase(String currency) {
+            return baseCurrency.equals(currency) ? BigDecimal.ONE : rates.get(currency);
+        }
+    }
+
+    public ExchangeRateProvider(JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${webhook.fx.base-currency:USD}") String baseCurrency,
+                                @Value("${webhook.fx.source:table}") FxRateSource source,
+                                @Value("${webhook.fx.file:./config/fx-rates.csv}") Path file) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.baseCurrency = baseCurrency.toUpperCase(Locale.ROOT);
+        this.source = source;
+        this.file = file;
+        this.snapshot = new AtomicReference<>(new Snapshot(baseCurrency, Map.of(), Instant.EPOCH));
+
+        this.refreshSuccess = Timer.builder("webhook.fx.refresh")
+                .description("Time to load a new exchange rate snapshot")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.refreshFailure = Timer.builder("webhook.fx.refresh")
+                .description("Time to load a new exchange rate snapshot")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        Gauge.builder("webhook.fx.snapshot.age", snapshot,
+                        ref -> ref.get().asOf().equals(Instant.EPOCH) ? Double.NaN
+                                : (System.currentTimeMillis() - ref.get().asOf().toEpochMilli()) / 1000.0)
+                .description("Age of the exchange rates in use")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("webhook.fx.rates", snapshot, ref -> ref.get().rates().size())
+                .description("Currencies with a known exchange rate")
+                .register(meterRegistry);
+    }
+
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Loads the first snapshot before the web server starts
+     */
+    @PostConstruct
+    public void loadInitialSnapshot() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${webhook.fx.refresh-ms:60000}", fixedDelayString = "${webhook.fx.refresh-ms:60000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        try {
+            Snapshot loaded = source == FxRateSource.FILE ? loadFile() : loadTable();
+            Snapshot previous = snapshot.getAndSet(loaded);
+            refreshSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!loaded.asOf().equals(previous.asOf())) {
+                log.info("Loaded {} exchange rates into {} as of {}", loaded.rates().size(), baseCurrency, loaded.asOf());
+            }
+        } catch (RuntimeException e) {
+            refreshFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("Exchange rate refresh failed, keeping rates as of {}: {}", snapshot.get().asOf(), e.getMessage());
+        }
+    }
+
+    private Snapshot loadTable() {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        Instant[] asOf = {Instant.EPOCH};
+        jdbcTemplate.query("SELECT currency, rate_to_base, as_of FROM exchange_rates", rs -> {
+            rates.put(rs.getString(1).toUpperCase(Locale.ROOT), rs.getBigDecimal(2));
+            Timestamp rowAsOf = rs.getTimestamp(3);
+            if (rowAsOf != null && rowAsOf.toInstant().isAfter(asOf[0])) {
+                asOf[0] = rowAsOf.toInstant();
+            }
+        });
+        return new Snapshot(baseCurrency, rates, asOf[0]);
+    }
+
+    private Snapshot loadFile() {
+        try {
+            return parse(baseCurrency, Files.readAllLines(file, StandardCharsets.UTF_8),
+                    Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file, e);
+        }
+    }
+
+    /**
+     * Parses currency,rate_to_base lines; blank lines and lines starting with # are skipped
+     */
+    static Snapshot parse(String baseCurrency, List<String> lines, Instant asOf) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Expected currency,rate_to_base but got: " + line);
+            }
+            BigDecimal rate = new BigDecimal(fields[1].trim());
+            if (rate.signum() <= 0) {
+                throw new IllegalArgumentException("Exchange rate must be positive: " + line);
+            }
+            rates.put(fields[0].trim().toUpperCase(Locale.ROOT), rate);
+        }
+        return new Snapshot(baseCurrency, rates, asOf);
+    }
+}
@@ -0,0 +1,90 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.TransactionDataDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.fee.FeeRule;
+import com.koshal.webhook.fee.FeeSchedule;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prices transactions with the compiled fee schedule
+ * Rules come from webhook.fees.rules, or from the YAML file at webhook.fees.file when set, whose top-level
+ * rules list has the same shape. Reloading compiles a new schedule and swaps it in; invalid rules keep the
+ * current one. Invalid rules at startup fail the application
+ */
+@Slf4j
+@Service
+public class FeeCalculator {
+
+    private static final Bindable<List<FeeRule>> RULES = Bindable.listOf(FeeRule.class);
+
+    private final Environment environment;
+    private final String rulesFile;
+    private final AtomicReference<FeeSchedule> schedule;
+
+    public FeeCalculator(Environment environment,
+                         MeterRegistry meterRegistry,
+                         @Value("${webhook.fees.file:}") String rulesFile) {
+        this.environment = environment;
+        this.rulesFile = rulesFile;
+        this.schedule = new AtomicReference<>(compile());
+        log.info("Loaded {} fee rules", schedule.get().size());
+
+        Gauge.builder("webhook.fees.rules", schedule, ref -> ref.get().size())
+                .description("Fee rules in the active schedule")
+                .register(meterRegistry);
+    }
+
+    public BigDecimal fee(TransactionDataDto data) {
+        return schedule.get().fee(data.getPaymentMethod(), data.getCurrency(),
+                data.getSender().getCountry(), data.getReceiver().getCountry(), data.getAmount());
+    }
+
+    /**
+     * Re-reads and recompiles the rules, returning how many are active
+     */
+    public int reload() {
+        FeeSchedule loaded;
+        try {
+            loaded = compile();
+        } catch (IllegalArgumentException | IllegalStateException | BindException e) {
+            throw new ApiException("Invalid fee rules: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        schedule.set(loaded);
+        log.info("Reloaded {} fee rules", loaded.size());
+        return loaded.size();
+    }
+
+    private FeeSchedule compile() {
+        return FeeSchedule.compile(readRules());
+    }
+
+    private List<FeeRule> readRules() {
+        if (rulesFile.isBlank()) {
+            return Binder.get(environment).bind("webhook.fees.rules", RULES).orElse(List.of());
+        }
+        try {
+            var sources = new YamlPropertySourceLoader().load("fee-rules", new FileSystemResource(rulesFile));
+            return new Binder(ConfigurationPropertySources.from(sources)).bind("rules", RULES).orElse(List.of());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read fee rules from " + rulesFile + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.koshal.webhook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koshal.webhook.dto.TransactionEventDto;
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.WebhookSubscriber;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.outbound.Delivery;
+import com.koshal.webhook.outbound.OutboundSender;
+import com.koshal.webhook.outbound.Subscription;
+import com.koshal.webhook.repository.OutboxRepository;
+import com.koshal.webhook.repository.OutboxRepository.OutboxEntry;
+import com.koshal.webhook.repository.WebhookSubscriberRepository;
+import com.koshal.webhook.util.HmacKey;
+import com.koshal.webhook.util.HmacSignatureValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes committed transaction changes to the registered subscribers
+ * {@link #capture} appends the new states to the outbox inside the caller's transaction. A poll claims
+ * entries not fanned out yet, creates one pending delivery per matching active subscriber and hands them to
+ * the {@link OutboundSender}, which posts them and retries on its timing wheel. Each recovery run renews the
+ * lease of the deliveries held here, so pending deliveries are taken over by another instance only once the
+ * one holding them has stopped. Outcomes are written by a single recording thread, off the HTTP client's.
+ * Delivery is at least once: a subscriber may see a delivery again after a crash or a lost acknowledgement,
+ * and should deduplicate on the X-Webhook-Event-Id header. Status updates conflated within a batch publish
+ * only the final state
+ */
+@Slf4j
+@Service
+public class OutboundDispatcher implements SmartLifecycle {
+
+    private record FanOut(int entries, List<Delivery> deliveries) {
+    }
+
+    private final OutboxRepository outboxRepository;
+    private final WebhookSubscriberRepository subscriberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final Duration lease;
+    private final Duration retention;
+    private final int httpThreads;
+    private final Duration connectTimeout;
+    private final OutboundSender.Settings settings;
+
+    private final AtomicReference<Map<Long, Subscription>> subscriptions = new AtomicReference<>(Map.of());
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+
+    private ExecutorService httpExecutor;
+    private ExecutorService recordExecutor;
+    private volatile OutboundSender sender;
+    private volatile boolean running;
+
+    public OutboundDispatcher(OutboxRepository outboxRepository,
+                              WebhookSubscriberRepository subscriberRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper mapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${webhook.outbound.enabled:true}") boolean enabled,
+                              @Value("${webhook.outbound.batch-size:200}") int batchSize,
+                              @Value("${webhook.outbound.max-pending:50000}") int maxPending,
+                              @Value("${webhook.outbound.lease-seconds:300}") long leaseSeconds,
+                              @Value("${webhook.outbound.recover-ms:60000}") long recoverMs,
+                              @Value("${webhook.outbound.retain-hours:24}") long retainHours,
+                              @Value("${webhook.outbound.http-threads:4}") int httpThreads,
+                              @Value("${webhook.outbound.connect-timeout-ms:5000}") long connectTimeoutMs,
+                              @Value("${webhook.outbound.request-timeout-ms:10000}") long requestTimeoutMs,
+                              @Value("${webhook.outbound.max-attempts:10}") int maxAttempts,
+                              @Value("${webhook.outbound.initial-backoff-ms:1000}") long initialBackoffMs,
+                              @Value("${webhook.outbound.max-backoff-ms:600000}") long maxBackoffMs,
+                              @Value("${webhook.outbound.tick-ms:100}") long tickMs,
+                              @Value("${webhook.outbound.wheel-size:512}") int wheelSize) {
+        if (Duration.ofSeconds(leaseSeconds).toMillis() <= requestTimeoutMs) {
+            throw new IllegalStateException("webhook.outbound.lease-seconds must exceed the request timeout");
+        }
+        if (recoverMs >= Duration.ofSeconds(leaseSeconds).toMillis()) {
+            throw new IllegalStateException("webhook.outbound.recover-ms must be below lease-seconds to renew leases in time");
+        }
+        this.outboxRepository = outboxRepository;
+        this.subscriberRepository = subscriberRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retention = Duration.ofHours(retainHours);
+        this.httpThreads = httpThreads;
+        this.connectTimeout = Duration.ofMillis(connectTimeoutMs);
+        this.settings = new OutboundSender.Settings(Duration.ofMillis(tickMs), wheelSize,
+                Duration.ofMillis(requestTimeoutMs), maxAttempts, Duration.ofMillis(initialBackoffMs),
+                Duration.ofMillis(maxBackoffMs));
+
+        Gauge.builder("webhook.outbound.subscribers", subscriptions, ref -> ref.get().size())
+                .description("Active subscribers")
+                .register(meterRegistry);
+        Gauge.builder("webhook.outbound.scheduled", this, dispatcher -> dispatcher.sender == null ? 0 : dispatcher.sender.scheduled())
+                .description("Deliveries waiting on the timing wheel for their next attempt")
+                .register(meterRegistry);
+        Gauge.builder("webhook.outbound.in_flight", this, dispatcher -> dispatcher.sender == null ? 0 : dispatcher.sender.inFlight())
+                .description("Delivery requests awaiting a response")
+                .register(meterRegistry);
+        Gauge.builder("webhook.outbound.parked", this, dispatcher -> dispatcher.sender == null ? 0 : dispatcher.sender.parked())
+                .description("Deliveries waiting for a request slot of their subscriber")
+                .register(meterRegistry);
+        this.delivered = deliveries(meterRegistry, "delivered");
+        this.retried = deliveries(meterRegistry, "retried");
+        this.failed = deliveries(meterRegistry, "failed");
+    }
+
+    private static Counter deliveries(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("webhook.outbound.attempts")
+                .description("Delivery attempts by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Appends the committed states of the transactions to the outbox; call inside the transaction writing them
+     */
+    public void capture(List<Transaction> transactions) {
+        if (!enabled || transactions.isEmpty()) {
+            return;
+        }
+        List<OutboxEntry> entries = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            entries.add(new OutboxEntry(0, t.getEventId(), t.getTransactionId(), t.getStatus(), t.getCurrency(),
+                    payload(t)));
+        }
+        outboxRepository.append(entries, Instant.now());
+    }
+
+    private String payload(Transaction t) {
+        try {
+            return mapper.writeValueAsString(new TransactionEventDto(t.getEventId(), t.getTransactionId(),
+                    t.getStatus(), t.getAmount(), t.getCurrency(), t.getProcessingFee(), t.getNetAmount(),
+                    t.getPaymentMethod(), t.getSenderId(), t.getReceiverId(), t.getEventTimestamp(),
+                    t.getProcessedAt()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transaction " + t.getTransactionId(), e);
+        }
+    }
+
+    @PostConstruct
+    public void loadInitialSubscriptions() {
+        refreshSubscriptions();
+    }
+
+    @Scheduled(initialDelayString = "${webhook.outbound.subscribers-refresh-ms:60000}",
+            fixedDelayString = "${webhook.outbound.subscribers-refresh-ms:60000}")
+    public void refreshSubscriptions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reloadSubscriptions();
+        } catch (RuntimeException e) {
+            log.warn("Subscriber refresh failed, keeping {} subscribers: {}", subscriptions.get().size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the active subscribers and swaps them in, returning their count
+     * Deliveries pending for a subscriber that is no longer active fail at their next attempt
+     */
+    public int reloadSubscriptions() {
+        Map<Long, Subscription> previous = subscriptions.get();
+        Map<Long, Subscription> loaded = new HashMap<>();
+        for (WebhookSubscriber subscriber : subscriberRepository.findByActiveTrue()) {
+            try {
+                loaded.put(subscriber.getId(), toSubscription(subscriber, previous.get(subscriber.getId())));
+            } catch (IllegalArgumentException e) {
+                log.error("Skipping subscriber {}: {}", subscriber.getId(), e.getMessage());
+            }
+        }
+        subscriptions.set(Map.copyOf(loaded));
+        return loaded.size();
+    }
+
+    private static Subscription toSubscription(WebhookSubscriber subscriber, Subscription previous) {
+        // Subscribers are only ever added or deactivated, so one already loaded keeps its prepared key
+        if (previous != null) {
+            return previous;
+        }
+        HmacKey key = subscriber.getSecret() == null ? null
+                : new HmacKey(subscriber.getSecret(), HmacSignatureValidator.HMAC_SHA256);
+        Set<TransactionStatus> statuses = split(subscriber.getStatuses()).stream()
+                .map(TransactionStatus::valueOf)
+                .collect(Collectors.toSet());
+        return new Subscription(subscriber.getId(), URI.create(subscriber.getUrl()), key, statuses,
+                Set.copyOf(split(subscriber.getCurrencies())), subscriber.getMaxConcurrency());
+    }
+
+    private static List<String> split(String list) {
+        return list == null || list.isBlank() ? List.of() : Arrays.asList(list.split(","));
+    }
+
+    /**
+     * Fans out the outbox, a batch at a time, until it is drained or enough deliveries are pending in memory
+     */
+    @Scheduled(initialDelayString = "${webhook.outbound.poll-ms:500}", fixedDelayString = "${webhook.outbound.poll-ms:500}")
+    public void poll() {
+        try {
+            while (hasRoom()) {
+                FanOut fanOut = transactionTemplate.execute(status -> fanOut());
+                fanOut.deliveries().forEach(sender::submit);
+                if (fanOut.entries() < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    private FanOut fanOut() {
+        List<OutboxEntry> entries = outboxRepository.claimUndispatched(batchSize);
+        if (entries.isEmpty()) {
+            return new FanOut(0, List.of());
+        }
+        Map<Long, Subscription> active = subscriptions.get();
+        List<Delivery> deliveries = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (OutboxEntry entry : entries) {
+            ids.add(entry.id());
+            for (Subscription subscription : active.values()) {
+                if (subscription.matches(entry.status(), entry.currency())) {
+                    deliveries.add(new Delivery(entry.id(), subscription.id(), entry.eventId(), entry.payload(), 0));
+                }
+            }
+        }
+        Instant now = Instant.now();
+        outboxRepository.insertDeliveries(deliveries, now);
+        outboxRepository.markDispatched(ids, now);
+        return new FanOut(entries.size(), deliveries);
+    }
+
+    /**
+     * Renews the lease of the deliveries held here, then takes over those whose holder went away without
+     * recording an attempt within the lease
+     */
+    @Scheduled(initialDelayString = "${webhook.outbound.recover-ms:60000}", fixedDelayString = "${webhook.outbound.recover-ms:60000}")
+    public void recover() {
+        if (!running) {
+            return;
+        }
+        try {
+            renewLeases();
+        } catch (RuntimeException e) {
+            log.warn("Delivery lease renewal failed: {}", e.getMessage());
+        }
+        try {
+            while (hasRoom()) {
+                Instant now = Instant.now();
+                List<Delivery> stale = transactionTemplate.execute(
+                        status -> outboxRepository.claimStale(now.minus(lease), now, batchSize));
+                // One still held here went stale only while renewal failed, and is already on its way
+                List<Delivery> taken = stale.stream().filter(delivery -> !sender.holds(delivery)).toList();
+                if (!taken.isEmpty()) {
+                    log.info("Recovered {} pending deliveries", taken.size());
+                }
+                taken.forEach(sender::submit);
+                if (stale.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Delivery recovery failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves next_attempt_at up to now for held deliveries that are past due, such as those parked behind a
+     * slow subscriber, in transactions of batch-size rows
+     */
+    private void renewLeases() {
+        List<Delivery.Id> held = sender.held();
+        Instant now = Instant.now();
+        for (int from = 0; from < held.size(); from += batchSize) {
+            List<Delivery.Id> batch = held.subList(from, Math.min(from + batchSize, held.size()));
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.renew(batch, now));
+        }
+    }
+
+    @Scheduled(cron = "${webhook.outbound.purge-cron:0 45 * * * *}", zone = "UTC")
+    public void purge() {
+        if (!running) {
+            return;
+        }
+        try {
+            Integer purged = transactionTemplate.execute(
+                    status -> outboxRepository.purge(Instant.now().minus(retention)));
+            log.info("Purged {} outbox entries", purged);
+        } catch (RuntimeException e) {
+            log.warn("Outbox purge failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasRoom() {
+        OutboundSender current = sender;
+        return running && current.scheduled() + current.inFlight() + current.parked() < maxPending;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        httpExecutor = Executors.newFixedThreadPool(httpThreads, new CustomizableThreadFactory("webhook-outbound-"));
+        recordExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("webhook-outbound-record-"));
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .executor(httpExecutor)
+                .build();
+        sender = new OutboundSender(client, id -> subscriptions.get().get(id), new RecordingListener(), settings);
+        sender.start();
+        running = true;
+        log.info("Outbound delivery started: {} subscribers", subscriptions.get().size());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        log.info("Stopping outbound delivery: {} deliveries scheduled, {} in flight, {} parked",
+                sender.scheduled(), sender.inFlight(), sender.parked());
+        sender.close();
+        httpExecutor.shutdownNow();
+        // Outcomes not recorded by then leave their deliveries pending, to be sent again after the lease
+        recordExecutor.shutdown();
+        try {
+            if (!recordExecutor.awaitTermination(settings.requestTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                recordExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Persists each attempt in its own short transaction on the recording thread, in the order of the outcomes
+     */
+    private final class RecordingListener implements OutboundSender.Listener {
+
+        @Override
+        public void delivered(Delivery delivery) {
+            delivered.increment();
+            Instant deliveredAt = Instant.now();
+            record(delivery, () -> outboxRepository.delivered(delivery, deliveredAt));
+        }
+
+        @Override
+        public void retrying(Delivery delivery, Instant nextAttemptAt, String error) {
+            retried.increment();
+            log.debug("Delivery of {} to subscriber {} failed, attempt {}: {}",
+                    delivery.eventId(), delivery.subscriberId(), delivery.attempts(), error);
+            record(delivery, () -> outboxRepository.retrying(delivery, nextAttemptAt, error));
+        }
+
+        @Override
+        public void failed(Delivery delivery, String error) {
+            failed.increment();
+            log.warn("Giving up delivery of {} to subscriber {} after {} attempts: {}",
+                    delivery.eventId(), delivery.subscriberId(), delivery.attempts(), error);
+            record(delivery, () -> outboxRepository.failed(delivery, error));
+        }
+
+        private void record(Delivery delivery, Runnable write) {
+            recordExecutor.execute(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write.run());
+                } catch (RuntimeException e) {
+                    log.error("Could not record attempt {} of {} to subscriber {}: {}",
+                            delivery.attempts(), delivery.eventId(), delivery.subscriberId(), e.getMessage());
+                }
+            });
+        }
+    }
+}
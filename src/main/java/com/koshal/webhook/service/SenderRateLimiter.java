@@ -0,0 +1,162 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.exception.GlobalExceptionHandler.RateLimitedException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Outcome;
+import com.koshal.webhook.ratelimit.GcraBucket;
+import com.koshal.webhook.ratelimit.RateLimit;
+import com.koshal.webhook.ratelimit.RateLimitPolicy;
+import com.koshal.webhook.ratelimit.RateLimitPolicy.Limit;
+import com.koshal.webhook.ratelimit.SenderBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-sender and global webhook rate limits, keyed by data.sender.id
+ * Each sender has a token bucket sized by its tier, kept in a fixed striped table where idle senders give
+ * way to new ones (see SenderBuckets). Limits come from webhook.rate-limit, or from the YAML file at
+ * webhook.rate-limit.file with the same keys at top level, and can be reloaded at runtime
+ */
+@Slf4j
+@Service
+public class SenderRateLimiter {
+
+    private final Environment environment;
+    private final String limitsFile;
+    private final boolean enabled;
+    private final WebhookMetrics metrics;
+    private final SenderBuckets senderBuckets;
+    private final GcraBucket globalBucket = new GcraBucket();
+    private final AtomicReference<RateLimitPolicy> policy;
+    // Buckets need a clock that starts at zero; nanoTime may be negative
+    private final long origin = System.nanoTime();
+    private final Counter senderRejected;
+    private final Counter globalRejected;
+
+    public SenderRateLimiter(Environment environment,
+                             MeterRegistry meterRegistry,
+                             WebhookMetrics metrics,
+                             @Value("${webhook.rate-limit.enabled:true}") boolean enabled,
+                             @Value("${webhook.rate-limit.file:}") String limitsFile,
+                             @Value("${webhook.rate-limit.max-senders:1000000}") int maxSenders) {
+        this.environment = environment;
+        this.limitsFile = limitsFile;
+        this.enabled = enabled;
+        this.metrics = metrics;
+        this.senderBuckets = new SenderBuckets(maxSenders);
+        this.policy = new AtomicReference<>(compile());
+        log.info("Webhook rate limits: {} tiers, global {} (enabled={})",
+                policy.get().tierCount(), policy.get().global(), enabled);
+
+        this.senderRejected = Counter.builder("webhook.ratelimit.rejected")
+                .description("Webhooks rejected by a rate limit")
+                .tag("scope", "sender")
+                .register(meterRegistry);
+        this.globalRejected = Counter.builder("webhook.ratelimit.rejected")
+                .description("Webhooks rejected by a rate limit")
+                .tag("scope", "global")
+                .register(meterRegistry);
+        Gauge.builder("webhook.ratelimit.senders", senderBuckets, buckets -> buckets.activeSenders(System.nanoTime() - origin))
+                .description("Senders with a bucket that has not refilled yet")
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.ratelimit.evicted", senderBuckets, SenderBuckets::evictions)
+                .description("Sender buckets evicted early to stay within max-senders")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the sender's bucket, then from the global one
+     *
+     * @throws RateLimitedException with the limit that was hit and when to retry
+     */
+    public void check(String senderId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime() - origin;
+        RateLimitPolicy current = policy.get();
+
+        Limit limit = current.forSender(senderId);
+        long wait = senderBuckets.tryAcquire(senderId, now, limit.intervalNanos(), limit.toleranceNanos());
+        if (wait > 0) {
+            senderRejected.increment();
+            throw rejected("Rate limit exceeded for sender " + senderId, limit, wait);
+        }
+
+        Limit global = current.global();
+        if (global != null) {
+            wait = globalBucket.tryAcquire(now, global.intervalNanos(), global.toleranceNanos());
+            if (wait > 0) {
+                globalRejected.increment();
+                throw rejected("Global webhook rate limit exceeded", global, wait);
+            }
+        }
+    }
+
+    /**
+     * Re-reads and recompiles the limits, returning how many tiers are configured; bucket state is kept
+     */
+    public int reload() {
+        RateLimitPolicy loaded;
+        try {
+            loaded = compile();
+        } catch (IllegalArgumentException | IllegalStateException | BindException e) {
+            throw new ApiException("Invalid rate limits: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        policy.set(loaded);
+        log.info("Reloaded webhook rate limits: {} tiers, global {}", loaded.tierCount(), loaded.global());
+        return loaded.tierCount();
+    }
+
+    private RateLimitedException rejected(String reason, Limit limit, long waitNanos) {
+        metrics.outcome(Outcome.RATE_LIMITED);
+        String message = String.format("%s (%s: %s/s, burst %d)", reason, limit.tier(),
+                format(limit.ratePerSecond()), limit.burst());
+        return new RateLimitedException(message, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+    }
+
+    private static String format(double rate) {
+        return rate == Math.rint(rate) ? Long.toString((long) rate) : Double.toString(rate);
+    }
+
+    private RateLimitPolicy compile() {
+        Binder binder;
+        String prefix;
+        if (limitsFile.isBlank()) {
+            binder = Binder.get(environment);
+            prefix = "webhook.rate-limit.";
+        } else {
+            try {
+                binder = new Binder(ConfigurationPropertySources.from(
+                        new YamlPropertySourceLoader().load("rate-limits", new FileSystemResource(limitsFile))));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read rate limits from " + limitsFile + ": " + e.getMessage(), e);
+            }
+            prefix = "";
+        }
+        RateLimit global = binder.bind(prefix + "global", RateLimit.class).orElse(null);
+        Map<String, RateLimit> tiers = binder.bind(prefix + "tiers", Bindable.mapOf(String.class, RateLimit.class))
+                .orElse(Map.of());
+        String defaultTier = binder.bind(prefix + "default-tier", String.class).orElse("standard");
+        return RateLimitPolicy.compile(global, tiers, defaultTier);
+    }
+}
@@ -0,0 +1,93 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.SubscriberDto;
+import com.koshal.webhook.dto.SubscriberRequestDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.model.WebhookSubscriber;
+import com.koshal.webhook.repository.WebhookSubscriberRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Registers and deactivates subscribers; each change is picked up by this instance's dispatcher at once and
+ * by other instances at their next subscriber refresh
+ */
+@Service
+@RequiredArgsConstructor
+public class SubscriberService {
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private final WebhookSubscriberRepository subscriberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboundDispatcher outboundDispatcher;
+
+    public SubscriberDto register(SubscriberRequestDto request) {
+        URI url = parseUrl(request.url());
+        WebhookSubscriber subscriber = WebhookSubscriber.builder()
+                .name(request.name())
+                .url(url.toString())
+                .secret(request.secret() == null || request.secret().isEmpty() ? null : request.secret())
+                .statuses(join(request.statuses()))
+                .currencies(join(request.currencies()))
+                .maxConcurrency(request.maxConcurrency() == null ? DEFAULT_MAX_CONCURRENCY : request.maxConcurrency())
+                .active(true)
+                .createdAt(Instant.now())
+                .build();
+        WebhookSubscriber saved = transactionTemplate.execute(status -> subscriberRepository.save(subscriber));
+        outboundDispatcher.reloadSubscriptions();
+        return toDto(saved);
+    }
+
+    public List<SubscriberDto> list() {
+        return subscriberRepository.findAll().stream().map(SubscriberService::toDto).toList();
+    }
+
+    /**
+     * Stops deliveries to the subscriber; those still pending fail at their next attempt
+     */
+    public void deactivate(long id) {
+        transactionTemplate.executeWithoutResult(status -> {
+            WebhookSubscriber subscriber = subscriberRepository.findById(id)
+                    .orElseThrow(() -> new ApiException("Subscriber not found: " + id, HttpStatus.NOT_FOUND));
+            subscriber.setActive(false);
+        });
+        outboundDispatcher.reloadSubscriptions();
+    }
+
+    private static URI parseUrl(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() != null && ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+                return uri;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new ApiException("url must be an absolute http or https URL", HttpStatus.BAD_REQUEST);
+    }
+
+    private static String join(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return String.join(",", values.stream().map(value -> value.trim().toUpperCase(Locale.ROOT)).distinct().toList());
+    }
+
+    private static List<String> split(String values) {
+        return values == null ? List.of() : List.of(values.split(","));
+    }
+
+    private static SubscriberDto toDto(WebhookSubscriber subscriber) {
+        return new SubscriberDto(subscriber.getId(), subscriber.getName(), subscriber.getUrl(),
+                subscriber.getSecret() != null, split(subscriber.getStatuses()), split(subscriber.getCurrencies()),
+                subscriber.getMaxConcurrency(), subscriber.isActive(), subscriber.getCreatedAt());
+    }
+}
@@ -0,0 +1,117 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.util.HmacKey;
+import com.koshal.webhook.util.HmacSignatureValidator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live signing keys of every tenant, served from an immutable snapshot
+ * A refresh reads webhook_tenant_secrets, drops expired secrets and swaps the new snapshot in atomically,
+ * so a request finds its tenant's keys with one map lookup whatever the tenant count. Keys are prepared
+ * when loaded; a secret that is unchanged since the previous snapshot keeps its HmacKey and warm Mac pool.
+ * A failed refresh keeps the previous snapshot
+ */
+@Slf4j
+@Service
+public class TenantKeyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<Map<String, TenantKeys>> snapshot = new AtomicReference<>(Map.of());
+
+    /**
+     * One live secret; the secret is kept to recognise it on the next refresh
+     */
+    public record TenantKey(long id, String secret, HmacKey hmacKey) {
+    }
+
+    /**
+     * Live keys of one tenant, newest first, which is the order verification tries them in
+     */
+    public record TenantKeys(List<TenantKey> keys, List<HmacKey> hmacKeys) {
+
+        static TenantKeys of(List<TenantKey> keys) {
+            return new TenantKeys(List.copyOf(keys), keys.stream().map(TenantKey::hmacKey).toList());
+        }
+    }
+
+    public TenantKeyStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("webhook.tenants", snapshot, ref -> ref.get().size())
+                .description("Tenants with at least one live signing key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Keys of the tenant, or null when it has none
+     */
+    public TenantKeys keys(String tenant) {
+        return snapshot.get().get(tenant);
+    }
+
+    @PostConstruct
+    public void loadInitialSnapshot() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${webhook.tenants.refresh-ms:60000}", fixedDelayString = "${webhook.tenants.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Tenant key refresh failed, keeping {} tenants: {}", snapshot.get().size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the live keys of all tenants and swaps them in, returning the tenant count
+     */
+    public int reload() {
+        Map<Long, TenantKey> previous = new HashMap<>();
+        snapshot.get().values().forEach(tenant -> tenant.keys().forEach(key -> previous.put(key.id(), key)));
+
+        Map<String, List<TenantKey>> loaded = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT id, tenant, secret FROM webhook_tenant_secrets
+                WHERE expires_at IS NULL OR expires_at > ?
+                ORDER BY tenant, created_at DESC, id DESC""",
+                // expires_at holds UTC, the way Hibernate maps Instant on MySQL
+                ps -> ps.setTimestamp(1, Timestamp.from(Instant.now()), utc()),
+                rs -> {
+                    long id = rs.getLong(1);
+                    String secret = rs.getString(3);
+                    TenantKey known = previous.get(id);
+                    TenantKey key = known != null && known.secret().equals(secret) ? known
+                            : new TenantKey(id, secret, new HmacKey(secret, HmacSignatureValidator.HMAC_SHA256));
+                    loaded.computeIfAbsent(rs.getString(2), tenant -> new ArrayList<>()).add(key);
+                });
+
+        Map<String, TenantKeys> tenants = new HashMap<>(loaded.size() * 2);
+        loaded.forEach((tenant, keys) -> tenants.put(tenant, TenantKeys.of(keys)));
+        Map<String, TenantKeys> old = snapshot.getAndSet(Map.copyOf(tenants));
+        if (old.size() != tenants.size()) {
+            log.info("Loaded signing keys of {} tenants", tenants.size());
+        }
+        return tenants.size();
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -0,0 +1,254 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.TransactionAggregateDto;
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory transaction totals per currency, status and payment method, so dashboards never query transactions
+ * Totals are kept for all time and per minute of processed_at for the last window-minutes. Amounts are
+ * summed as cents in LongAdders, so concurrent commits never contend on a lock and sums stay exact.
+ * The state is rebuilt with one streaming pass over the table before the web server starts, then fed by
+ * WebhookService after each commit; a status update moves its transaction out of its previous group.
+ * Each instance only sees its own commits after startup
+ */
+@Slf4j
+@Service
+public class TransactionAggregates implements SmartLifecycle {
+
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long windowMinutes;
+
+    private final Map<Key, Sums> totals = new ConcurrentHashMap<>();
+    private final Map<Key, Sums> minutes = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public TransactionAggregates(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${webhook.aggregates.window-minutes:1440}") long windowMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMinutes = windowMinutes;
+        Gauge.builder("webhook.aggregates.buckets", minutes, Map::size)
+                .description("Minute buckets held by the transaction aggregates")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grouping key; minute is the epoch minute of processed_at, or -1 in the all-time totals
+     */
+    private record Key(long minute, String currency, TransactionStatus status, String paymentMethod) {
+    }
+
+    private static final class Sums {
+        final LongAdder count = new LongAdder();
+        final LongAdder amountCents = new LongAdder();
+        final LongAdder feeCents = new LongAdder();
+        final LongAdder netCents = new LongAdder();
+    }
+
+    /**
+     * Adds transactions that were just committed
+     */
+    public void add(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            add(transaction, 1);
+        }
+    }
+
+    /**
+     * Takes out the previous states of transactions that were just updated
+     */
+    public void remove(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            add(transaction, -1);
+        }
+    }
+
+    private void add(Transaction transaction, int sign) {
+        add(transaction.getProcessedAt(), transaction.getCurrency(), transaction.getStatus(),
+                transaction.getPaymentMethod(), sign, sign * cents(transaction.getAmount()),
+                sign * cents(transaction.getProcessingFee()), sign * cents(transaction.getNetAmount()));
+    }
+
+    private void add(Instant processedAt, String currency, TransactionStatus status, String paymentMethod,
+                     int count, long amountCents, long feeCents, long netCents) {
+        accumulate(totals.computeIfAbsent(new Key(-1, currency, status, paymentMethod), key -> new Sums()),
+                count, amountCents, feeCents, netCents);
+        if (processedAt != null) {
+            long minute = processedAt.getEpochSecond() / 60;
+            if (minute > currentMinute() - windowMinutes) {
+                accumulate(minutes.computeIfAbsent(new Key(minute, currency, status, paymentMethod), key -> new Sums()),
+                        count, amountCents, feeCents, netCents);
+            }
+        }
+    }
+
+    private static void accumulate(Sums sums, int count, long amountCents, long feeCents, long netCents) {
+        sums.count.add(count);
+        sums.amountCents.add(amountCents);
+        sums.feeCents.add(feeCents);
+        sums.netCents.add(netCents);
+    }
+
+    /**
+     * All-time totals, optionally restricted to one currency and status
+     */
+    public List<TransactionAggregateDto> totals(String currency, TransactionStatus status) {
+        List<TransactionAggregateDto> rows = new ArrayList<>();
+        totals.forEach((key, sums) -> {
+            long count = sums.count.sum();
+            // A group every transaction has moved out of stays behind empty
+            if (count != 0 && matches(key, currency, status)) {
+                rows.add(toDto(null, key, count, sums.amountCents.sum(), sums.feeCents.sum(), sums.netCents.sum()));
+            }
+        });
+        rows.sort(Comparator.comparing(TransactionAggregateDto::currency)
+                .thenComparing(TransactionAggregateDto::status)
+                .thenComparing(TransactionAggregateDto::paymentMethod, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    /**
+     * Totals over the minutes of [from, to), either summed per group or per minute
+     */
+    public List<TransactionAggregateDto> window(Instant from, Instant to, String currency, TransactionStatus status,
+                                                boolean perMinute) {
+        long fromMinute = from.getEpochSecond() / 60;
+        long toMinute = (to.getEpochSecond() + 59) / 60;
+        Map<Key, long[]> grouped = new HashMap<>();
+        minutes.forEach((key, sums) -> {
+            if (key.minute() >= fromMinute && key.minute() < toMinute && matches(key, currency, status)) {
+                Key group = perMinute ? key : new Key(-1, key.currency(), key.status(), key.paymentMethod());
+                long[] values = grouped.computeIfAbsent(group, k -> new long[4]);
+                values[0] += sums.count.sum();
+                values[1] += sums.amountCents.sum();
+                values[2] += sums.feeCents.sum();
+                values[3] += sums.netCents.sum();
+            }
+        });
+        List<TransactionAggregateDto> rows = new ArrayList<>(grouped.size());
+        grouped.forEach((key, values) -> {
+            if (values[0] != 0) {
+                rows.add(toDto(perMinute ? Instant.ofEpochSecond(key.minute() * 60) : null,
+                        key, values[0], values[1], values[2], values[3]));
+            }
+        });
+        rows.sort(Comparator.comparing(TransactionAggregateDto::minute, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(TransactionAggregateDto::currency)
+                .thenComparing(TransactionAggregateDto::status)
+                .thenComparing(TransactionAggregateDto::paymentMethod, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    public long getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpiredMinutes() {
+        long oldest = currentMinute() - windowMinutes;
+        minutes.keySet().removeIf(key -> key.minute() <= oldest);
+    }
+
+    @Override
+    public void start() {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        // Streaming keeps memory flat however large the table is: MySQL only streams with this fetch size
+        boolean mysql = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")));
+        JdbcTemplate streaming = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        streaming.setFetchSize(mysql ? MYSQL_STREAMING_FETCH_SIZE : FETCH_SIZE);
+        streaming.query("""
+                        SELECT processed_at, currency, status, payment_method, amount, processing_fee, net_amount
+                        FROM transactions""",
+                (RowCallbackHandler) rs -> {
+                    // Bound as UTC by every writer, so read as UTC whatever the JVM's zone
+                    Timestamp processedAt = rs.getTimestamp(1, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+                    add(processedAt == null ? null : processedAt.toInstant(), rs.getString(2),
+                            status(rs.getString(3)), rs.getString(4), 1,
+                            cents(rs, 5), cents(rs, 6), cents(rs, 7));
+                    rows[0]++;
+                });
+        running = true;
+        log.info("Transaction aggregates rebuilt from {} rows in {} ms", rows[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Rebuilds before the ingestion workers and the web server start, so no commit is missed or counted twice
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private static boolean matches(Key key, String currency, TransactionStatus status) {
+        return (currency == null || currency.equals(key.currency())) && (status == null || status == key.status());
+    }
+
+    private static TransactionAggregateDto toDto(Instant minute, Key key, long count, long amountCents,
+                                                 long feeCents, long netCents) {
+        return new TransactionAggregateDto(minute, key.currency(), key.status(), key.paymentMethod(), count,
+                BigDecimal.valueOf(amountCents, 2), BigDecimal.valueOf(feeCents, 2), BigDecimal.valueOf(netCents, 2));
+    }
+
+    /**
+     * Cents as stored in a DECIMAL(18,2) column, which rounds half away from zero
+     */
+    private static long cents(BigDecimal value) {
+        return value == null ? 0 : value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long cents(ResultSet rs, int column) throws SQLException {
+        return cents(rs.getBigDecimal(column));
+    }
+
+    private static TransactionStatus status(String value) {
+        return value == null ? null : TransactionStatus.valueOf(value);
+    }
+
+    private static long currentMinute() {
+        return Instant.now().getEpochSecond() / 60;
+    }
+}
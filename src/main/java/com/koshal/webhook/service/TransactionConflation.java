@@ -0,0 +1,87 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the status updates of a batch into the one state per transaction that has to be written
+ * Updates are applied in event timestamp order, so events that arrive out of order settle the same way as in
+ * order. An update applies when it is not older than the transaction's current state and that state's status
+ * may move to its status. Several updates of one transaction collapse into the last one applied, which keeps
+ * the processed_at of the state it replaces, as the stored row does
+ */
+final class TransactionConflation {
+
+    enum Result {
+        APPLIED, SUPERSEDED, INVALID_TRANSITION
+    }
+
+    /**
+     * @param writes   the state to write per transaction, in order of first update
+     * @param previous stored states the writes replace, by transaction id
+     * @param results  what became of each update, by event id
+     */
+    record Plan(List<Transaction> writes, Map<String, Transaction> previous, Map<String, Result> results) {
+
+        long count(Result result) {
+            return results.values().stream().filter(result::equals).count();
+        }
+    }
+
+    private TransactionConflation() {
+    }
+
+    /**
+     * Whether next supersedes current, the transaction's state before it; a null current is a new transaction
+     */
+    static Result apply(Transaction current, Transaction next) {
+        if (current == null) {
+            return Result.APPLIED;
+        }
+        if (current.getEventTimestamp() != null && next.getEventTimestamp() != null
+                && next.getEventTimestamp().isBefore(current.getEventTimestamp())) {
+            return Result.SUPERSEDED;
+        }
+        return current.getStatus().canTransitionTo(next.getStatus()) ? Result.APPLIED : Result.INVALID_TRANSITION;
+    }
+
+    /**
+     * @param updates one transaction state per event
+     * @param stored  stored states of the transactions updated, by transaction id
+     */
+    static Plan plan(List<Transaction> updates, Map<String, Transaction> stored) {
+        List<Transaction> ordered = new ArrayList<>(updates);
+        // Stable, so updates with the same timestamp keep their arrival order
+        ordered.sort(Comparator.comparing(Transaction::getEventTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        Map<String, Transaction> current = new HashMap<>(stored);
+        Map<String, Transaction> writes = new LinkedHashMap<>();
+        Map<String, Result> results = new HashMap<>(updates.size() * 2);
+        for (Transaction update : ordered) {
+            Result result = apply(current.get(update.getTransactionId()), update);
+            results.put(update.getEventId(), result);
+            if (result == Result.APPLIED) {
+                Transaction replaced = current.get(update.getTransactionId());
+                if (replaced != null && replaced.getProcessedAt() != null) {
+                    update.setProcessedAt(replaced.getProcessedAt());
+                }
+                current.put(update.getTransactionId(), update);
+                writes.put(update.getTransactionId(), update);
+            }
+        }
+        Map<String, Transaction> previous = new HashMap<>();
+        for (String transactionId : writes.keySet()) {
+            Transaction state = stored.get(transactionId);
+            if (state != null) {
+                previous.put(transactionId, state);
+            }
+        }
+        return new Plan(List.copyOf(writes.values()), previous, results);
+    }
+}
@@ -0,0 +1,78 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.TransactionFilter;
+import com.koshal.webhook.dto.TransactionPageDto;
+import com.koshal.webhook.dto.TransactionSummaryDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Read side of the transaction query API
+ * The cursor is an opaque encoding of the (processed_at, id) of the last row on the page
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionQueryService {
+
+    private final TransactionRepository transactionRepository;
+
+    @Value("${webhook.query.max-page-size:500}")
+    private int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public TransactionPageDto findTransactions(TransactionFilter filter, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new ApiException("limit must be between 1 and " + maxPageSize, HttpStatus.BAD_REQUEST);
+        }
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new ApiException("from must be before to", HttpStatus.BAD_REQUEST);
+        }
+        Instant afterProcessedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor decoded = decode(cursor);
+            afterProcessedAt = decoded.processedAt();
+            afterId = decoded.id();
+        }
+
+        // One extra row tells whether another page follows
+        List<TransactionSummaryDto> rows = transactionRepository.findPage(filter, afterProcessedAt, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new TransactionPageDto(rows, null);
+        }
+        List<TransactionSummaryDto> page = rows.subList(0, limit);
+        TransactionSummaryDto last = page.get(limit - 1);
+        return new TransactionPageDto(page, encode(new Cursor(last.processedAt(), last.id())));
+    }
+
+    private record Cursor(Instant processedAt, long id) {
+    }
+
+    private static String encode(Cursor cursor) {
+        String key = cursor.processedAt().getEpochSecond() + ":" + cursor.processedAt().getNano() + ":" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected 3 cursor parts");
+            }
+            return new Cursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.koshal.webhook.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.koshal.webhook.dto.BatchItemResultDto;
+import com.koshal.webhook.dto.BatchItemResultDto.Result;
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.exception.GlobalExceptionHandler.RateLimitedException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Outcome;
+import com.koshal.webhook.model.enums.EventStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ingests many webhooks from one signed request body, either NDJSON or a JSON array
+ * The body is walked with the Jackson streaming parser, so only one chunk of items is held at a time.
+ * Items are validated individually, persisted in chunks and answered with one NDJSON result line each,
+ * in request order, flushed after every chunk
+ */
+@Slf4j
+@Service
+public class WebhookBatchIngestionService {
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter resultWriter;
+    private final WebhookPayloadReader payloadReader;
+    private final WebhookService webhookService;
+    private final SenderRateLimiter rateLimiter;
+    private final WebhookMetrics metrics;
+
+    @Value("${webhook.ingestion.batch-size:100}")
+    private int batchSize;
+
+    public WebhookBatchIngestionService(ObjectMapper mapper, WebhookPayloadReader payloadReader,
+                                        WebhookService webhookService, SenderRateLimiter rateLimiter,
+                                        WebhookMetrics metrics) {
+        this.mapper = mapper;
+        this.resultWriter = mapper.writerFor(BatchItemResultDto.class);
+        this.payloadReader = payloadReader;
+        this.webhookService = webhookService;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+    }
+
+    /**
+     * One batch item waiting for its result
+     */
+    private static final class Slot {
+        final int index;
+        final String eventId;
+        final IncomingWebhook webhook;
+        Result result;
+        String error;
+
+        Slot(int index, String eventId, IncomingWebhook webhook, Result result, String error) {
+            this.index = index;
+            this.eventId = eventId;
+            this.webhook = webhook;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Parses, persists and answers every item of the batch body; the signature must already be verified
+     */
+    public void ingest(byte[] body, OutputStream out) throws IOException {
+        List<Slot> chunk = new ArrayList<>(batchSize);
+        Set<String> seenEventIds = new HashSet<>();
+        int index = 0;
+
+        try (JsonParser parser = mapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                if (token == JsonToken.START_OBJECT) {
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.currentTokenLocation().getByteOffset() + 1;
+                    chunk.add(readItem(index, Arrays.copyOfRange(body, start, end), seenEventIds));
+                } else {
+                    parser.skipChildren();
+                    metrics.outcome(Outcome.VALIDATION_ERROR);
+                    chunk.add(new Slot(index, null, null, Result.INVALID, "Batch item must be a JSON object"));
+                }
+                if (chunk.size() >= batchSize) {
+                    flush(chunk, out);
+                }
+                index++;
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // The rest of the body cannot be tokenized; answer what was read and stop
+            metrics.outcome(Outcome.VALIDATION_ERROR);
+            chunk.add(new Slot(index, null, null, Result.INVALID, "Malformed JSON: " + e.getOriginalMessage()));
+        }
+        flush(chunk, out);
+    }
+
+    private Slot readItem(int index, byte[] rawItem, Set<String> seenEventIds) {
+        WebhookPayloadDto payload;
+        try {
+            payload = payloadReader.read(rawItem);
+        } catch (ApiException e) {
+            return new Slot(index, null, null, Result.INVALID, e.getMessage());
+        }
+        if (!seenEventIds.add(payload.getEventId())) {
+            metrics.outcome(Outcome.DUPLICATE);
+            return new Slot(index, payload.getEventId(), null, Result.DUPLICATE, null);
+        }
+        try {
+            rateLimiter.check(payload.getData().getSender().getId());
+        } catch (RateLimitedException e) {
+            return new Slot(index, payload.getEventId(), null, Result.RATE_LIMITED, e.getMessage());
+        }
+        return new Slot(index, payload.getEventId(), new IncomingWebhook(payload, rawItem), null, null);
+    }
+
+    private void flush(List<Slot> chunk, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        persist(chunk);
+        for (Slot slot : chunk) {
+            out.write(resultWriter.writeValueAsBytes(new BatchItemResultDto(slot.index, slot.eventId, slot.result, slot.error)));
+            out.write('\n');
+        }
+        out.flush();
+        chunk.clear();
+    }
+
+    private void persist(List<Slot> chunk) {
+        List<IncomingWebhook> webhooks = new ArrayList<>(chunk.size());
+        for (Slot slot : chunk) {
+            if (slot.webhook != null) {
+                webhooks.add(slot.webhook);
+            }
+        }
+        if (webhooks.isEmpty()) {
+            return;
+        }
+        try {
+            Set<String> stored = webhookService.processBatch(webhooks);
+            for (Slot slot : chunk) {
+                if (slot.webhook != null) {
+                    slot.result = stored.contains(slot.eventId) ? Result.OK : Result.DUPLICATE;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Batch chunk of {} webhooks failed, retrying one by one: {}", webhooks.size(), e.getMessage());
+            chunk.stream().filter(slot -> slot.webhook != null).forEach(this::persistOne);
+        }
+    }
+
+    private void persistOne(Slot slot) {
+        try {
+            slot.result = webhookService.processWebhook(slot.webhook) == EventStatus.FAILED ? Result.REPROCESSING : Result.OK;
+        } catch (ApiException e) {
+            if (e.getStatus() == HttpStatus.CONFLICT) {
+                slot.result = Result.DUPLICATE;
+            } else {
+                slot.result = Result.ERROR;
+                slot.error = e.getMessage();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to persist batch item {}", slot.eventId, e);
+            slot.result = Result.ERROR;
+            slot.error = "Webhook processing failed";
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.repository.WebhookEventStateRepository;
+import com.koshal.webhook.repository.WebhookEventStateRepository.StoredEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs failed webhook events again from their stored bodies
+ * Due events are claimed a batch at a time with FOR UPDATE SKIP LOCKED and run on a fixed pool, so recovery
+ * after an outage is bounded in parallelism however many events piled up, and several instances share the
+ * work. A failed attempt is retried with exponential backoff; after max-attempts the event stays FAILED with
+ * no next attempt, a dead letter, until it is replayed through the admin endpoint
+ */
+@Slf4j
+@Service
+public class WebhookEventReprocessor {
+
+    /**
+     * Events replayed and how they settled
+     */
+    public record ReplayResult(int replayed, int processed, int failed) {
+    }
+
+    private final WebhookService webhookService;
+    private final WebhookEventStateRepository eventStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final ExecutorService workers;
+    private final Counter processed;
+    private final Counter failed;
+
+    public WebhookEventReprocessor(WebhookService webhookService,
+                                   WebhookEventStateRepository eventStateRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${webhook.reprocess.enabled:true}") boolean enabled,
+                                   @Value("${webhook.reprocess.batch-size:100}") int batchSize,
+                                   @Value("${webhook.reprocess.threads:4}") int threads,
+                                   @Value("${webhook.reprocess.max-attempts:5}") int maxAttempts,
+                                   @Value("${webhook.reprocess.initial-backoff-seconds:30}") long initialBackoffSeconds,
+                                   @Value("${webhook.reprocess.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                                   @Value("${webhook.reprocess.lease-seconds:300}") long leaseSeconds) {
+        this.webhookService = webhookService;
+        this.eventStateRepository = eventStateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("webhook-reprocess-"));
+        this.processed = attempts(meterRegistry, "processed");
+        this.failed = attempts(meterRegistry, "failed");
+    }
+
+    private static Counter attempts(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("webhook.reprocess.attempts")
+                .description("Reprocessing attempts of stored events by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs every due event, a batch at a time, until none is left
+     */
+    @Scheduled(initialDelayString = "${webhook.reprocess.poll-ms:30000}", fixedDelayString = "${webhook.reprocess.poll-ms:30000}")
+    public void reprocessDue() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<StoredEvent> batch;
+            do {
+                Instant now = Instant.now();
+                batch = transactionTemplate.execute(
+                        status -> eventStateRepository.claimDue(now, now.plus(lease), batchSize));
+                if (!batch.isEmpty()) {
+                    ReplayResult result = run(batch);
+                    log.info("Reprocessed {} events: {} processed, {} failed",
+                            result.replayed(), result.processed(), result.failed());
+                }
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Event reprocessing failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs failed events received in [from, to) now, dead letters included, up to limit events
+     */
+    public ReplayResult replay(Instant from, Instant to, int limit) {
+        int replayed = 0;
+        int ok = 0;
+        long afterId = 0;
+        while (replayed < limit) {
+            long after = afterId;
+            int size = Math.min(batchSize, limit - replayed);
+            Instant now = Instant.now();
+            List<StoredEvent> batch = transactionTemplate.execute(
+                    status -> eventStateRepository.claimFailed(from, to, after, now.plus(lease), size));
+            if (batch.isEmpty()) {
+                break;
+            }
+            ok += run(batch).processed();
+            replayed += batch.size();
+            afterId = batch.get(batch.size() - 1).id();
+        }
+        log.info("Replayed {} failed events received from {} to {}: {} processed", replayed, from, to, ok);
+        return new ReplayResult(replayed, ok, replayed - ok);
+    }
+
+    private ReplayResult run(List<StoredEvent> batch) {
+        List<Future<Boolean>> results = new ArrayList<>(batch.size());
+        for (StoredEvent event : batch) {
+            results.add(workers.submit(() -> webhookService.reprocess(event, retryAt(event.attempts() + 1))));
+        }
+        int ok = 0;
+        for (Future<Boolean> result : results) {
+            if (succeeded(result)) {
+                processed.increment();
+                ok++;
+            } else {
+                failed.increment();
+            }
+        }
+        return new ReplayResult(batch.size(), ok, batch.size() - ok);
+    }
+
+    private static boolean succeeded(Future<Boolean> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // Recording the failure failed too; the claim lapses and the event is picked up again
+            log.error("Reprocessing attempt could not be recorded: {}", e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * When to try again after the given number of failed attempts, or null once they are used up
+     */
+    Instant retryAt(int attempts) {
+        if (attempts >= maxAttempts) {
+            return null;
+        }
+        Duration delay = attempts >= 31 ? maxBackoff : initialBackoff.multipliedBy(1L << (attempts - 1));
+        return Instant.now().plus(delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
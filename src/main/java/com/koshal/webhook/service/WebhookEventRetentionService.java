@@ -0,0 +1,289 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.model.enums.RetentionAction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes webhook_events older than the retention period
+ * On a partitioned table (see V7) whole day partitions are dropped or archived, which is a metadata
+ * change instead of a row-by-row DELETE, and day partitions are added ahead of time so new rows never
+ * land in p_max. Without partitioning, expired rows are deleted in small keyset chunks, each in its
+ * own short transaction. Transactions are kept, as they are the business record, and so is
+ * webhook_event_ids, which carries the global event_id unique key
+ */
+@Slf4j
+@Service
+public class WebhookEventRetentionService {
+
+    private static final String TABLE = "webhook_events";
+    // TO_DAYS('1970-01-01')
+    private static final long TO_DAYS_EPOCH = 719_528;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int retainDays;
+    private final int daysAhead;
+    private final RetentionAction action;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+
+    public WebhookEventRetentionService(JdbcTemplate jdbcTemplate,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${webhook.retention.enabled:true}") boolean enabled,
+                                        @Value("${webhook.retention.retain-days:90}") int retainDays,
+                                        @Value("${webhook.retention.days-ahead:7}") int daysAhead,
+                                        @Value("${webhook.retention.action:drop}") RetentionAction action,
+                                        @Value("${webhook.retention.chunk-size:1000}") int chunkSize,
+                                        @Value("${webhook.retention.chunk-pause-ms:50}") long chunkPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.retainDays = retainDays;
+        this.daysAhead = daysAhead;
+        this.action = action;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+
+    /**
+     * One range partition; upperBound is the exclusive day bound, null for MAXVALUE
+     */
+    record Partition(String name, LocalDate upperBound) {
+    }
+
+    /**
+     * Partitions to remove and day bounds to add for the given day
+     */
+    record Plan(List<Partition> expired, List<LocalDate> newBounds) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        List<Partition> partitions = partitions();
+        if (!partitions.isEmpty()) {
+            addPartitions(partitions, plan(partitions, today(), retainDays, daysAhead).newBounds());
+        }
+    }
+
+    @Scheduled(cron = "${webhook.retention.cron:0 15 3 * * *}", zone = "UTC")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = today();
+        List<Partition> partitions = partitions();
+        if (partitions.isEmpty()) {
+            deleteExpiredRows(today.minusDays(retainDays).atStartOfDay().toInstant(ZoneOffset.UTC));
+            return;
+        }
+        Plan plan = plan(partitions, today, retainDays, daysAhead);
+        for (Partition partition : plan.expired()) {
+            removePartition(partition);
+        }
+        addPartitions(partitions, plan.newBounds());
+    }
+
+    /**
+     * Expired partitions hold only rows before the cutoff day; p_max and the partition that
+     * contains the cutoff are never expired. New bounds extend the daily partitions to daysAhead
+     */
+    static Plan plan(List<Partition> partitions, LocalDate today, int retainDays, int daysAhead) {
+        LocalDate cutoff = today.minusDays(retainDays);
+        List<Partition> expired = new ArrayList<>();
+        LocalDate lastBound = null;
+        for (Partition partition : partitions) {
+            if (partition.upperBound() == null) {
+                continue;
+            }
+            if (!partition.upperBound().isAfter(cutoff)) {
+                expired.add(partition);
+            }
+            if (lastBound == null || partition.upperBound().isAfter(lastBound)) {
+                lastBound = partition.upperBound();
+            }
+        }
+        List<LocalDate> newBounds = new ArrayList<>();
+        LocalDate bound = lastBound == null ? today.plusDays(1) : lastBound.plusDays(1);
+        for (LocalDate last = today.plusDays(daysAhead + 1L); !bound.isAfter(last); bound = bound.plusDays(1)) {
+            newBounds.add(bound);
+        }
+        return new Plan(expired, newBounds);
+    }
+
+    private void removePartition(Partition partition) {
+        long start = System.nanoTime();
+        try {
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + TABLE + " PARTITION (" + partition.name() + ")", Long.class);
+            if (action == RetentionAction.ARCHIVE) {
+                String archive = TABLE + "_archive_" + partition.name();
+                jdbcTemplate.execute("CREATE TABLE " + archive + " LIKE " + TABLE);
+                jdbcTemplate.execute("ALTER TABLE " + archive + " REMOVE PARTITIONING");
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + partition.name()
+                        + " WITH TABLE " + archive);
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition.name());
+            recordPurge(action.name().toLowerCase(), start, rows == null ? 0 : rows);
+            log.info("Retention {} partition {} with {} rows (before {})",
+                    action == RetentionAction.ARCHIVE ? "archived" : "dropped", partition.name(), rows,
+                    partition.upperBound());
+        } catch (DataAccessException e) {
+            // Another instance may have handled it already; the next run retries what is left
+            log.warn("Retention failed for partition {}: {}", partition.name(), e.getMessage());
+        }
+    }
+
+    private void addPartitions(List<Partition> partitions, List<LocalDate> bounds) {
+        if (bounds.isEmpty()) {
+            return;
+        }
+        StringBuilder definitions = new StringBuilder();
+        for (LocalDate bound : bounds) {
+            definitions.append("PARTITION ").append(bound.minusDays(1).format(PARTITION_NAME))
+                    .append(" VALUES LESS THAN (").append(bound.toEpochDay() + TO_DAYS_EPOCH).append("), ");
+        }
+        Partition max = partitions.get(partitions.size() - 1);
+        String sql;
+        if (max.upperBound() == null) {
+            // p_max is empty while partitions are added ahead of time, so splitting it copies no rows
+            sql = "ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + max.name() + " INTO ("
+                    + definitions + "PARTITION " + max.name() + " VALUES LESS THAN MAXVALUE)";
+        } else {
+            sql = "ALTER TABLE " + TABLE + " ADD PARTITION ("
+                    + definitions.substring(0, definitions.length() - 2) + ")";
+        }
+        try {
+            jdbcTemplate.execute(sql);
+            log.info("Added {} webhook_events partitions up to {}", bounds.size(), bounds.get(bounds.size() - 1));
+        } catch (DataAccessException e) {
+            log.warn("Could not add webhook_events partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes rows received before the cutoff in chunks walked by (received_at, id)
+     * received_at holds UTC, so the cutoff and the walk position are bound and read through a UTC calendar
+     */
+    private void deleteExpiredRows(Instant cutoff) {
+        long start = System.nanoTime();
+        long deleted = 0;
+        Instant lastReceivedAt = Instant.EPOCH;
+        long lastId = 0;
+        try {
+            while (true) {
+                Instant afterReceivedAt = lastReceivedAt;
+                long afterId = lastId;
+                List<Object[]> keys = jdbcTemplate.query(
+                        "SELECT id, received_at FROM " + TABLE
+                                + " WHERE received_at < ? AND (received_at > ? OR (received_at = ? AND id > ?))"
+                                + " ORDER BY received_at, id LIMIT ?",
+                        ps -> {
+                            ps.setTimestamp(1, Timestamp.from(cutoff), utc());
+                            ps.setTimestamp(2, Timestamp.from(afterReceivedAt), utc());
+                            ps.setTimestamp(3, Timestamp.from(afterReceivedAt), utc());
+                            ps.setLong(4, afterId);
+                            ps.setInt(5, chunkSize);
+                        },
+                        (rs, i) -> new Object[]{rs.getLong(1), rs.getTimestamp(2, utc()).toInstant()});
+                if (keys.isEmpty()) {
+                    break;
+                }
+                Object[] ids = keys.stream().map(key -> key[0]).toArray();
+                String placeholders = String.join(",", Collections.nCopies(ids.length, "?"));
+                Integer rows = transactionTemplate.execute(status ->
+                        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id IN (" + placeholders + ")", ids));
+                deleted += rows == null ? 0 : rows;
+                Object[] last = keys.get(keys.size() - 1);
+                lastId = (Long) last[0];
+                lastReceivedAt = (Instant) last[1];
+                if (keys.size() < chunkSize) {
+                    break;
+                }
+                // Leave room for ingestion between chunks
+                Thread.sleep(chunkPauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            log.warn("Retention delete stopped after {} rows: {}", deleted, e.getMessage());
+        }
+        recordPurge("delete", start, deleted);
+        if (deleted > 0) {
+            log.info("Retention deleted {} webhook_events received before {}", deleted, cutoff);
+        }
+    }
+
+    /**
+     * Range partitions of webhook_events in order; empty when the table is not partitioned
+     * or the database has no MySQL information_schema.PARTITIONS
+     */
+    private List<Partition> partitions() {
+        try {
+            return jdbcTemplate.query("""
+                            SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS
+                            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+                            ORDER BY PARTITION_ORDINAL_POSITION""",
+                    (rs, i) -> {
+                        String bound = rs.getString(2);
+                        return new Partition(rs.getString(1), "MAXVALUE".equals(bound) ? null
+                                : LocalDate.ofEpochDay(Long.parseLong(bound) - TO_DAYS_EPOCH));
+                    },
+                    TABLE);
+        } catch (DataAccessException e) {
+            log.debug("No partition metadata for {}: {}", TABLE, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void recordPurge(String method, long start, long rows) {
+        Timer.builder("webhook.retention.purge")
+                .description("Time to remove expired webhook events")
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Counter.builder("webhook.retention.rows")
+                .description("Webhook events removed by retention")
+                .tag("method", method)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
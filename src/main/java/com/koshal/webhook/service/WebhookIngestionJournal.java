@@ -0,0 +1,307 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.journal.Journal;
+import com.koshal.webhook.journal.Journal.JournalFullException;
+import com.koshal.webhook.journal.JournalEntry;
+import com.koshal.webhook.model.enums.EventStatus;
+import com.koshal.webhook.model.enums.IngestionMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Durable ingestion used by the journal mode
+ * Verified bodies are appended to a local {@link Journal} and acknowledged once they are forced to disk.
+ * One applier thread replays the journal into the database through {@link WebhookService} and checkpoints
+ * after every applied batch. Records the database could not store are kept and retried with backoff, and the
+ * checkpoint stops before the first of them, as they were already acknowledged. Records after the last
+ * checkpoint are replayed again on startup; event_id deduplication makes that replay harmless
+ */
+@Slf4j
+@Service
+public class WebhookIngestionJournal implements SmartLifecycle {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final WebhookService webhookService;
+    private final WebhookPayloadReader payloadReader;
+    private final MeterRegistry meterRegistry;
+    private final IngestionMode mode;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final long appendTimeoutMillis;
+    private final int batchSize;
+    private final long shutdownTimeoutSeconds;
+
+    private final Timer append;
+    private final Counter rejected;
+    private final Counter applied;
+    private final Counter reprocessing;
+    private final Counter dropped;
+
+    private Journal journal;
+    private Thread applier;
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    public WebhookIngestionJournal(WebhookService webhookService,
+                                   WebhookPayloadReader payloadReader,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${webhook.ingestion.mode:sync}") IngestionMode mode,
+                                   @Value("${webhook.journal.directory:./data/journal}") Path directory,
+                                   @Value("${webhook.journal.segment-bytes:67108864}") int segmentBytes,
+                                   @Value("${webhook.journal.max-segments:16}") int maxSegments,
+                                   @Value("${webhook.journal.append-timeout-ms:5000}") long appendTimeoutMillis,
+                                   @Value("${webhook.ingestion.batch-size:100}") int batchSize,
+                                   @Value("${webhook.ingestion.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.webhookService = webhookService;
+        this.payloadReader = payloadReader;
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.appendTimeoutMillis = appendTimeoutMillis;
+        this.batchSize = batchSize;
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+
+        this.append = Timer.builder("webhook.journal.append")
+                .description("Time to append a webhook and wait for the group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("webhook.journal.rejected")
+                .description("Webhooks rejected because the journal was full, failed or too slow")
+                .register(meterRegistry);
+        this.applied = Counter.builder("webhook.journal.applied")
+                .description("Journal records applied to the database")
+                .register(meterRegistry);
+        this.reprocessing = Counter.builder("webhook.journal.reprocessing")
+                .description("Journal records that failed to process and were stored for reprocessing")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("webhook.journal.dropped")
+                .description("Journal records skipped because their body no longer parses")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Appends a verified body and returns once it is durable
+     *
+     * @throws ApiException with 503 when the journal is full, closed or did not force in time
+     */
+    public void append(byte[] rawBody) {
+        if (!accepting) {
+            rejected.increment();
+            throw new ApiException("Webhook journal is not accepting, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        long start = System.nanoTime();
+        try {
+            journal.append(rawBody, appendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (JournalFullException e) {
+            rejected.increment();
+            log.warn("Rejected webhook: {}", e.getMessage());
+            throw new ApiException("Webhook journal is full, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (TimeoutException e) {
+            // The record may still be applied; the sender's retry is deduplicated by event_id
+            rejected.increment();
+            throw new ApiException("Webhook journal did not sync in time, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IOException e) {
+            rejected.increment();
+            log.error("Webhook journal append failed", e);
+            throw new ApiException("Webhook journal unavailable, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted while writing the webhook journal", HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            append.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (mode != IngestionMode.JOURNAL) {
+            return;
+        }
+        try {
+            journal = Journal.open(directory, segmentBytes, maxSegments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open webhook journal in " + directory, e);
+        }
+        Gauge.builder("webhook.journal.lag", journal, j -> j.getDurableSequence() - j.getCheckpointSequence())
+                .description("Durable journal records not yet applied to the database")
+                .register(meterRegistry);
+        Gauge.builder("webhook.journal.segments", journal, Journal::getSegmentCount)
+                .description("Journal segments holding unapplied records")
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.journal.forces", journal, Journal::getForceCount)
+                .description("Journal group commits; appends divided by forces is the group size")
+                .register(meterRegistry);
+
+        Journal.Reader reader = journal.reader(journal.getCheckpointSequence());
+        running = true;
+        accepting = true;
+        applier = new Thread(() -> applyLoop(reader), "webhook-journal-applier");
+        applier.start();
+        log.info("Journal ingestion started in {}: checkpoint {}, last record {}",
+                directory.toAbsolutePath(), journal.getCheckpointSequence(), journal.getLastSequence());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        running = false;
+        log.info("Draining webhook journal: {} records pending",
+                journal.getDurableSequence() - journal.getCheckpointSequence());
+        try {
+            applier.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+            if (applier.isAlive()) {
+                // Whatever is left is replayed on the next start
+                log.warn("Journal not drained within {}s, {} records left for the next start", shutdownTimeoutSeconds,
+                        journal.getDurableSequence() - journal.getCheckpointSequence());
+                applier.interrupt();
+                applier.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close webhook journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server, so no request can
+     * append once the final drain has begun
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void applyLoop(Journal.Reader reader) {
+        long backoff = POLL_INTERVAL_MILLIS;
+        List<JournalEntry> entries = new ArrayList<>(batchSize);
+        long batchEnd = 0;
+        try {
+            while (true) {
+                if (entries.isEmpty()) {
+                    if (!journal.awaitRecordsAfter(reader.lastReadSequence(), POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (!running) {
+                            return;
+                        }
+                        continue;
+                    }
+                    entries.addAll(reader.poll(batchSize));
+                    if (entries.isEmpty()) {
+                        continue;
+                    }
+                    batchEnd = entries.get(entries.size() - 1).sequence();
+                }
+                List<JournalEntry> failed = apply(entries);
+                if (failed.isEmpty()) {
+                    journal.checkpoint(batchEnd);
+                    entries.clear();
+                    backoff = POLL_INTERVAL_MILLIS;
+                } else {
+                    // Most likely the database is down; keep what failed and retry it before reading further
+                    journal.checkpoint(failed.get(0).sequence() - 1);
+                    if (failed.size() < entries.size()) {
+                        backoff = POLL_INTERVAL_MILLIS;
+                    }
+                    entries.clear();
+                    entries.addAll(failed);
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Journal applier stopped, records after checkpoint {} are replayed on the next start",
+                    journal.getCheckpointSequence(), e);
+        }
+    }
+
+    /**
+     * Applies one batch of records
+     *
+     * @return the records the database could not store, in sequence order, to be retried later
+     */
+    private List<JournalEntry> apply(List<JournalEntry> entries) {
+        List<IncomingWebhook> webhooks = new ArrayList<>(entries.size());
+        List<JournalEntry> parsed = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) {
+            try {
+                webhooks.add(new IncomingWebhook(payloadReader.read(entry.body()), entry.body()));
+                parsed.add(entry);
+            } catch (ApiException e) {
+                // Bodies are validated before they are journaled, so this only happens after a validation change
+                dropped.increment();
+                log.error("Dropping journal record {}: {}", entry.sequence(), e.getMessage());
+            }
+        }
+        if (webhooks.isEmpty()) {
+            return List.of();
+        }
+        try {
+            Set<String> stored = webhookService.processBatch(webhooks);
+            applied.increment(stored.size());
+            return List.of();
+        } catch (RuntimeException e) {
+            log.warn("Journal batch of {} webhooks failed, retrying one by one: {}", webhooks.size(), e.getMessage());
+        }
+
+        List<JournalEntry> failures = new ArrayList<>();
+        for (int i = 0; i < webhooks.size(); i++) {
+            IncomingWebhook webhook = webhooks.get(i);
+            try {
+                if (webhookService.processWebhook(webhook) == EventStatus.FAILED) {
+                    reprocessing.increment();
+                } else {
+                    applied.increment();
+                }
+            } catch (ApiException e) {
+                // Processing errors come back as FAILED, so anything else but a duplicate was not stored at all
+                if (e.getStatus() != HttpStatus.CONFLICT) {
+                    failures.add(parsed.get(i));
+                }
+            } catch (RuntimeException e) {
+                failures.add(parsed.get(i));
+            }
+        }
+        if (!failures.isEmpty()) {
+            log.warn("{} of {} journal records could not be stored, retrying from record {}",
+                    failures.size(), webhooks.size(), failures.get(0).sequence());
+        }
+        return failures;
+    }
+}
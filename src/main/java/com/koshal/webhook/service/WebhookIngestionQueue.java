@@ -0,0 +1,202 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.model.enums.EventStatus;
+import com.koshal.webhook.model.enums.IngestionMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory queue used by the async ingestion mode
+ * Requests are acknowledged once enqueued, a pool of writer threads drains the queue
+ * and persists webhooks in batches. On shutdown the queue stops accepting and is drained
+ */
+@Slf4j
+@Service
+public class WebhookIngestionQueue implements SmartLifecycle {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final WebhookService webhookService;
+    private final IngestionMode mode;
+    private final int batchSize;
+    private final int writerThreads;
+    private final long shutdownTimeoutSeconds;
+
+    private final BlockingQueue<IncomingWebhook> queue;
+    private final Counter rejected;
+    private final Counter persisted;
+    private final Counter reprocessing;
+    private final Counter failed;
+    private final Timer batchWrite;
+
+    private ExecutorService writers;
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    public WebhookIngestionQueue(WebhookService webhookService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${webhook.ingestion.mode:sync}") IngestionMode mode,
+                                 @Value("${webhook.ingestion.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${webhook.ingestion.batch-size:100}") int batchSize,
+                                 @Value("${webhook.ingestion.writer-threads:4}") int writerThreads,
+                                 @Value("${webhook.ingestion.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.webhookService = webhookService;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.writerThreads = writerThreads;
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("webhook.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Webhooks waiting to be persisted")
+                .register(meterRegistry);
+        Gauge.builder("webhook.ingestion.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Free slots in the ingestion queue")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("webhook.ingestion.queue.rejected")
+                .description("Webhooks rejected because the queue was full")
+                .register(meterRegistry);
+        this.persisted = Counter.builder("webhook.ingestion.persisted")
+                .description("Webhooks persisted by the batch writers")
+                .register(meterRegistry);
+        this.reprocessing = Counter.builder("webhook.ingestion.reprocessing")
+                .description("Webhooks that failed to process and were stored for reprocessing")
+                .register(meterRegistry);
+        this.failed = Counter.builder("webhook.ingestion.failed")
+                .description("Webhooks the batch writers could not persist")
+                .register(meterRegistry);
+        this.batchWrite = Timer.builder("webhook.ingestion.batch.write")
+                .description("Time to persist one batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a verified webhook for persistence
+     *
+     * @throws ApiException with 503 when the queue is full or shutting down
+     */
+    public void enqueue(IncomingWebhook webhook) {
+        if (!accepting || !queue.offer(webhook)) {
+            rejected.increment();
+            throw new ApiException("Webhook ingestion queue is full, retry later", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (mode != IngestionMode.ASYNC) {
+            return;
+        }
+        writers = Executors.newFixedThreadPool(writerThreads, new CustomizableThreadFactory("webhook-writer-"));
+        running = true;
+        accepting = true;
+        for (int i = 0; i < writerThreads; i++) {
+            writers.submit(this::drainLoop);
+        }
+        log.info("Async ingestion started: {} writers, batch size {}, queue capacity {}",
+                writerThreads, batchSize, queue.remainingCapacity());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        running = false;
+        log.info("Draining ingestion queue: {} webhooks pending", queue.size());
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                log.error("Ingestion queue not drained within {}s, {} webhooks left", shutdownTimeoutSeconds, queue.size());
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writers.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server, so no request can
+     * enqueue once the final drain has begun
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<IncomingWebhook> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                IncomingWebhook first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<IncomingWebhook> batch) {
+        try {
+            Set<String> stored = batchWrite.recordCallable(() -> webhookService.processBatch(batch));
+            persisted.increment(stored.size());
+        } catch (Exception e) {
+            log.warn("Batch of {} webhooks failed, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(IncomingWebhook webhook) {
+        try {
+            if (webhookService.processWebhook(webhook) == EventStatus.FAILED) {
+                reprocessing.increment();
+            } else {
+                persisted.increment();
+            }
+        } catch (ApiException e) {
+            if (e.getStatus() == HttpStatus.CONFLICT) {
+                log.warn("Dropping duplicate event: {}", webhook.eventId());
+            } else {
+                failed.increment();
+                log.error("Failed to persist event {}: {}", webhook.eventId(), e.getMessage());
+            }
+        }
+    }
+}
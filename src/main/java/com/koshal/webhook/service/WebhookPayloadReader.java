@@ -0,0 +1,66 @@
+package com.koshal.webhook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Outcome;
+import com.koshal.webhook.metrics.WebhookMetrics.Stage;
+import com.koshal.webhook.validation.WebhookPayloadDeserializer;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Binds and validates webhook payloads straight from the cached request body
+ * Jackson parses the same byte[] the signature was verified on, without an intermediate stream or copy, and
+ * WebhookPayloadDeserializer checks each field as it is read, so there is no separate Bean Validation pass
+ */
+@Component
+public class WebhookPayloadReader {
+
+    private final ObjectReader payloadReader;
+    private final WebhookMetrics metrics;
+
+    public WebhookPayloadReader(ObjectMapper mapper, Validator validator, WebhookMetrics metrics) {
+        // Registered on a copy, so other users of the mapper bind WebhookPayloadDto without the checks
+        this.payloadReader = mapper.copy()
+                .registerModule(new SimpleModule()
+                        .addDeserializer(WebhookPayloadDto.class, new WebhookPayloadDeserializer(validator)))
+                .readerFor(WebhookPayloadDto.class);
+        this.metrics = metrics;
+    }
+
+    /**
+     * @throws ApiException with 400 when the body is not a valid webhook payload; a field that breaks its
+     *                      constraint is reported as "field: message", the format GlobalExceptionHandler uses
+     *                      for @Valid request bodies
+     */
+    public WebhookPayloadDto read(byte[] body) {
+        WebhookPayloadDto payload;
+        long start = WebhookMetrics.start();
+        try {
+            payload = payloadReader.readValue(body);
+        } catch (ApiException e) {
+            metrics.outcome(Outcome.VALIDATION_ERROR);
+            throw e;
+        } catch (JsonProcessingException e) {
+            metrics.outcome(Outcome.VALIDATION_ERROR);
+            throw new ApiException("Malformed webhook payload: " + e.getOriginalMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            metrics.outcome(Outcome.VALIDATION_ERROR);
+            throw new ApiException("Malformed webhook payload", HttpStatus.BAD_REQUEST);
+        }
+        if (payload == null) {
+            metrics.outcome(Outcome.VALIDATION_ERROR);
+            throw new ApiException("Invalid request", HttpStatus.BAD_REQUEST);
+        }
+        metrics.record(Stage.BINDING, start);
+        return payload;
+    }
+}
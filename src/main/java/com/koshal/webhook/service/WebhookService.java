@@ -1,75 +1,378 @@
 package com.koshal.webhook.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koshal.webhook.codec.PayloadCodec;
+import com.koshal.webhook.codec.PayloadCodecs;
+import com.koshal.webhook.dto.IncomingWebhook;
 import com.koshal.webhook.dto.WebhookPayloadDto;
 import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Outcome;
+import com.koshal.webhook.metrics.WebhookMetrics.Stage;
 import com.koshal.webhook.model.Transaction;
 import com.koshal.webhook.model.WebhookEvent;
 import com.koshal.webhook.model.enums.EventStatus;
 import com.koshal.webhook.model.enums.TransactionStatus;
-import com.koshal.webhook.repository.TransactionRepository;
+import com.koshal.webhook.repository.TransactionUpsertRepository;
+import com.koshal.webhook.repository.WebhookEventIdRepository;
 import com.koshal.webhook.repository.WebhookEventRepository;
+import com.koshal.webhook.repository.WebhookEventStateRepository;
+import com.koshal.webhook.repository.WebhookEventStateRepository.StoredEvent;
+import com.koshal.webhook.service.TransactionConflation.Plan;
+import com.koshal.webhook.service.TransactionConflation.Result;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class WebhookService {
 
-    private final TransactionRepository transactionRepository;
+    private final TransactionUpsertRepository transactionUpsertRepository;
     private final WebhookEventRepository webhookEventRepository;
-    private final ObjectMapper mapper;
+    private final WebhookEventIdRepository eventIdRepository;
+    private final EventIdDeduplicator deduplicator;
+    private final PayloadCodecs payloadCodecs;
+    private final WebhookMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionAggregates aggregates;
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final FeeCalculator feeCalculator;
+    private final OutboundDispatcher outboundDispatcher;
+    private final WebhookEventStateRepository eventStateRepository;
+    private final WebhookPayloadReader payloadReader;
 
-    @Transactional
-    public void processWebhook(WebhookPayloadDto payload) {
+    @Value("${webhook.reprocess.initial-backoff-seconds:30}")
+    private long reprocessBackoffSeconds;
+
+    /**
+     * Persists one webhook
+     *
+     * The duplicate lookup runs before the write transaction, and the write transaction starts with the
+     * saves. Connections are acquired lazily, so the event save allocates its id before this request holds
+     * a connection. Refilling an id block takes a second, isolated connection. A request that already held
+     * one while waiting for the refill could starve the pool once every connection was held that way. The
+     * event id is inserted into webhook_event_ids in the same transaction, which refuses an event stored
+     * before, or being stored concurrently, with 409.
+     * The transaction's current state is then read with a lock, so concurrent updates of one transaction
+     * plan one after the other and the aggregates, outcomes and outbox follow what the table took. Two first
+     * events of one transaction can deadlock on the gap lock of that read; the loser runs once more.
+     * A status update that does not supersede the stored state is stored as an event only; the state written
+     * is appended to the outbox in the same transaction, for OutboundDispatcher to publish.
+     * A webhook that fails is stored as FAILED for WebhookEventReprocessor to run again, so it is not lost
+     * when the sender does not retry
+     *
+     * @return PROCESSED, or FAILED when processing failed and the event was stored for reprocessing
+     * @throws ApiException with 409 for a duplicate, or 500 when the event could not be stored at all
+     */
+    public EventStatus processWebhook(IncomingWebhook webhook) {
+        WebhookPayloadDto payload = webhook.payload();
         try {
-            // Idempotency check
-            webhookEventRepository.findByEventId(payload.getEventId()).ifPresent(e -> {
-                throw new ApiException("Duplicate event: " + payload.getEventId(), HttpStatus.CONFLICT);
-            });
+            // Idempotency check, only possible duplicates reach the database
+            long start = WebhookMetrics.start();
+            boolean duplicate = isDuplicate(payload.getEventId());
+            metrics.record(Stage.IDEMPOTENCY, start);
+            if (duplicate) {
+                throw duplicateEvent(payload.getEventId());
+            }
 
-            webhookEventRepository.save(WebhookEvent.builder()
-                    .eventId(payload.getEventId())
-                    .payload(mapper.writeValueAsString(payload))
-                    .status(EventStatus.RECEIVED)
-                    .receivedAt(Instant.now())
-                    .build());
-
-            var data = payload.getData();
-
-            BigDecimal processingFee = data.getAmount().multiply(BigDecimal.valueOf(0.02));
-            BigDecimal netAmount = data.getAmount().subtract(processingFee);
-
-            Transaction transaction = Transaction.builder()
-                    .eventId(payload.getEventId())
-                    .transactionId(data.getTransactionId())
-                    .amount(data.getAmount())
-                    .currency(data.getCurrency())
-                    .senderId(data.getSender().getId())
-                    .senderName(data.getSender().getName())
-                    .senderCountry(data.getSender().getCountry())
-                    .receiverId(data.getReceiver().getId())
-                    .receiverName(data.getReceiver().getName())
-                    .receiverCountry(data.getReceiver().getCountry())
-                    .paymentMethod(data.getPaymentMethod())
-                    .status(TransactionStatus.valueOf(data.getStatus().toUpperCase()))
-                    .processingFee(processingFee)
-                    .netAmount(netAmount)
-                    .exchangeRate(BigDecimal.ONE)
-                    .processedAt(Instant.now())
-                    .build();
-
-            transactionRepository.save(transaction);
+            Transaction transaction = toTransaction(payload);
+            Plan plan;
+            try {
+                plan = write(webhook, transaction);
+            } catch (PessimisticLockingFailureException e) {
+                log.debug("Writing event {} lost a lock conflict, running it again: {}", payload.getEventId(), e.getMessage());
+                plan = write(webhook, transaction);
+            }
+            aggregates.remove(plan.previous().values());
+            aggregates.add(plan.writes());
+            metrics.outcome(outcome(plan.results().get(payload.getEventId())));
+            return EventStatus.PROCESSED;
 
+        } catch (DuplicateKeyException e) {
+            deduplicator.record(payload.getEventId());
+            throw duplicateEvent(payload.getEventId());
         } catch (ApiException ex) {
             throw ex;
         } catch (Exception e) {
-            throw new ApiException("Webhook processing failed: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            metrics.outcome(Outcome.ERROR);
+            return storeFailed(webhook, e);
         }
     }
+
+    /**
+     * Stores the event and the transaction state it supersedes in one transaction, and returns the plan the
+     * write followed
+     */
+    private Plan write(IncomingWebhook webhook, Transaction transaction) {
+        WebhookEvent event = toWebhookEvent(webhook, EventStatus.PROCESSED);
+        return transactionTemplate.execute(status -> {
+            long stageStart = WebhookMetrics.start();
+            webhookEventRepository.save(event);
+            eventIdRepository.insert(event.getEventId(), event.getReceivedAt());
+            metrics.record(Stage.EVENT_SAVE, stageStart);
+            stageStart = WebhookMetrics.start();
+            Plan plan = TransactionConflation.plan(List.of(transaction),
+                    transactionUpsertRepository.lockStates(List.of(transaction.getTransactionId())));
+            transactionUpsertRepository.upsert(plan.writes());
+            outboundDispatcher.capture(plan.writes());
+            metrics.record(Stage.TRANSACTION_SAVE, stageStart);
+            // Event ids are pooled, so its insert is deferred; flush here to surface constraint errors
+            stageStart = WebhookMetrics.start();
+            webhookEventRepository.flush();
+            metrics.record(Stage.FLUSH, stageStart);
+            deduplicator.recordAfterCommit(webhook.eventId());
+            return plan;
+        });
+    }
+
+    /**
+     * Stores the event alone as FAILED, in a new transaction since the one that failed was rolled back
+     */
+    private EventStatus storeFailed(IncomingWebhook webhook, Exception cause) {
+        log.error("Processing event {} failed, storing it for reprocessing: {}", webhook.eventId(), cause.getMessage());
+        WebhookEvent event = toWebhookEvent(webhook, EventStatus.FAILED);
+        event.setLastError(describe(cause));
+        event.setNextAttemptAt(Instant.now().plusSeconds(reprocessBackoffSeconds));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                webhookEventRepository.save(event);
+                eventIdRepository.insert(event.getEventId(), event.getReceivedAt());
+                webhookEventRepository.flush();
+                deduplicator.recordAfterCommit(webhook.eventId());
+            });
+            return EventStatus.FAILED;
+        } catch (DuplicateKeyException e) {
+            // Stored by a concurrent request while this one was failing
+            deduplicator.record(webhook.eventId());
+            throw duplicateEvent(webhook.eventId());
+        } catch (RuntimeException e) {
+            log.error("Could not store failed event {}: {}", webhook.eventId(), e.getMessage());
+            throw new ApiException("Webhook processing failed: " + cause.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Runs an event claimed by WebhookEventReprocessor again from its stored body
+     * The event row is settled in the transaction that writes the transaction, so a processed event is never
+     * left marked as failed; a failed attempt is recorded in a transaction of its own. Either settle applies only
+     * while the event still holds this claim: once the lease lapsed and another claimant took the event, the
+     * write transaction is rolled back and the outcome is left to that claimant
+     *
+     * @param retryAt when to try again should this attempt fail, or null to give up on the event then
+     * @return whether the event was processed
+     */
+    public boolean reprocess(StoredEvent event, Instant retryAt) {
+        try {
+            byte[] body = payloadCodecs.forName(event.payloadCodec()).decode(event.rawPayload());
+            Transaction transaction = toTransaction(payloadReader.read(body));
+            Plan plan = transactionTemplate.execute(status -> {
+                Plan locked = TransactionConflation.plan(List.of(transaction),
+                        transactionUpsertRepository.lockStates(List.of(transaction.getTransactionId())));
+                transactionUpsertRepository.upsert(locked.writes());
+                outboundDispatcher.capture(locked.writes());
+                if (!eventStateRepository.markProcessed(event)) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+                return locked;
+            });
+            if (plan == null) {
+                log.warn("Claim on event {} lapsed before it was processed; left to its new claimant", event.eventId());
+                return false;
+            }
+            aggregates.remove(plan.previous().values());
+            aggregates.add(plan.writes());
+            return true;
+        } catch (Exception e) {
+            log.warn("Reprocessing event {} failed, attempt {}: {}", event.eventId(), event.attempts() + 1, e.getMessage());
+            Boolean recorded = transactionTemplate.execute(
+                    status -> eventStateRepository.markFailed(event, describe(e), retryAt));
+            if (!Boolean.TRUE.equals(recorded)) {
+                log.warn("Claim on event {} lapsed before its failure was recorded", event.eventId());
+            }
+            return false;
+        }
+    }
+
+    private static String describe(Exception e) {
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return error.length() <= 1024 ? error : error.substring(0, 1024);
+    }
+
+    /**
+     * Persists a batch of webhooks in a single transaction
+     * Events already stored, or repeated within the batch, are skipped. Status updates of one transaction
+     * within the batch are merged, so its row is written once with the final state.
+     * As in {@link #processWebhook}, the stored-id lookup runs before the write transaction and the states
+     * are read with a lock inside it
+     *
+     * @return event ids of the webhooks persisted
+     */
+    public Set<String> processBatch(List<IncomingWebhook> webhooks) {
+        try {
+            Set<String> seen = new HashSet<>();
+            List<String> possibleDuplicates = new ArrayList<>();
+            for (IncomingWebhook webhook : webhooks) {
+                switch (deduplicator.check(webhook.eventId())) {
+                    case DUPLICATE -> seen.add(webhook.eventId());
+                    case POSSIBLE_DUPLICATE -> possibleDuplicates.add(webhook.eventId());
+                    case NEW -> { }
+                }
+            }
+            if (!possibleDuplicates.isEmpty()) {
+                seen.addAll(eventIdRepository.findExisting(possibleDuplicates));
+            }
+
+            List<WebhookEvent> events = new ArrayList<>(webhooks.size());
+            List<Transaction> transactions = new ArrayList<>(webhooks.size());
+            Set<String> transactionIds = new HashSet<>();
+            for (IncomingWebhook webhook : webhooks) {
+                if (!seen.add(webhook.eventId())) {
+                    log.warn("Skipping duplicate event in batch: {}", webhook.eventId());
+                    continue;
+                }
+                events.add(toWebhookEvent(webhook, EventStatus.PROCESSED));
+                Transaction transaction = toTransaction(webhook.payload());
+                transactions.add(transaction);
+                transactionIds.add(transaction.getTransactionId());
+            }
+
+            Plan plan = transactionTemplate.execute(status -> {
+                // Event inserts go out as one JDBC batch on flush, transactions as one upsert batch per status
+                webhookEventRepository.saveAll(events);
+                // A repeat stored concurrently fails the batch, and callers retry it one by one to answer 409
+                eventIdRepository.insertAll(events.stream().map(WebhookEvent::getEventId).toList(), Instant.now());
+                Plan locked = TransactionConflation.plan(transactions, transactionUpsertRepository.lockStates(transactionIds));
+                transactionUpsertRepository.upsert(locked.writes());
+                outboundDispatcher.capture(locked.writes());
+                webhookEventRepository.flush();
+                events.forEach(event -> deduplicator.recordAfterCommit(event.getEventId()));
+                return locked;
+            });
+            aggregates.remove(plan.previous().values());
+            aggregates.add(plan.writes());
+            Set<String> persisted = new HashSet<>(events.size() * 2);
+            for (WebhookEvent event : events) {
+                persisted.add(event.getEventId());
+            }
+            long superseded = plan.count(Result.SUPERSEDED);
+            long invalid = plan.count(Result.INVALID_TRANSITION);
+            metrics.outcome(Outcome.ACCEPTED, (int) (events.size() - superseded - invalid));
+            metrics.outcome(Outcome.SUPERSEDED, (int) superseded);
+            metrics.outcome(Outcome.INVALID_TRANSITION, (int) invalid);
+            metrics.outcome(Outcome.DUPLICATE, webhooks.size() - events.size());
+            metrics.conflated(events.size() - superseded - invalid - plan.writes().size());
+            return persisted;
+
+        } catch (Exception e) {
+            throw new ApiException("Webhook batch processing failed: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private boolean isDuplicate(String eventId) {
+        return switch (deduplicator.check(eventId)) {
+            case NEW -> false;
+            case DUPLICATE -> true;
+            case POSSIBLE_DUPLICATE -> {
+                boolean exists = eventIdRepository.exists(eventId);
+                if (exists) {
+                    deduplicator.record(eventId);
+                }
+                yield exists;
+            }
+        };
+    }
+
+    private ApiException duplicateEvent(String eventId) {
+        metrics.outcome(Outcome.DUPLICATE);
+        return new ApiException("Duplicate event: " + eventId, HttpStatus.CONFLICT);
+    }
+
+    private static Outcome outcome(Result result) {
+        return switch (result) {
+            case APPLIED -> Outcome.ACCEPTED;
+            case SUPERSEDED -> Outcome.SUPERSEDED;
+            case INVALID_TRANSITION -> Outcome.INVALID_TRANSITION;
+        };
+    }
+
+    /**
+     * Returns the raw body of a stored event, decoded with the codec it was written with
+     */
+    @Transactional(readOnly = true)
+    public byte[] getRawPayload(String eventId) {
+        // The first stored, should an event have been stored twice before webhook_event_ids existed
+        WebhookEvent event = webhookEventRepository.findFirstByEventIdOrderByIdAsc(eventId)
+                .orElseThrow(() -> new ApiException("Event not found: " + eventId, HttpStatus.NOT_FOUND));
+        if (event.getRawPayload() == null) {
+            throw new ApiException("No payload stored for event: " + eventId, HttpStatus.NOT_FOUND);
+        }
+        return payloadCodecs.forName(event.getPayloadCodec()).decode(event.getRawPayload());
+    }
+
+    private WebhookEvent toWebhookEvent(IncomingWebhook webhook, EventStatus status) {
+        // Store the body exactly as signed instead of re-serializing the DTO
+        PayloadCodec codec = payloadCodecs.writeCodec();
+        return WebhookEvent.builder()
+                .eventId(webhook.eventId())
+                .rawPayload(codec.encode(webhook.rawBody()))
+                .payloadCodec(codec.name())
+                .status(status)
+                .attempts(1)
+                .receivedAt(Instant.now())
+                .build();
+    }
+
+    private Transaction toTransaction(WebhookPayloadDto payload) {
+        var data = payload.getData();
+
+        BigDecimal processingFee = feeCalculator.fee(data);
+        BigDecimal netAmount = data.getAmount().subtract(processingFee);
+        // Senders do not agree on case, and the rates, the aggregates and the filters all key on the ISO code
+        String currency = data.getCurrency().toUpperCase(Locale.ROOT);
+        // Null when no rate is known for the currency; a later backfill can fill both in
+        BigDecimal exchangeRate = exchangeRateProvider.snapshot().rateToBase(currency);
+        BigDecimal baseAmount = exchangeRate == null ? null
+                : data.getAmount().multiply(exchangeRate).setScale(2, RoundingMode.HALF_UP);
+
+        return Transaction.builder()
+                .eventId(payload.getEventId())
+                .transactionId(data.getTransactionId())
+                .amount(data.getAmount())
+                .currency(currency)
+                .senderId(data.getSender().getId())
+                .senderName(data.getSender().getName())
+                .senderCountry(data.getSender().getCountry())
+                .receiverId(data.getReceiver().getId())
+                .receiverName(data.getReceiver().getName())
+                .receiverCountry(data.getReceiver().getCountry())
+                .paymentMethod(data.getPaymentMethod())
+                .status(TransactionStatus.valueOf(data.getStatus().toUpperCase()))
+                .eventTimestamp(payload.getTimestamp())
+                .processingFee(processingFee)
+                .netAmount(netAmount)
+                .exchangeRate(exchangeRate)
+                .baseAmount(baseAmount)
+                // processed_at is a DATETIME, which rounds fractions away; whole seconds keep the aggregates'
+                // minute of a live add the same as that of the stored value they later remove
+                .processedAt(Instant.now().truncatedTo(ChronoUnit.SECONDS))
+                .build();
+    }
 }
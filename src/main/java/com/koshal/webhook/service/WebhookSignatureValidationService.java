@@ -1,15 +1,32 @@
 package com.koshal.webhook.service;
 
 import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.metrics.WebhookMetrics.Outcome;
+import com.koshal.webhook.metrics.WebhookMetrics.Stage;
+import com.koshal.webhook.service.TenantKeyStore.TenantKeys;
+import com.koshal.webhook.util.HmacKey;
 import com.koshal.webhook.util.HmacSignatureValidator;
+import com.koshal.webhook.util.ReplayCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Service for validating webhook signatures and timestamps
+ * Webhooks without a tenant are signed with webhook.secret; tenant webhooks with one of the tenant's live
+ * keys from TenantKeyStore, newest first. A signature that verified once is refused again while its
+ * timestamp is inside the tolerance window, before the webhook reaches the database. Batches are signed
+ * together with the X-Webhook-Timestamp header and go through the same window and replay checks
  */
 @Slf4j
 @Service
@@ -17,6 +34,9 @@ import org.springframework.stereotype.Service;
 public class WebhookSignatureValidationService {
 
     private final HmacSignatureValidator signatureValidator;
+    private final WebhookMetrics metrics;
+    private final TenantKeyStore tenantKeyStore;
+    private final MeterRegistry meterRegistry;
 
     @Value("${webhook.secret}")
     private String webhookSecret;
@@ -24,30 +44,150 @@ public class WebhookSignatureValidationService {
     @Value("${webhook.tolerance-seconds:300}")
     private int toleranceSeconds;
 
+    @Value("${webhook.replay.enabled:true}")
+    private boolean replayProtection;
+
+    @Value("${webhook.replay.generation-seconds:30}")
+    private int replayGenerationSeconds;
+
+    private HmacKey webhookKey;
+    private ReplayCache replayCache;
+    private Counter currentKeyMatches;
+    private Counter previousKeyMatches;
+
+    @PostConstruct
+    void initKey() {
+        webhookKey = new HmacKey(webhookSecret, HmacSignatureValidator.HMAC_SHA256);
+        // Once previous stays flat, the old secrets of rotating tenants can be expired
+        currentKeyMatches = Counter.builder("webhook.tenant.signature")
+                .description("Tenant webhooks verified, by which of the tenant's keys matched")
+                .tag("key", "current")
+                .register(meterRegistry);
+        previousKeyMatches = Counter.builder("webhook.tenant.signature")
+                .description("Tenant webhooks verified, by which of the tenant's keys matched")
+                .tag("key", "previous")
+                .register(meterRegistry);
+        if (replayProtection) {
+            replayCache = new ReplayCache(toleranceSeconds, replayGenerationSeconds);
+            Gauge.builder("webhook.replay.entries", replayCache, cache -> cache.size(System.currentTimeMillis() / 1000))
+                    .description("Signature digests remembered for replay protection")
+                    .register(meterRegistry);
+        }
+    }
+
     /**
      * Validates webhook signature and timestamp
      * 
-     * @param payload The raw request body
+     * @param payload The raw request body bytes
      * @param signature The signature from X-Webhook-Signature header
      * @param timestamp The timestamp from the webhook payload (in seconds)
      * @throws ApiException if validation fails
      */
-    public void validateWebhook(String payload, String signature, long timestamp) {
+    public void validateWebhook(byte[] payload, String signature, long timestamp) {
         log.debug("Validating webhook signature and timestamp");
-        
-        // Validate signature
-        if (!signatureValidator.isValidSignature(payload, signature, webhookSecret)) {
+        validateSignature(payload, signature);
+        validateTimestamp(timestamp);
+        log.debug("Webhook validation successful");
+    }
+
+    /**
+     * Validates the signature of the raw request body
+     *
+     * @throws ApiException if the signature does not match
+     */
+    public void validateSignature(byte[] payload, String signature) {
+        long start = WebhookMetrics.start();
+        boolean valid = signatureValidator.isValidSignature(payload, signature, webhookKey);
+        metrics.record(Stage.SIGNATURE, start);
+        if (!valid) {
+            metrics.outcome(Outcome.BAD_SIGNATURE);
             log.error("Webhook signature validation failed");
             throw new ApiException("Invalid webhook signature", HttpStatus.UNAUTHORIZED);
         }
-        
-        // Validate timestamp
+    }
+
+    /**
+     * Validates the signature of a tenant's webhook against the tenant's live keys, current key first;
+     * a null tenant means webhook.secret
+     *
+     * @throws ApiException if the tenant is unknown or no key matches
+     */
+    public void validateSignature(String tenant, byte[] payload, String signature) {
+        if (tenant == null) {
+            validateSignature(payload, signature);
+            return;
+        }
+        TenantKeys keys = tenantKeyStore.keys(tenant);
+        if (keys == null) {
+            metrics.outcome(Outcome.BAD_SIGNATURE);
+            log.error("Webhook for unknown tenant {}", tenant);
+            throw new ApiException("Unknown webhook tenant: " + tenant, HttpStatus.NOT_FOUND);
+        }
+        long start = WebhookMetrics.start();
+        int match = signatureValidator.findMatchingKey(payload, signature, keys.hmacKeys());
+        metrics.record(Stage.SIGNATURE, start);
+        if (match < 0) {
+            metrics.outcome(Outcome.BAD_SIGNATURE);
+            log.error("Webhook signature validation failed for tenant {}", tenant);
+            throw new ApiException("Invalid webhook signature", HttpStatus.UNAUTHORIZED);
+        }
+        (match == 0 ? currentKeyMatches : previousKeyMatches).increment();
+    }
+
+    /**
+     * Validates the signature of a batch request, an HMAC over "batch." + timestamp + "." + body. The prefix
+     * keeps batch and single-webhook signatures apart, so neither can be replayed against the other endpoint
+     *
+     * @throws ApiException if the tenant is unknown or no key matches
+     */
+    public void validateBatchSignature(String tenant, long timestamp, byte[] body, String signature) {
+        validateSignature(tenant, batchSigningInput(timestamp, body), signature);
+    }
+
+    static byte[] batchSigningInput(long timestamp, byte[] body) {
+        byte[] prefix = ("batch." + timestamp + ".").getBytes(StandardCharsets.US_ASCII);
+        byte[] input = Arrays.copyOf(prefix, prefix.length + body.length);
+        System.arraycopy(body, 0, input, prefix.length, body.length);
+        return input;
+    }
+
+    /**
+     * Validates the webhook timestamp against the tolerance window
+     *
+     * @throws ApiException if the timestamp is too old or too far in the future
+     */
+    public void validateTimestamp(long timestamp) {
         if (!signatureValidator.isValidTimestamp(timestamp, toleranceSeconds)) {
+            metrics.outcome(Outcome.STALE_TIMESTAMP);
             log.error("Webhook timestamp validation failed");
             throw new ApiException("Webhook timestamp is outside tolerance window", HttpStatus.UNAUTHORIZED);
         }
-        
-        log.debug("Webhook validation successful");
+    }
+
+    /**
+     * Remembers a verified signature until its timestamp leaves the tolerance window
+     * Call after validateTimestamp, and call forgetReplay if the webhook is then not taken
+     *
+     * @throws ApiException if the same signature was already accepted inside the window
+     */
+    public void checkReplay(String signature, long timestamp) {
+        if (replayCache == null) {
+            return;
+        }
+        if (!replayCache.add(signatureValidator.digestFingerprint(signature), timestamp)) {
+            metrics.outcome(Outcome.REPLAYED);
+            log.error("Replayed webhook signature, timestamp {}", timestamp);
+            throw new ApiException("Replayed webhook signature", HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Lets a request recorded by checkReplay be sent again, for webhooks that were refused after the check
+     */
+    public void forgetReplay(String signature, long timestamp) {
+        if (replayCache != null) {
+            replayCache.remove(signatureValidator.digestFingerprint(signature), timestamp);
+        }
     }
 
 }
@@ -0,0 +1,88 @@
+package com.koshal.webhook.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows observed latency with additive increase, multiplicative decrease (AIMD)
+ * A request that finishes within the latency target while the limit is at least half used raises the limit
+ * by one. A request that runs over the target, or fails from overload, cuts it by the backoff ratio.
+ * Only requests admitted after the last cut can cut it again, so one slow period costs one cut rather than
+ * one per request in flight. Requests over the limit are refused at once instead of queueing
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long latencyTargetNanos, double backoffRatio) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 0 < min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return true when a permit was taken and must be returned with one of the release methods
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the permit and adjusts the limit from the request's latency
+     *
+     * @param startNanos System.nanoTime() when the permit was taken
+     * @param overloaded true when the request failed because the service was overloaded
+     */
+    public void release(long startNanos, long endNanos, boolean overloaded) {
+        int concurrent = inFlight.getAndDecrement();
+        boolean drop = overloaded || endNanos - startNanos > latencyTargetNanos;
+        synchronized (this) {
+            if (drop) {
+                if (startNanos > lastDecreaseNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = endNanos;
+                }
+            } else if (concurrent * 2 >= (int) limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the permit without a latency sample, for requests whose duration says nothing about load
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -4,23 +4,26 @@ import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
-import org.springframework.util.StreamUtils;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Custom HttpServletRequestWrapper that allows reading the request body multiple times
  * This is needed for HMAC signature validation where we need to read the raw body
+ * The body is read once into an array sized from Content-Length and shared by every reader
  */
 public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
-    
+
     private final byte[] cachedBody;
 
-    public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+    /**
+     * @param maxBytes largest body accepted; larger bodies fail with {@link BodyTooLargeException}
+     */
+    public CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
         super(request);
-        InputStream requestInputStream = request.getInputStream();
-        this.cachedBody = StreamUtils.copyToByteArray(requestInputStream);
+        this.cachedBody = readBody(request, maxBytes);
     }
 
     @Override
@@ -34,25 +37,73 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
         return new BufferedReader(new InputStreamReader(byteArrayInputStream, StandardCharsets.UTF_8));
     }
 
+    @Override
+    public int getContentLength() {
+        return this.cachedBody.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return this.cachedBody.length;
+    }
+
+    /**
+     * Get the cached body bytes without copying; callers must not modify the array
+     *
+     * @return The raw request body
+     */
+    public byte[] getCachedBodyBytes() {
+        return this.cachedBody;
+    }
+
     /**
      * Get the cached body as a string
-     * 
+     *
      * @return The request body as string
      */
     public String getCachedBody() {
         return new String(this.cachedBody, StandardCharsets.UTF_8);
     }
 
+    private static byte[] readBody(HttpServletRequest request, int maxBytes) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxBytes) {
+            throw new BodyTooLargeException(maxBytes);
+        }
+        InputStream in = request.getInputStream();
+        if (contentLength >= 0) {
+            byte[] body = new byte[(int) contentLength];
+            int read = in.readNBytes(body, 0, body.length);
+            return read == body.length ? body : Arrays.copyOf(body, read);
+        }
+        // Chunked body: read one byte past the limit to detect oversized requests
+        byte[] body = in.readNBytes(maxBytes + 1);
+        if (body.length > maxBytes) {
+            throw new BodyTooLargeException(maxBytes);
+        }
+        return body;
+    }
+
+    /**
+     * Thrown when the request body exceeds the configured limit
+     */
+    public static class BodyTooLargeException extends IOException {
+        public BodyTooLargeException(int maxBytes) {
+            super("Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+
     private static class CachedBodyServletInputStream extends ServletInputStream {
-        private final ByteArrayInputStream byteArrayInputStream;
+        private final byte[] buffer;
+        private int position;
 
         public CachedBodyServletInputStream(byte[] cachedBody) {
-            this.byteArrayInputStream = new ByteArrayInputStream(cachedBody);
+            this.buffer = cachedBody;
         }
 
         @Override
         public boolean isFinished() {
-            return byteArrayInputStream.available() == 0;
+            return position >= buffer.length;
         }
 
         @Override
@@ -66,8 +117,35 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
         }
 
         @Override
-        public int read() throws IOException {
-            return byteArrayInputStream.read();
+        public int read() {
+            return position < buffer.length ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = buffer.length - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(len, remaining);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, buffer.length - position));
+            position += (int) count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.length - position;
         }
     }
 }
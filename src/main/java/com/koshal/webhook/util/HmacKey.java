@@ -0,0 +1,56 @@
+package com.koshal.webhook.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * HMAC key prepared once and reused across requests
+ * Initialized Mac instances are pooled, so signing needs no provider lookup or key setup.
+ * A pool rather than a ThreadLocal keeps reuse working under virtual threads, where every request runs on a new thread
+ */
+public final class HmacKey {
+
+    private final SecretKeySpec keySpec;
+    private final ConcurrentLinkedQueue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    public HmacKey(String secret, String algorithm) {
+        this.keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm);
+        macs.offer(newMac()); // fail fast on an unknown algorithm or unusable key
+    }
+
+    /**
+     * Computes the raw HMAC digest of the payload
+     */
+    public byte[] sign(byte[] payload) {
+        return sign(payload, 0, payload.length);
+    }
+
+    public byte[] sign(byte[] payload, int offset, int length) {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        mac.update(payload, offset, length);
+        byte[] digest = mac.doFinal();
+        // doFinal leaves the Mac reset and ready for the next caller; one that threw is simply dropped
+        macs.offer(mac);
+        return digest;
+    }
+
+    public String getAlgorithm() {
+        return keySpec.getAlgorithm();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(keySpec.getAlgorithm());
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + keySpec.getAlgorithm(), e);
+        }
+    }
+}
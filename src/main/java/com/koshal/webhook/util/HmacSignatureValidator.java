@@ -3,12 +3,10 @@ package com.koshal.webhook.util;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.List;
 
 /**
  * Utility class for HMAC signature validation
@@ -18,80 +16,98 @@ import java.util.Base64;
 @Component
 public class HmacSignatureValidator {
 
-    private static final String HMAC_SHA256 = "HmacSHA256";
+    public static final String HMAC_SHA256 = "HmacSHA256";
     private static final String SIGNATURE_PREFIX = "sha256=";
 
-    public boolean isValidSignature(String payload, String signature, String secret) {
-        if (payload == null || signature == null || secret == null) {
-            log.warn("Invalid parameters for signature validation: payload={}, signature={}, secret={}", 
-                    payload != null, signature != null, secret != null);
+    /**
+     * Validates the signature header against the raw request body
+     * The provided signature is decoded once and compared with the computed digest in constant time
+     */
+    public boolean isValidSignature(byte[] payload, String signature, HmacKey key) {
+        if (payload == null || signature == null || key == null) {
+            log.warn("Invalid parameters for signature validation: payload={}, signature={}, key={}",
+                    payload != null, signature != null, key != null);
             return false;
         }
 
-        try {
-            String expectedSignature = calculateSignature(payload, secret);
-            String providedSignature = extractSignature(signature);
-            
-            boolean isValid = constantTimeEquals(expectedSignature, providedSignature);
-            
-            if (!isValid) {
-                log.warn("Signature validation failed. Expected: {}, Provided: {}", 
-                        expectedSignature, providedSignature);
+        byte[] providedDigest = decodeSignature(signature);
+        if (providedDigest == null) {
+            log.warn("Signature validation failed: malformed signature header");
+            return false;
+        }
+
+        boolean isValid = MessageDigest.isEqual(key.sign(payload), providedDigest);
+        if (!isValid) {
+            log.warn("Signature validation failed: digest mismatch");
+        }
+        return isValid;
+    }
+
+    /**
+     * Returns the index of the first key whose digest matches the signature header, or -1 when none does
+     * The header is decoded once and keys are tried in order, so the current key should come first
+     */
+    public int findMatchingKey(byte[] payload, String signature, List<HmacKey> keys) {
+        if (payload == null || signature == null) {
+            return -1;
+        }
+        byte[] providedDigest = decodeSignature(signature);
+        if (providedDigest == null) {
+            log.warn("Signature validation failed: malformed signature header");
+            return -1;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (MessageDigest.isEqual(keys.get(i).sign(payload), providedDigest)) {
+                return i;
             }
-            
-            return isValid;
-            
-        } catch (Exception e) {
-            log.error("Error during signature validation", e);
+        }
+        log.warn("Signature validation failed: digest matches none of {} keys", keys.size());
+        return -1;
+    }
+
+    public boolean isValidSignature(String payload, String signature, String secret) {
+        if (payload == null || secret == null) {
+            log.warn("Invalid parameters for signature validation: payload={}, signature={}, secret={}",
+                    payload != null, signature != null, secret != null);
             return false;
         }
+        return isValidSignature(payload.getBytes(StandardCharsets.UTF_8), signature, new HmacKey(secret, HMAC_SHA256));
     }
 
     /**
      * Calculates HMAC-SHA256 signature for the given payload and secret
      */
-    public String calculateSignature(String payload, String secret) 
-            throws NoSuchAlgorithmException, InvalidKeyException {
-        
-        Mac mac = Mac.getInstance(HMAC_SHA256);
-        SecretKeySpec secretKeySpec = new SecretKeySpec(
-                secret.getBytes(StandardCharsets.UTF_8), 
-                HMAC_SHA256
-        );
-        mac.init(secretKeySpec);
-        
-        byte[] signatureBytes = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    public String calculateSignature(String payload, String secret) {
+        byte[] signatureBytes = new HmacKey(secret, HMAC_SHA256).sign(payload.getBytes(StandardCharsets.UTF_8));
         return Base64.getEncoder().encodeToString(signatureBytes);
     }
 
     /**
-     * Extracts the signature value from the signature header
+     * First 64 bits of the digest in the signature header, or 0 when it is malformed
+     * Taken from the decoded digest so that the same digest written differently gives the same value
      */
-    private String extractSignature(String signatureHeader) {
-        if (signatureHeader.startsWith(SIGNATURE_PREFIX)) {
-            return signatureHeader.substring(SIGNATURE_PREFIX.length());
+    public long digestFingerprint(String signature) {
+        byte[] digest = signature == null ? null : decodeSignature(signature);
+        if (digest == null || digest.length < Long.BYTES) {
+            return 0;
         }
-        return signatureHeader;
+        long fingerprint = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            fingerprint = (fingerprint << 8) | (digest[i] & 0xff);
+        }
+        return fingerprint;
     }
 
     /**
-     * Constant time comparison to prevent timing attacks
+     * Decodes the Base64 digest from the signature header, or null when it is malformed
      */
-    private boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) {
-            return false;
-        }
-        
-        if (a.length() != b.length()) {
-            return false;
-        }
-        
-        int result = 0;
-        for (int i = 0; i < a.length(); i++) {
-            result |= a.charAt(i) ^ b.charAt(i);
+    private byte[] decodeSignature(String signatureHeader) {
+        int start = signatureHeader.startsWith(SIGNATURE_PREFIX) ? SIGNATURE_PREFIX.length() : 0;
+        try {
+            return Base64.getDecoder().decode(signatureHeader.substring(start));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        
-        return result == 0;
     }
 
     /**
@@ -100,14 +116,14 @@ public class HmacSignatureValidator {
     public boolean isValidTimestamp(long timestamp, int toleranceSeconds) {
         long currentTime = System.currentTimeMillis() / 1000;
         long timeDifference = Math.abs(currentTime - timestamp);
-        
+
         boolean isValid = timeDifference <= toleranceSeconds;
-        
+
         if (!isValid) {
-            log.warn("Timestamp validation failed. Current: {}, Webhook: {}, Difference: {}s, Tolerance: {}s", 
+            log.warn("Timestamp validation failed. Current: {}, Webhook: {}, Difference: {}s, Tolerance: {}s",
                     currentTime, timestamp, timeDifference, toleranceSeconds);
         }
-        
+
         return isValid;
     }
 }
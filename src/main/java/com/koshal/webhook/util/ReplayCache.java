@@ -0,0 +1,168 @@
+package com.koshal.webhook.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Signature digests seen inside the timestamp tolerance window, to refuse a signed request sent twice
+ * Entries are filed by the request's own timestamp into generations of a few seconds each. A request is only
+ * accepted while its timestamp is within the tolerance of now, so a generation is dead once its last second
+ * is more than the tolerance in the past; it is then dropped whole when its ring slot is reused, never entry
+ * by entry. The ring has room for every generation a valid timestamp can fall into, and memory follows the
+ * traffic of the window at 16 to 32 bytes per entry.
+ * Entries are 64-bit fingerprints of the digest; a false match needs two live digests to share 64 bits
+ */
+public class ReplayCache {
+
+    private final long toleranceSeconds;
+    private final long generationSeconds;
+    private final AtomicReferenceArray<Generation> ring;
+
+    public ReplayCache(long toleranceSeconds, long generationSeconds) {
+        if (toleranceSeconds < 0 || generationSeconds <= 0) {
+            throw new IllegalArgumentException("Replay cache needs tolerance >= 0 and generation seconds > 0");
+        }
+        this.toleranceSeconds = toleranceSeconds;
+        this.generationSeconds = generationSeconds;
+        // Valid timestamps span 2 * tolerance + 1 seconds, which can straddle one more generation; one spare
+        // slot covers requests whose timestamp was checked a second earlier
+        this.ring = new AtomicReferenceArray<>((int) ((2 * toleranceSeconds) / generationSeconds) + 3);
+    }
+
+    /**
+     * Records the fingerprint under the request's timestamp
+     *
+     * @param timestamp epoch seconds of the request, already checked to be within the tolerance of now
+     * @return false when the fingerprint was already recorded for that timestamp's generation, i.e. a replay
+     */
+    public boolean add(long fingerprint, long timestamp) {
+        Generation generation = generation(Math.floorDiv(timestamp, generationSeconds));
+        return generation == null || generation.add(fingerprint);
+    }
+
+    /**
+     * Forgets a fingerprint, so the same request can be sent again after it was not taken
+     */
+    public void remove(long fingerprint, long timestamp) {
+        long id = Math.floorDiv(timestamp, generationSeconds);
+        Generation generation = ring.get(slot(id));
+        if (generation != null && generation.id == id) {
+            generation.remove(fingerprint);
+        }
+    }
+
+    /**
+     * Entries in generations that are still live at now (epoch seconds)
+     */
+    public long size(long now) {
+        long size = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Generation generation = ring.get(i);
+            if (generation != null && (generation.id + 1) * generationSeconds - 1 + toleranceSeconds >= now) {
+                size += generation.size();
+            }
+        }
+        return size;
+    }
+
+    private Generation generation(long id) {
+        int slot = slot(id);
+        while (true) {
+            Generation current = ring.get(slot);
+            if (current != null && current.id == id) {
+                return current;
+            }
+            if (current != null && current.id > id) {
+                // The timestamp is older than the window; its generation is gone
+                return null;
+            }
+            // Whatever holds the slot is older than the window, or the slot is empty
+            Generation fresh = new Generation(id);
+            if (ring.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long id) {
+        return (int) Math.floorMod(id, (long) ring.length());
+    }
+
+    /**
+     * Open-addressed set of fingerprints with linear probing; 0 marks a free slot
+     */
+    private static final class Generation {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final long id;
+        private long[] table = new long[INITIAL_CAPACITY];
+        private int size;
+
+        Generation(long id) {
+            this.id = id;
+        }
+
+        synchronized boolean add(long fingerprint) {
+            long key = fingerprint == 0 ? 1 : fingerprint;
+            int mask = table.length - 1;
+            int i = index(key, mask);
+            while (table[i] != 0) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            if (++size * 2 > table.length) {
+                grow();
+            }
+            return true;
+        }
+
+        synchronized void remove(long fingerprint) {
+            long key = fingerprint == 0 ? 1 : fingerprint;
+            int mask = table.length - 1;
+            int i = index(key, mask);
+            while (table[i] != key) {
+                if (table[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // Shift later entries of the probe run back so lookups never stop at the hole
+            int hole = i;
+            for (int j = (hole + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = index(table[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    table[hole] = table[j];
+                    hole = j;
+                }
+            }
+            table[hole] = 0;
+            size--;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            int mask = table.length - 1;
+            for (long key : old) {
+                if (key != 0) {
+                    int i = index(key, mask);
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = key;
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.koshal.webhook.validation;
+
+/**
+ * ISO 4217 codes accepted as a transaction currency, as a bitmap over all 26^3 three-letter codes
+ * A lookup maps the letters to an index and tests one bit, case-insensitive and without an upper-cased copy
+ */
+final class CurrencyCodes {
+
+    // Valid ISO 4217 currency codes
+    private static final String[] CODES = {
+        // Major currencies
+        "USD", "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "NZD",
+        
+        // Asian currencies
+        "CNY", "INR", "KRW", "THB", "SGD", "MYR", "PHP", "VND", "IDR", "HKD",
+        
+        // Middle East & Africa
+        "AED", "SAR", "QAR", "KWD", "BHD", "OMR", "JOD", "ILS", "TRY",
+        "ZAR", "EGP", "NGN", "KES", "GHS", "MAD", "TND", "DZD",
+        
+        // European currencies
+        "SEK", "NOK", "DKK", "PLN", "CZK", "HUF", "RON", "BGN", "HRK",
+        
+        // Latin American currencies
+        "BRL", "MXN", "ARS", "CLP", "COP", "PEN", "UYU", "BOB", "VES",
+        
+        // Other major currencies
+        "RUB", "UAH", "KZT", "PKR", "BDT", "LKR", "NPR", "MMK", "KHR",
+        
+        "AFN", "ALL", "AMD", "ANG", "AOA", "AWG", "AZN", "BAM", "BBD",
+        "BIF", "BMD", "BND", "BSD", "BTN", "BWP", "BYN", "BZD", "CDF",
+        "CRC", "CUP", "CVE", "DJF", "DOP", "ERN", "ETB", "FJD", "FKP",
+        "GEL", "GIP", "GMD", "GNF", "GTQ", "GYD", "HNL", "HTG", "IQD",
+        "IRR", "ISK", "JMD", "KGS", "KMF", "KPW", "KYD", "LAK", "LBP",
+        "LRD", "LSL", "LYD", "MDL", "MGA", "MKD", "MNT", "MOP", "MRU",
+        "MUR", "MVR", "MWK", "MZN", "NAD", "NIO", "PAB", "PGK", "PYG",
+        "RSD", "RWF", "SBD", "SCR", "SDG", "SHP", "SLE", "SLL", "SOS",
+        "SRD", "STN", "SYP", "SZL", "TJS", "TMT", "TOP", "TTD", "TVD",
+        "TWD", "TZS", "UGX", "UZS", "VUV", "WST", "XAF", "XCD", "XDR",
+        "XOF", "XPF", "YER", "ZMW", "ZWL"
+    };
+
+    private static final long[] TABLE = new long[(26 * 26 * 26 + 63) / 64];
+
+    static {
+        for (String code : CODES) {
+            int index = index(code);
+            TABLE[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private CurrencyCodes() {
+    }
+
+    /**
+     * True when the value is one of the codes, in any letter case
+     */
+    static boolean contains(String value) {
+        int index = index(value);
+        return index >= 0 && (TABLE[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Position of a three-letter ASCII code in the table, or -1 for anything else
+     */
+    private static int index(String value) {
+        if (value.length() != 3) {
+            return -1;
+        }
+        int first = letter(value.charAt(0));
+        int second = letter(value.charAt(1));
+        int third = letter(value.charAt(2));
+        return (first | second | third) < 0 ? -1 : (first * 26 + second) * 26 + third;
+    }
+
+    private static int letter(char c) {
+        // Setting 0x20 lower-cases an ASCII letter and leaves no other char on a-z
+        int letter = (c | 0x20) - 'a';
+        return letter >= 0 && letter < 26 ? letter : -1;
+    }
+}
@@ -2,7 +2,6 @@ package com.koshal.webhook.validation;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import java.util.Set;
 
 /**
  * Validator for transaction status values
@@ -10,12 +9,12 @@ import java.util.Set;
  */
 public class TransactionStatusValidator implements ConstraintValidator<ValidTransactionStatus, String> {
 
-    // Set of valid transaction status values
-    private static final Set<String> VALID_STATUSES = Set.of(
+    // Valid transaction status values, lower case
+    private static final String[] VALID_STATUSES = {
         "pending",
-        "completed", 
+        "completed",
         "failed"
-    );
+    };
 
     @Override
     public void initialize(ValidTransactionStatus constraintAnnotation) {
@@ -27,6 +26,31 @@ public class TransactionStatusValidator implements ConstraintValidator<ValidTran
             return true; // Let @NotBlank handle null/empty validation
         }
         
-        return VALID_STATUSES.contains(status.toLowerCase());
+        return isAllowed(status);
+    }
+
+    /**
+     * True when the status is one of the valid values in any ASCII letter case, compared without a lower-cased copy
+     */
+    static boolean isAllowed(String status) {
+        for (String allowed : VALID_STATUSES) {
+            if (equalsIgnoreAsciiCase(status, allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalsIgnoreAsciiCase(String value, String lowerCase) {
+        if (value.length() != lowerCase.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            // An upper-case ASCII letter differs from its lower case only in bit 0x20
+            if ((value.charAt(i) | 0x20) != lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
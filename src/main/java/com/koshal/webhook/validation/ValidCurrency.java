@@ -10,7 +10,7 @@ import java.lang.annotation.*;
  */
 @Documented
 @Constraint(validatedBy = CurrencyValidator.class)
-@Target({ElementType.FIELD})
+@Target({ElementType.FIELD, ElementType.TYPE_USE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ValidCurrency {
     String message() default "Currency must be a valid ISO 4217 currency code";
@@ -10,7 +10,7 @@ import java.lang.annotation.*;
  */
 @Documented
 @Constraint(validatedBy = TransactionStatusValidator.class)
-@Target({ElementType.FIELD})
+@Target({ElementType.FIELD, ElementType.TYPE_USE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ValidTransactionStatus {
     String message() default "Status must be one of: pending, completed, failed";
@@ -0,0 +1,259 @@
+package com.koshal.webhook.validation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.koshal.webhook.dto.MetadataDto;
+import com.koshal.webhook.dto.PartyDto;
+import com.koshal.webhook.dto.TransactionDataDto;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binds a webhook payload and checks it in the same pass over the tokens, instead of binding the whole tree
+ * and walking it again with Bean Validation
+ * The checks are the constraints declared on WebhookPayloadDto, TransactionDataDto and PartyDto, with the
+ * messages Bean Validation gives for them, as "field: message" the way GlobalExceptionHandler reports them.
+ * A value is checked as soon as it is read and a missing field when its object ends, so the first invalid
+ * field stops the parse with a 400 ApiException. Email addresses are the one check left to the Validator,
+ * for its exact rules. Values of other JSON types, timestamps and metadata go through the context, so they
+ * bind as they would without this deserializer
+ */
+public class WebhookPayloadDeserializer extends StdDeserializer<WebhookPayloadDto> {
+
+    private static final String NOT_BLANK = "must not be blank";
+    private static final String NOT_NULL = "must not be null";
+    private static final String MIN_AMOUNT_MESSAGE = "must be greater than or equal to 0.01";
+    private static final String COUNTRY_SIZE = "size must be between 2 and 2";
+    private static final String CURRENCY = "Currency must be a valid ISO 4217 currency code";
+    private static final String STATUS = "Status must be one of: pending, completed, failed";
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
+
+    private static final List<Object> PAYLOAD_FIELDS = List.of("event_id", "event_type", "timestamp", "data");
+    private static final List<Object> DATA_FIELDS = List.of(
+            "transaction_id", "amount", "currency", "sender", "receiver", "status", "payment_method", "metadata");
+    private static final List<Object> PARTY_FIELDS = List.of("id", "name", "email", "country");
+
+    private static final PartyPaths SENDER = new PartyPaths("data.sender");
+    private static final PartyPaths RECEIVER = new PartyPaths("data.receiver");
+
+    private final Validator validator;
+
+    public WebhookPayloadDeserializer(Validator validator) {
+        super(WebhookPayloadDto.class);
+        this.validator = validator;
+    }
+
+    @Override
+    public WebhookPayloadDto deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        WebhookPayloadDto payload = new WebhookPayloadDto();
+        for (String field = firstField(p, ctxt, WebhookPayloadDto.class); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "event_id" -> payload.setEventId(notBlank(text(p, ctxt), "eventId"));
+                case "event_type" -> payload.setEventType(notBlank(text(p, ctxt), "eventType"));
+                case "timestamp" -> payload.setTimestamp(notNull(instant(p, ctxt), "timestamp"));
+                case "data" -> payload.setData(data(p, ctxt));
+                default -> unknown(p, ctxt, WebhookPayloadDto.class, field, PAYLOAD_FIELDS);
+            }
+        }
+        required(payload.getEventId(), "eventId", NOT_BLANK);
+        required(payload.getEventType(), "eventType", NOT_BLANK);
+        required(payload.getTimestamp(), "timestamp", NOT_NULL);
+        required(payload.getData(), "data", NOT_NULL);
+        return payload;
+    }
+
+    @Override
+    public Collection<Object> getKnownPropertyNames() {
+        return PAYLOAD_FIELDS;
+    }
+
+    private TransactionDataDto data(JsonParser p, DeserializationContext ctxt) throws IOException {
+        notNull(p, "data");
+        TransactionDataDto data = new TransactionDataDto();
+        for (String field = firstField(p, ctxt, TransactionDataDto.class); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "transaction_id" -> data.setTransactionId(notBlank(text(p, ctxt), "data.transactionId"));
+                case "amount" -> data.setAmount(amount(p, ctxt));
+                case "currency" -> data.setCurrency(currency(text(p, ctxt)));
+                case "sender" -> data.setSender(party(p, ctxt, SENDER));
+                case "receiver" -> data.setReceiver(party(p, ctxt, RECEIVER));
+                case "status" -> data.setStatus(status(text(p, ctxt)));
+                case "payment_method" -> data.setPaymentMethod(text(p, ctxt));
+                case "metadata" -> data.setMetadata(p.hasToken(JsonToken.VALUE_NULL)
+                        ? null : ctxt.readValue(p, MetadataDto.class));
+                default -> unknown(p, ctxt, TransactionDataDto.class, field, DATA_FIELDS);
+            }
+        }
+        required(data.getTransactionId(), "data.transactionId", NOT_BLANK);
+        required(data.getAmount(), "data.amount", NOT_NULL);
+        required(data.getCurrency(), "data.currency", NOT_BLANK);
+        required(data.getSender(), SENDER.party, NOT_NULL);
+        required(data.getReceiver(), RECEIVER.party, NOT_NULL);
+        required(data.getStatus(), "data.status", NOT_BLANK);
+        return data;
+    }
+
+    private PartyDto party(JsonParser p, DeserializationContext ctxt, PartyPaths paths) throws IOException {
+        notNull(p, paths.party);
+        PartyDto party = new PartyDto();
+        for (String field = firstField(p, ctxt, PartyDto.class); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "id" -> party.setId(notBlank(text(p, ctxt), paths.id));
+                case "name" -> party.setName(notBlank(text(p, ctxt), paths.name));
+                case "email" -> party.setEmail(email(text(p, ctxt), paths.email));
+                case "country" -> party.setCountry(country(text(p, ctxt), paths.country));
+                default -> unknown(p, ctxt, PartyDto.class, field, PARTY_FIELDS);
+            }
+        }
+        required(party.getId(), paths.id, NOT_BLANK);
+        required(party.getName(), paths.name, NOT_BLANK);
+        return party;
+    }
+
+    private static BigDecimal amount(JsonParser p, DeserializationContext ctxt) throws IOException {
+        notNull(p, "data.amount");
+        // Other tokens may coerce, an empty string to null among them
+        BigDecimal amount = notNull(p.isExpectedNumberIntToken() || p.hasToken(JsonToken.VALUE_NUMBER_FLOAT)
+                ? p.getDecimalValue()
+                : ctxt.readValue(p, BigDecimal.class), "data.amount");
+        if (amount.compareTo(MIN_AMOUNT) < 0) {
+            throw invalid("data.amount", MIN_AMOUNT_MESSAGE);
+        }
+        return amount;
+    }
+
+    private static String currency(String currency) {
+        if (!CurrencyCodes.contains(notBlank(currency, "data.currency"))) {
+            throw invalid("data.currency", CURRENCY);
+        }
+        return currency;
+    }
+
+    private static String status(String status) {
+        if (!TransactionStatusValidator.isAllowed(notBlank(status, "data.status"))) {
+            throw invalid("data.status", STATUS);
+        }
+        return status;
+    }
+
+    private String email(String email, String path) {
+        if (email != null) {
+            Set<ConstraintViolation<PartyDto>> violations = validator.validateValue(PartyDto.class, "email", email);
+            if (!violations.isEmpty()) {
+                throw invalid(path, violations.iterator().next().getMessage());
+            }
+        }
+        return email;
+    }
+
+    private static String country(String country, String path) {
+        if (country != null && country.length() != 2) {
+            throw invalid(path, COUNTRY_SIZE);
+        }
+        return country;
+    }
+
+    /**
+     * The first field name of the object the parser is at, or null when it is empty
+     */
+    private static String firstField(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        if (p.isExpectedStartObjectToken()) {
+            return p.nextFieldName();
+        }
+        if (p.hasToken(JsonToken.FIELD_NAME)) {
+            return p.currentName();
+        }
+        if (!p.hasToken(JsonToken.END_OBJECT)) {
+            ctxt.handleUnexpectedToken(type, p);
+        }
+        return null;
+    }
+
+    private static String text(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            return p.getText();
+        }
+        return p.hasToken(JsonToken.VALUE_NULL) ? null : ctxt.readValue(p, String.class);
+    }
+
+    private static Instant instant(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.hasToken(JsonToken.VALUE_NULL) ? null : ctxt.readValue(p, Instant.class);
+    }
+
+    private static void unknown(JsonParser p, DeserializationContext ctxt, Class<?> type, String field,
+                                List<Object> known) throws IOException {
+        if (ctxt.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)) {
+            throw UnrecognizedPropertyException.from(p, type, field, known);
+        }
+        p.skipChildren();
+    }
+
+    private static String notBlank(String value, String path) {
+        if (value == null || isBlank(value)) {
+            throw invalid(path, NOT_BLANK);
+        }
+        return value;
+    }
+
+    private static <T> T notNull(T value, String path) {
+        if (value == null) {
+            throw invalid(path, NOT_NULL);
+        }
+        return value;
+    }
+
+    private static void notNull(JsonParser p, String path) {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            throw invalid(path, NOT_NULL);
+        }
+    }
+
+    private static void required(Object value, String path, String message) {
+        if (value == null) {
+            throw invalid(path, message);
+        }
+    }
+
+    /**
+     * Blank as @NotBlank sees it: nothing left once String#trim drops the chars up to ' '
+     */
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ApiException invalid(String path, String message) {
+        return new ApiException(path + ": " + message, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Property paths of a party's fields, built once rather than per error
+     */
+    private record PartyPaths(String party, String id, String name, String email, String country) {
+
+        PartyPaths(String party) {
+            this(party, party + ".id", party + ".name", party + ".email", party + ".country");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package db.migration;
+
+import com.koshal.webhook.codec.DeflatePayloadCodec;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Backfills raw_payload from the legacy LONGTEXT payload column, deflate-compressed
+ * Rows are walked in id order in small chunks, each chunk committed on its own, so the table is never locked as a whole
+ */
+public class V5__compress_webhook_payloads extends BaseJavaMigration {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        DeflatePayloadCodec codec = new DeflatePayloadCodec(6);
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, payload FROM webhook_events WHERE id > ? AND raw_payload IS NULL ORDER BY id LIMIT " + CHUNK_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE webhook_events SET raw_payload = ?, payload_codec = ? WHERE id = ?")) {
+
+            long lastId = 0;
+            while (true) {
+                int rows = 0;
+                select.setLong(1, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getLong(1);
+                        String payload = rs.getString(2);
+                        byte[] raw = payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8);
+                        update.setBytes(1, codec.encode(raw));
+                        update.setString(2, codec.name());
+                        update.setLong(3, lastId);
+                        update.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                update.executeBatch();
+                connection.commit();
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Range-partitions webhook_events by day of received_at, so retention can drop whole partitions
+ * MySQL requires every unique key to contain the partitioning column. The primary key becomes
+ * (id, received_at) and event_id keeps a plain index; global event_id uniqueness moves to the
+ * webhook_event_ids table (V14), which is written in the same transaction and is not partitioned.
+ * Rows older than today land in p_history, followed by one partition per day and a catch-all p_max.
+ * The retention job keeps adding days ahead of time; the DDL is generated here because partition
+ * bounds must be constants
+ */
+public class V7__partition_webhook_events extends BaseJavaMigration {
+
+    private static final int DAYS_AHEAD = 7;
+    // TO_DAYS('1970-01-01')
+    private static final long TO_DAYS_EPOCH = 719_528;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        StringBuilder partitions = new StringBuilder()
+                .append("PARTITION p_history VALUES LESS THAN (").append(toDays(today)).append("),\n");
+        for (int i = 0; i <= DAYS_AHEAD; i++) {
+            LocalDate day = today.plusDays(i);
+            partitions.append("PARTITION ").append(day.format(PARTITION_NAME))
+                    .append(" VALUES LESS THAN (").append(toDays(day.plusDays(1))).append("),\n");
+        }
+        partitions.append("PARTITION p_max VALUES LESS THAN MAXVALUE");
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.executeUpdate("UPDATE webhook_events SET received_at = CURRENT_TIMESTAMP WHERE received_at IS NULL");
+            // One ALTER, so the table is copied once
+            statement.execute("""
+                    ALTER TABLE webhook_events
+                        MODIFY received_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                        DROP PRIMARY KEY,
+                        ADD PRIMARY KEY (id, received_at),
+                        DROP INDEX event_id,
+                        ADD INDEX idx_webhook_events_event_id (event_id),
+                        ADD INDEX idx_webhook_events_received_at (received_at)
+                    PARTITION BY RANGE (TO_DAYS(received_at)) (
+                    """ + partitions + "\n)");
+        }
+    }
+
+    private static long toDays(LocalDate date) {
+        return date.toEpochDay() + TO_DAYS_EPOCH;
+    }
+}
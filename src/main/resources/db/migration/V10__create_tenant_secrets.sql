@@ -0,0 +1,11 @@
+-- Signing secrets of tenants posting to /api/v1/webhooks/{tenant}/payment.
+-- A tenant may have several live secrets while it rotates: the newest is tried first, and an old one
+-- stops verifying once expires_at has passed. To rotate, insert the new secret and set expires_at on the old.
+CREATE TABLE webhook_tenant_secrets (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant VARCHAR(64) NOT NULL,
+    secret VARCHAR(255) NOT NULL,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at DATETIME NULL,
+    INDEX idx_webhook_tenant_secrets_tenant (tenant)
+);
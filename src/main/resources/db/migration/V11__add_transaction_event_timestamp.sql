@@ -0,0 +1,4 @@
+-- Timestamp of the event that set the transaction's current state. Status updates for the same
+-- transaction_id are upserted, and an event older than this one no longer overwrites the row.
+ALTER TABLE transactions
+    ADD COLUMN event_timestamp DATETIME(3) NULL AFTER status;
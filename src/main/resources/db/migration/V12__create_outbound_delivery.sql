@@ -0,0 +1,38 @@
+-- Endpoints notified of transaction changes; statuses and currencies are comma-separated filters, NULL matches all
+CREATE TABLE webhook_subscribers (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    url VARCHAR(2048) NOT NULL,
+    secret VARCHAR(255) NULL,
+    statuses VARCHAR(64) NULL,
+    currencies VARCHAR(255) NULL,
+    max_concurrency INT NOT NULL DEFAULT 4,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Transaction changes, written in the same database transaction as the change itself
+CREATE TABLE transaction_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    transaction_id VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    payload MEDIUMTEXT NOT NULL,
+    created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    dispatched_at DATETIME(3) NULL,
+    INDEX idx_transaction_outbox_dispatched_at (dispatched_at, id)
+);
+
+-- One row per outbox entry and matching subscriber
+CREATE TABLE outbound_deliveries (
+    outbox_id BIGINT NOT NULL,
+    subscriber_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(3) NOT NULL,
+    last_error VARCHAR(512) NULL,
+    delivered_at DATETIME(3) NULL,
+    PRIMARY KEY (outbox_id, subscriber_id),
+    INDEX idx_outbound_deliveries_status_next_attempt (status, next_attempt_at)
+);
@@ -0,0 +1,8 @@
+-- Failed events are kept for the reprocessor. A row is due while next_attempt_at is set and has passed:
+-- FAILED rows wait there for their next attempt, and RECEIVED rows are claimed by a reprocessor until then.
+-- Rows written before this migration stay RECEIVED with no next_attempt_at and are never picked up.
+ALTER TABLE webhook_events
+    ADD COLUMN attempts INT NOT NULL DEFAULT 0 AFTER status,
+    ADD COLUMN last_error VARCHAR(1024) NULL AFTER attempts,
+    ADD COLUMN next_attempt_at DATETIME(3) NULL AFTER last_error,
+    ADD INDEX idx_webhook_events_status_next_attempt (status, next_attempt_at);
@@ -0,0 +1,10 @@
+-- Global event_id uniqueness for webhook_events, which lost its UNIQUE key to partitioning (V7)
+-- and is not covered by transactions.event_id since transactions are upserted. Not partitioned,
+-- and kept by retention like transactions, so a redelivery is refused however late it comes.
+CREATE TABLE webhook_event_ids (
+    event_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    received_at DATETIME(3) NOT NULL
+);
+
+INSERT IGNORE INTO webhook_event_ids (event_id, received_at)
+SELECT event_id, MIN(received_at) FROM webhook_events GROUP BY event_id;
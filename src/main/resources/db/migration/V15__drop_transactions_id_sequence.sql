@@ -0,0 +1,3 @@
+-- transactions ids are AUTO_INCREMENT again since transactions are upserted (V3 seeded this row
+-- for the pooled generator it used before); only webhook_events still allocates from id_sequences.
+DELETE FROM id_sequences WHERE sequence_name = 'transactions';
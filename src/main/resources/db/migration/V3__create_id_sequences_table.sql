@@ -0,0 +1,13 @@
+CREATE TABLE id_sequences (
+    sequence_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+-- Pooled ids replace AUTO_INCREMENT so Hibernate can batch inserts.
+-- Each fetch reserves (next_val - 49, next_val], so seeding 51 past the
+-- current maximum keeps new ids above the rows already stored.
+INSERT INTO id_sequences (sequence_name, next_val)
+SELECT 'webhook_events', COALESCE(MAX(id), 0) + 51 FROM webhook_events;
+
+INSERT INTO id_sequences (sequence_name, next_val)
+SELECT 'transactions', COALESCE(MAX(id), 0) + 51 FROM transactions;
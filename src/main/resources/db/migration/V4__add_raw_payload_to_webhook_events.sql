@@ -0,0 +1,4 @@
+-- Raw signed request body, encoded with the codec named in payload_codec
+ALTER TABLE webhook_events
+    ADD COLUMN raw_payload MEDIUMBLOB NULL AFTER payload,
+    ADD COLUMN payload_codec VARCHAR(16) NULL AFTER raw_payload;
@@ -0,0 +1,2 @@
+-- Payloads were copied into raw_payload by V5
+ALTER TABLE webhook_events DROP COLUMN payload;
@@ -0,0 +1,9 @@
+-- Seek indexes for GET /api/v1/transactions, which pages by (processed_at, id) newest first.
+-- InnoDB appends the primary key to every secondary index, so each one is effectively
+-- (filter column, processed_at, id) and a page is a range scan of `limit` entries.
+ALTER TABLE transactions
+    ADD INDEX idx_transactions_processed_at (processed_at),
+    ADD INDEX idx_transactions_sender_processed_at (sender_id, processed_at),
+    ADD INDEX idx_transactions_receiver_processed_at (receiver_id, processed_at),
+    ADD INDEX idx_transactions_status_processed_at (status, processed_at),
+    ADD INDEX idx_transactions_currency_processed_at (currency, processed_at);
@@ -0,0 +1,12 @@
+-- Rates used to convert transactions into the base currency (webhook.fx.base-currency),
+-- quoted as base currency units per one unit of the currency
+CREATE TABLE exchange_rates (
+    currency VARCHAR(3) NOT NULL PRIMARY KEY,
+    rate_to_base DECIMAL(24,10) NOT NULL,
+    as_of DATETIME NOT NULL
+);
+
+-- Four decimals truncated rates of weak currencies (e.g. 0.0067 for JPY -> USD)
+ALTER TABLE transactions
+    MODIFY exchange_rate DECIMAL(24,10) NULL DEFAULT NULL,
+    ADD COLUMN base_amount DECIMAL(18,2) NULL AFTER exchange_rate;
@@ -0,0 +1,63 @@
+package com.koshal.webhook.fee;
+
+import com.koshal.webhook.fee.FeeRule.Tier;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeeScheduleTest {
+
+    private static final FeeRule CATCH_ALL = rule(null, null, null, null, "2.0", null);
+
+    @Test
+    void mostSpecificRuleWinsWithLeftFieldsOutrankingRightOnes() {
+        FeeSchedule schedule = FeeSchedule.compile(List.of(
+                CATCH_ALL,
+                rule("card", null, null, null, "2.9", "0.30"),
+                rule("card", "EUR", null, null, "1.4", "0.25"),
+                rule(null, "EUR", "DE", "FR", "0.5", null),
+                rule("bank_transfer", "*", "US", "IN", "1.0", null)));
+
+        assertThat(schedule.fee("card", "EUR", "DE", "FR", new BigDecimal("100.00"))).isEqualByComparingTo("1.65");
+        assertThat(schedule.fee("CARD", "usd", "US", "GB", new BigDecimal("100.00"))).isEqualByComparingTo("3.20");
+        assertThat(schedule.fee("wallet", "EUR", "DE", "FR", new BigDecimal("100.00"))).isEqualByComparingTo("0.50");
+        assertThat(schedule.fee("bank_transfer", "USD", "US", "IN", new BigDecimal("100.00"))).isEqualByComparingTo("1.00");
+        assertThat(schedule.fee(null, "USD", "US", "IN", new BigDecimal("100.00"))).isEqualByComparingTo("2.00");
+    }
+
+    @Test
+    void tiersClampAndRoundingMatchTheColumnScale() {
+        FeeRule tiered = new FeeRule("card", null, null, null, null, null, new BigDecimal("0.50"), new BigDecimal("25"),
+                List.of(new Tier(new BigDecimal("1000"), new BigDecimal("2.5"), new BigDecimal("0.10")),
+                        new Tier(null, new BigDecimal("1.5"), null)));
+        FeeSchedule schedule = FeeSchedule.compile(List.of(CATCH_ALL, tiered));
+
+        assertThat(schedule.fee("card", "USD", "US", "IN", new BigDecimal("10.00"))).isEqualByComparingTo("0.50");
+        assertThat(schedule.fee("card", "USD", "US", "IN", new BigDecimal("1000.00"))).isEqualByComparingTo("25.00");
+        assertThat(schedule.fee("card", "USD", "US", "IN", new BigDecimal("1000.01"))).isEqualByComparingTo("15.00");
+        assertThat(schedule.fee("card", "USD", "US", "IN", new BigDecimal("5000"))).isEqualByComparingTo("25.00");
+        assertThat(schedule.fee("wallet", "USD", "US", "IN", new BigDecimal("2500.75")))
+                .isEqualTo(new BigDecimal("50.02"));
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        assertThatThrownBy(() -> FeeSchedule.compile(List.of(rule("card", null, null, null, "2.9", null))))
+                .hasMessageContaining("catch-all");
+        assertThatThrownBy(() -> FeeSchedule.compile(List.of(CATCH_ALL, rule("*", null, null, null, "1", null))))
+                .hasMessageContaining("Duplicate fee rule for */*/*/*");
+        assertThatThrownBy(() -> FeeSchedule.compile(List.of(CATCH_ALL, new FeeRule("card", null, null, null,
+                null, null, null, null, List.of(new Tier(new BigDecimal("100"), BigDecimal.ONE, null))))))
+                .hasMessageContaining("open ended");
+    }
+
+    private static FeeRule rule(String method, String currency, String sender, String receiver,
+                                String percent, String fixed) {
+        return new FeeRule(method, currency, sender, receiver, new BigDecimal(percent),
+                fixed == null ? null : new BigDecimal(fixed), null, null, null);
+    }
+}
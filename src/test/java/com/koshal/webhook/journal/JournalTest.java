@@ -0,0 +1,107 @@
+package com.koshal.webhook.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalTest {
+
+    private static final int SEGMENT_BYTES = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedRecordsAreReadBackInOrderAcrossSegments() throws Exception {
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 8)) {
+            for (int i = 1; i <= 10; i++) {
+                assertThat(journal.append(body(i), 1, TimeUnit.SECONDS)).isEqualTo(i);
+            }
+
+            List<JournalEntry> entries = journal.reader(0).poll(100);
+
+            assertThat(entries).extracting(JournalEntry::sequence).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+            assertThat(new String(entries.get(9).body(), StandardCharsets.UTF_8)).isEqualTo(text(10));
+            assertThat(journal.getSegmentCount()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    void reopeningReplaysRecordsAfterTheCheckpoint() throws Exception {
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 8)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.append(body(i), 1, TimeUnit.SECONDS);
+            }
+            journal.checkpoint(6);
+        }
+
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 8)) {
+            assertThat(journal.getCheckpointSequence()).isEqualTo(6);
+            assertThat(journal.reader(journal.getCheckpointSequence()).poll(100))
+                    .extracting(JournalEntry::sequence).containsExactly(7L, 8L, 9L, 10L);
+            assertThat(journal.append(body(11), 1, TimeUnit.SECONDS)).isEqualTo(11);
+        }
+    }
+
+    @Test
+    void checkpointRecyclesSegmentsAndFullJournalRejectsAppends() throws Exception {
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 2)) {
+            assertThatThrownBy(() -> {
+                for (int i = 1; i <= 100; i++) {
+                    journal.append(body(i), 1, TimeUnit.SECONDS);
+                }
+            }).isInstanceOf(Journal.JournalFullException.class);
+            long last = journal.getLastSequence();
+
+            journal.checkpoint(last);
+
+            assertThat(journal.getSegmentCount()).isEqualTo(1);
+            assertThat(journal.append(body(1), 1, TimeUnit.SECONDS)).isEqualTo(last + 1);
+            assertThat(segmentFiles()).hasSizeLessThanOrEqualTo(3);
+        }
+    }
+
+    @Test
+    void recoveryStopsAtACorruptRecord() throws Exception {
+        try (Journal journal = Journal.open(directory, 4096, 8)) {
+            for (int i = 1; i <= 3; i++) {
+                journal.append(body(i), 1, TimeUnit.SECONDS);
+            }
+        }
+        // Flip a byte in the body of the second record, as a torn write would
+        Path segment = segmentFiles().get(0);
+        byte[] content = Files.readAllBytes(segment);
+        int second = JournalSegment.HEADER_BYTES + body(1).length;
+        content[second + JournalSegment.HEADER_BYTES] ^= 1;
+        Files.write(segment, content);
+
+        try (Journal journal = Journal.open(directory, 4096, 8)) {
+            assertThat(journal.reader(0).poll(100)).extracting(JournalEntry::sequence).containsExactly(1L);
+            assertThat(journal.append(body(2), 1, TimeUnit.SECONDS)).isEqualTo(2);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegmentFile).sorted().toList();
+        }
+    }
+
+    private static byte[] body(int i) {
+        return text(i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(int i) {
+        return "{\"event_id\":\"evt_" + "0".repeat(40) + i + "\"}";
+    }
+}
@@ -0,0 +1,187 @@
+package com.koshal.webhook.outbound;
+
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.util.HmacKey;
+import com.koshal.webhook.util.HmacSignatureValidator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboundSenderTest {
+
+    private static final String PAYLOAD = "{\"event_id\":\"evt_1\",\"status\":\"COMPLETED\"}";
+    private static final HmacKey KEY = new HmacKey("subscriber-secret", HmacSignatureValidator.HMAC_SHA256);
+
+    private final List<HttpExchange> requests = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+    private final ExecutorService serverThreads = Executors.newFixedThreadPool(8);
+    private HttpServer server;
+    private OutboundSender sender;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (sender != null) {
+            sender.close();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void retriesServerErrorsUntilDelivered() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        IntSupplier statuses = () -> calls.incrementAndGet() <= 2 ? 500 : 200;
+        start(statuses, 4, null);
+
+        sender.submit(new Delivery(1, 1, "evt_1", PAYLOAD, 0));
+
+        assertThat(next()).isEqualTo("retrying 1 HTTP 500");
+        assertThat(next()).isEqualTo("retrying 2 HTTP 500");
+        assertThat(next()).isEqualTo("delivered 3");
+        assertThat(requests).hasSize(3);
+        HttpExchange last = requests.get(2);
+        assertThat(last.getRequestHeaders().getFirst(OutboundSender.EVENT_ID_HEADER)).isEqualTo("evt_1");
+        assertThat(last.getRequestHeaders().getFirst(OutboundSender.ATTEMPT_HEADER)).isEqualTo("3");
+        assertThat(new HmacSignatureValidator().isValidSignature(PAYLOAD.getBytes(),
+                last.getRequestHeaders().getFirst(OutboundSender.SIGNATURE_HEADER), KEY)).isTrue();
+        assertThat(sender.scheduled()).isZero();
+    }
+
+    @Test
+    void clientErrorsFailWithoutRetry() throws Exception {
+        start(() -> 400, 4, null);
+
+        sender.submit(new Delivery(1, 1, "evt_1", PAYLOAD, 0));
+
+        assertThat(next()).isEqualTo("failed 1 HTTP 400");
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() throws Exception {
+        start(() -> 503, 4, null);
+
+        sender.submit(new Delivery(1, 1, "evt_1", PAYLOAD, 0));
+
+        assertThat(next()).isEqualTo("retrying 1 HTTP 503");
+        assertThat(next()).isEqualTo("retrying 2 HTTP 503");
+        assertThat(next()).isEqualTo("failed 3 HTTP 503");
+    }
+
+    @Test
+    void keepsEachSubscriberWithinItsConcurrencyLimit() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger highest = new AtomicInteger();
+        start(() -> 200, 2, () -> {
+            highest.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            sleep(50);
+            concurrent.decrementAndGet();
+        });
+
+        for (int i = 0; i < 8; i++) {
+            sender.submit(new Delivery(i, 1, "evt_" + i, PAYLOAD, 0));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(next()).isEqualTo("delivered 1");
+        }
+        assertThat(highest.get()).isEqualTo(2);
+    }
+
+    @Test
+    void sendsDeliveriesWaitingForASlotInArrivalOrder() throws Exception {
+        start(() -> 200, 1, () -> sleep(20));
+
+        for (int i = 0; i < 5; i++) {
+            sender.submit(new Delivery(i, 1, "evt_" + i, PAYLOAD, 0));
+        }
+        assertThat(sender.parked()).isEqualTo(4);
+        assertThat(sender.scheduled()).isZero();
+        assertThat(sender.held()).hasSize(5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(next()).isEqualTo("delivered 1");
+        }
+        assertThat(requests).extracting(exchange -> exchange.getRequestHeaders().getFirst(OutboundSender.EVENT_ID_HEADER))
+                .containsExactly("evt_0", "evt_1", "evt_2", "evt_3", "evt_4");
+        assertThat(sender.parked()).isZero();
+        assertThat(sender.held()).isEmpty();
+    }
+
+    private void start(IntSupplier statuses, int maxConcurrency, Runnable handling) {
+        server.createContext("/hook", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            requests.add(exchange);
+            if (handling != null) {
+                handling.run();
+            }
+            exchange.sendResponseHeaders(statuses.getAsInt(), -1);
+            exchange.close();
+        });
+        Subscription subscription = new Subscription(1,
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hook"), KEY,
+                Set.of(TransactionStatus.COMPLETED), Set.of(), maxConcurrency);
+        OutboundSender.Settings settings = new OutboundSender.Settings(Duration.ofMillis(10), 64,
+                Duration.ofSeconds(5), 3, Duration.ofMillis(20), Duration.ofMillis(50));
+        sender = new OutboundSender(HttpClient.newHttpClient(), id -> id == 1 ? subscription : null,
+                new OutboundSender.Listener() {
+                    @Override
+                    public void delivered(Delivery delivery) {
+                        outcomes.add("delivered " + delivery.attempts());
+                    }
+
+                    @Override
+                    public void retrying(Delivery delivery, Instant nextAttemptAt, String error) {
+                        outcomes.add("retrying " + delivery.attempts() + " " + error);
+                    }
+
+                    @Override
+                    public void failed(Delivery delivery, String error) {
+                        outcomes.add("failed " + delivery.attempts() + " " + error);
+                    }
+                }, settings);
+        sender.start();
+    }
+
+    private String next() throws InterruptedException {
+        String outcome = outcomes.poll(5, TimeUnit.SECONDS);
+        assertThat(outcome).as("outcome within 5s").isNotNull();
+        return outcome;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
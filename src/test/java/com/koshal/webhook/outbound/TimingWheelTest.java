@@ -0,0 +1,89 @@
+package com.koshal.webhook.outbound;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    void firesTasksAtTheirTickNeverEarlier() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 0);
+        wheel.schedule("b", 250);
+        wheel.schedule("a", 100);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(99, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(100, fired::add);
+        assertThat(fired).containsExactly("a");
+        wheel.advance(299, fired::add);
+        assertThat(fired).containsExactly("a");
+        wheel.advance(300, fired::add);
+        assertThat(fired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesBeyondOneTurnWaitForTheirRound() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 0);
+        // Tick 3 and tick 19 share a bucket of the 8-bucket wheel
+        wheel.schedule("near", 300);
+        wheel.schedule("far", 1900);
+        List<String> fired = new ArrayList<>();
+
+        for (long now = 0; now <= 1800; now += TICK) {
+            wheel.advance(now, fired::add);
+        }
+        assertThat(fired).containsExactly("near");
+        wheel.advance(1900, fired::add);
+        assertThat(fired).containsExactly("near", "far");
+    }
+
+    @Test
+    void aLateAdvanceFiresEverythingMissed() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 8, 0);
+        for (int i = 1; i <= 40; i++) {
+            wheel.schedule(i, i * TICK);
+        }
+        wheel.advance(0, task -> { });
+        wheel.schedule(0, -5 * TICK);
+        List<Integer> fired = new ArrayList<>();
+
+        wheel.advance(2000, fired::add);
+        assertThat(fired).hasSize(21).contains(0, 1, 20).doesNotContain(21);
+        wheel.advance(4000, fired::add);
+        assertThat(fired).hasSize(41);
+    }
+
+    @Test
+    void holdsAHundredThousandPendingTasks() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 512, 0);
+        int tasks = 100_000;
+        for (long i = 0; i < tasks; i++) {
+            // Spread over 10 000 ticks, about 20 turns of the wheel
+            wheel.schedule(i, (i * 7919 % 10_000 + 1) * TICK);
+        }
+        assertThat(wheel.size()).isEqualTo(tasks);
+        long[] firedAt = new long[tasks];
+        long[] count = {0};
+
+        for (long now = 0; now <= 10_000 * TICK; now += TICK) {
+            long tick = now;
+            wheel.advance(now, task -> {
+                firedAt[task.intValue()] = tick;
+                count[0]++;
+            });
+        }
+        assertThat(count[0]).isEqualTo(tasks);
+        assertThat(wheel.size()).isZero();
+        for (int i = 0; i < tasks; i++) {
+            assertThat(firedAt[i]).isEqualTo(((long) i * 7919 % 10_000 + 1) * TICK);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.koshal.webhook.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SenderBucketsTest {
+
+    private static final long INTERVAL = 1_000;
+
+    @Test
+    void bucketAdmitsTheBurstThenTheSustainedRate() {
+        GcraBucket bucket = new GcraBucket();
+        long tolerance = INTERVAL * 2;
+
+        assertThat(bucket.tryAcquire(10_000, INTERVAL, tolerance)).isZero();
+        assertThat(bucket.tryAcquire(10_000, INTERVAL, tolerance)).isZero();
+        assertThat(bucket.tryAcquire(10_000, INTERVAL, tolerance)).isZero();
+        assertThat(bucket.tryAcquire(10_000, INTERVAL, tolerance)).isEqualTo(INTERVAL);
+
+        assertThat(bucket.tryAcquire(11_000, INTERVAL, tolerance)).isZero();
+        assertThat(bucket.tryAcquire(11_500, INTERVAL, tolerance)).isEqualTo(500);
+    }
+
+    @Test
+    void sendersHaveSeparateBucketsInABoundedTable() {
+        SenderBuckets buckets = new SenderBuckets(64);
+
+        assertThat(buckets.tryAcquire("usr_a", 10_000, INTERVAL, 0)).isZero();
+        assertThat(buckets.tryAcquire("usr_a", 10_000, INTERVAL, 0)).isEqualTo(INTERVAL);
+        assertThat(buckets.tryAcquire("usr_b", 10_000, INTERVAL, 0)).isZero();
+        assertThat(buckets.activeSenders(10_000)).isEqualTo(2);
+        assertThat(buckets.activeSenders(11_000)).isZero();
+
+        // Far more busy senders than slots: the table keeps its size and evicts
+        for (int i = 0; i < 1_000; i++) {
+            buckets.tryAcquire("usr_" + i, 20_000, 1_000_000, 0);
+        }
+        assertThat(buckets.capacity()).isEqualTo(64);
+        assertThat(buckets.activeSenders(20_000)).isLessThanOrEqualTo(64);
+        assertThat(buckets.evictions()).isGreaterThanOrEqualTo(1_000 - 64);
+
+        // Refilled buckets are reused without counting as evictions; eight senders never overflow a stripe
+        long evictions = buckets.evictions();
+        for (int i = 0; i < 8; i++) {
+            buckets.tryAcquire("usr_late_" + i, 5_000_000, INTERVAL, 0);
+        }
+        assertThat(buckets.evictions()).isEqualTo(evictions);
+    }
+
+    @Test
+    void policyResolvesSenderTiersAndRejectsAmbiguousOnes() {
+        RateLimitPolicy policy = RateLimitPolicy.compile(new RateLimit(1000, 2000, null), Map.of(
+                "standard", new RateLimit(10, 20, null),
+                "premium", new RateLimit(100, 1, List.of("usr_big"))), "standard");
+
+        assertThat(policy.forSender("usr_big").tier()).isEqualTo("premium");
+        assertThat(policy.forSender("usr_big").toleranceNanos()).isZero();
+        assertThat(policy.forSender("usr_small").intervalNanos()).isEqualTo(100_000_000);
+        assertThat(policy.global().toleranceNanos()).isEqualTo(1_999_000_000L);
+
+        assertThatThrownBy(() -> RateLimitPolicy.compile(null, Map.of(
+                "a", new RateLimit(10, 1, List.of("usr_x")),
+                "b", new RateLimit(10, 1, List.of("usr_x"))), "a"))
+                .hasMessageContaining("usr_x");
+        assertThatThrownBy(() -> RateLimitPolicy.compile(null, Map.of("a", new RateLimit(10, 1, null)), "standard"))
+                .hasMessageContaining("standard");
+    }
+}
@@ -0,0 +1,44 @@
+package com.koshal.webhook.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventIdDeduplicatorTest {
+
+    @Test
+    void unseenIdsAreNewAndRecordedIdsAreDuplicates() {
+        EventIdDeduplicator deduplicator = new EventIdDeduplicator(new SimpleMeterRegistry(), 1000, 0.01, 10);
+
+        assertThat(deduplicator.check("evt_1")).isEqualTo(EventIdDeduplicator.Verdict.NEW);
+
+        deduplicator.record("evt_1");
+
+        assertThat(deduplicator.check("evt_1")).isEqualTo(EventIdDeduplicator.Verdict.DUPLICATE);
+    }
+
+    @Test
+    void idsEvictedFromRecentSetNeedDatabaseLookup() {
+        EventIdDeduplicator deduplicator = new EventIdDeduplicator(new SimpleMeterRegistry(), 1000, 0.01, 2);
+
+        deduplicator.record("evt_1");
+        deduplicator.record("evt_2");
+        deduplicator.record("evt_3");
+
+        assertThat(deduplicator.check("evt_1")).isEqualTo(EventIdDeduplicator.Verdict.POSSIBLE_DUPLICATE);
+        assertThat(deduplicator.check("evt_3")).isEqualTo(EventIdDeduplicator.Verdict.DUPLICATE);
+    }
+
+    @Test
+    void oldGenerationsAreForgottenAfterTwoRotations() {
+        EventIdDeduplicator deduplicator = new EventIdDeduplicator(new SimpleMeterRegistry(), 10, 0.01, 1);
+
+        deduplicator.record("evt_old");
+        for (int i = 0; i < 30; i++) {
+            deduplicator.record("evt_" + i);
+        }
+
+        assertThat(deduplicator.check("evt_old")).isEqualTo(EventIdDeduplicator.Verdict.NEW);
+    }
+}
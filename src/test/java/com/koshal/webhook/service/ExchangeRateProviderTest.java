@@ -0,0 +1,43 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.service.ExchangeRateProvider.Snapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExchangeRateProviderTest {
+
+    @Test
+    void parseSkipsCommentsAndNormalizesCurrency() {
+        Snapshot snapshot = ExchangeRateProvider.parse("USD", List.of(
+                "# currency,rate_to_base",
+                "",
+                "eur, 1.0850",
+                "JPY,0.0066890000"), Instant.EPOCH);
+
+        assertThat(snapshot.rates()).hasSize(2);
+        assertThat(snapshot.rateToBase("EUR")).isEqualByComparingTo("1.0850");
+        assertThat(snapshot.rateToBase("JPY")).isEqualByComparingTo("0.006689");
+    }
+
+    @Test
+    void baseCurrencyIsOneAndUnknownCurrencyHasNoRate() {
+        Snapshot snapshot = ExchangeRateProvider.parse("USD", List.of("EUR,1.08"), Instant.EPOCH);
+
+        assertThat(snapshot.rateToBase("USD")).isEqualTo(BigDecimal.ONE);
+        assertThat(snapshot.rateToBase("GBP")).isNull();
+    }
+
+    @Test
+    void parseRejectsMalformedAndNonPositiveRates() {
+        assertThatThrownBy(() -> ExchangeRateProvider.parse("USD", List.of("EUR"), Instant.EPOCH))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ExchangeRateProvider.parse("USD", List.of("EUR,0"), Instant.EPOCH))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,90 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.TransactionAggregateDto;
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionAggregatesTest {
+
+    private final TransactionAggregates aggregates = new TransactionAggregates(null, new SimpleMeterRegistry(), 60);
+
+    @Test
+    void totalsSumCommittedTransactionsPerGroupRoundedLikeTheColumn() {
+        Instant now = Instant.now();
+        aggregates.add(List.of(
+                transaction("USD", TransactionStatus.COMPLETED, "card", "2500.75", "50.0150", now),
+                transaction("USD", TransactionStatus.COMPLETED, "card", "100.00", "2.0000", now),
+                transaction("EUR", TransactionStatus.FAILED, "card", "10.00", "0.2000", now)));
+
+        List<TransactionAggregateDto> usd = aggregates.totals("USD", null);
+
+        assertThat(usd).hasSize(1);
+        assertThat(usd.get(0).count()).isEqualTo(2);
+        assertThat(usd.get(0).amount()).isEqualByComparingTo("2600.75");
+        assertThat(usd.get(0).processingFee()).isEqualByComparingTo("52.02");
+        assertThat(usd.get(0).netAmount()).isEqualByComparingTo("2548.74");
+        assertThat(aggregates.totals(null, TransactionStatus.FAILED)).extracting(TransactionAggregateDto::currency)
+                .containsExactly("EUR");
+    }
+
+    @Test
+    void windowKeepsOnlyRecentMinutes() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+        aggregates.add(List.of(
+                transaction("USD", TransactionStatus.COMPLETED, "card", "1.00", "0", now),
+                transaction("USD", TransactionStatus.COMPLETED, "card", "2.00", "0", now.minus(5, ChronoUnit.MINUTES)),
+                transaction("USD", TransactionStatus.COMPLETED, "card", "4.00", "0", now.minus(2, ChronoUnit.HOURS))));
+
+        List<TransactionAggregateDto> perMinute = aggregates.window(now.minus(10, ChronoUnit.MINUTES),
+                now.plusSeconds(60), null, null, true);
+        List<TransactionAggregateDto> summed = aggregates.window(now.minus(10, ChronoUnit.MINUTES),
+                now.plusSeconds(60), null, null, false);
+
+        assertThat(perMinute).extracting(TransactionAggregateDto::minute)
+                .containsExactly(now.minus(5, ChronoUnit.MINUTES), now);
+        assertThat(summed).singleElement().satisfies(row -> assertThat(row.amount()).isEqualByComparingTo("3.00"));
+        assertThat(aggregates.totals(null, null)).singleElement()
+                .satisfies(row -> assertThat(row.amount()).isEqualByComparingTo("7.00"));
+    }
+
+    @Test
+    void statusUpdateMovesTheTransactionToItsNewGroup() {
+        Instant now = Instant.now();
+        Transaction pending = transaction("USD", TransactionStatus.PENDING, "card", "10.00", "0.20", now);
+        aggregates.add(List.of(pending));
+
+        aggregates.remove(List.of(pending));
+        aggregates.add(List.of(transaction("USD", TransactionStatus.COMPLETED, "card", "10.00", "0.20", now)));
+
+        assertThat(aggregates.totals(null, null)).singleElement().satisfies(row -> {
+            assertThat(row.status()).isEqualTo(TransactionStatus.COMPLETED);
+            assertThat(row.count()).isEqualTo(1);
+        });
+        assertThat(aggregates.window(now.minusSeconds(60), now.plusSeconds(60), null, TransactionStatus.PENDING, false))
+                .isEmpty();
+    }
+
+    private static Transaction transaction(String currency, TransactionStatus status, String method,
+                                           String amount, String fee, Instant processedAt) {
+        BigDecimal value = new BigDecimal(amount);
+        BigDecimal processingFee = new BigDecimal(fee);
+        return Transaction.builder()
+                .currency(currency)
+                .status(status)
+                .paymentMethod(method)
+                .amount(value)
+                .processingFee(processingFee)
+                .netAmount(value.subtract(processingFee))
+                .processedAt(processedAt)
+                .build();
+    }
+}
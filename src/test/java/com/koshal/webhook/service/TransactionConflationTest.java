@@ -0,0 +1,70 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.service.TransactionConflation.Plan;
+import com.koshal.webhook.service.TransactionConflation.Result;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionConflationTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void rapidUpdatesOfOneTransactionCollapseIntoTheFinalState() {
+        Plan plan = TransactionConflation.plan(List.of(
+                update("evt_1", "txn_1", TransactionStatus.PENDING, 0),
+                update("evt_2", "txn_1", TransactionStatus.COMPLETED, 2),
+                update("evt_3", "txn_2", TransactionStatus.PENDING, 1)), Map.of());
+
+        assertThat(plan.writes()).extracting(Transaction::getEventId).containsExactly("evt_2", "evt_3");
+        assertThat(plan.previous()).isEmpty();
+        assertThat(plan.count(Result.APPLIED)).isEqualTo(3);
+    }
+
+    @Test
+    void outOfOrderEventsSettleByEventTimestamp() {
+        Transaction stored = update("evt_1", "txn_1", TransactionStatus.PENDING, 0);
+
+        // Completed arrives before the older pending update; applied in timestamp order, completed still wins
+        Plan plan = TransactionConflation.plan(List.of(
+                update("evt_3", "txn_1", TransactionStatus.COMPLETED, 5),
+                update("evt_2", "txn_1", TransactionStatus.PENDING, 3)), Map.of("txn_1", stored));
+
+        assertThat(plan.writes()).singleElement().extracting(Transaction::getEventId).isEqualTo("evt_3");
+        assertThat(plan.previous()).containsEntry("txn_1", stored);
+        assertThat(plan.results()).containsEntry("evt_2", Result.APPLIED).containsEntry("evt_3", Result.APPLIED);
+
+        Transaction completed = update("evt_3", "txn_1", TransactionStatus.COMPLETED, 5);
+        assertThat(TransactionConflation.apply(completed, update("evt_2", "txn_1", TransactionStatus.PENDING, 3)))
+                .isEqualTo(Result.SUPERSEDED);
+    }
+
+    @Test
+    void settledTransactionsDoNotChangeStatus() {
+        Transaction completed = update("evt_1", "txn_1", TransactionStatus.COMPLETED, 0);
+
+        Plan plan = TransactionConflation.plan(List.of(update("evt_2", "txn_1", TransactionStatus.FAILED, 1)),
+                Map.of("txn_1", completed));
+
+        assertThat(plan.writes()).isEmpty();
+        assertThat(plan.results()).containsEntry("evt_2", Result.INVALID_TRANSITION);
+        assertThat(TransactionStatus.PENDING.canTransitionTo(TransactionStatus.FAILED)).isTrue();
+        assertThat(TransactionStatus.FAILED.canTransitionTo(TransactionStatus.PENDING)).isFalse();
+    }
+
+    private static Transaction update(String eventId, String transactionId, TransactionStatus status, long seconds) {
+        return Transaction.builder()
+                .eventId(eventId)
+                .transactionId(transactionId)
+                .status(status)
+                .eventTimestamp(T0.plusSeconds(seconds))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.TransactionFilter;
+import com.koshal.webhook.dto.TransactionPageDto;
+import com.koshal.webhook.dto.TransactionSummaryDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The migrations are MySQL only, so the schema comes from the entities on an embedded H2
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=false"})
+@Import(TransactionQueryService.class)
+class TransactionQueryServiceTest {
+
+    private static final TransactionFilter NO_FILTER = new TransactionFilter(null, null, null, null, null, null);
+    private static final Instant PROCESSED_AT = Instant.parse("2025-10-28T14:30:00.123456Z");
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionQueryService queryService;
+
+    @Test
+    void pagesAcrossEqualProcessedAtByIdWithoutGapsOrRepeats() {
+        long older = save("txn_older", PROCESSED_AT.minusSeconds(1));
+        List<Long> tied = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tied.add(save("txn_tied_" + i, PROCESSED_AT));
+        }
+        long newer = save("txn_newer", PROCESSED_AT.plusSeconds(1));
+
+        List<List<Long>> pages = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPageDto page = queryService.findTransactions(NO_FILTER, cursor, 2);
+            pages.add(page.items().stream().map(TransactionSummaryDto::id).toList());
+            cursor = page.nextCursor();
+            cursors.add(cursor);
+        } while (cursor != null);
+
+        // Page boundaries fall inside the tie, which only the id can break
+        assertThat(pages).containsExactly(
+                List.of(newer, tied.get(4)),
+                List.of(tied.get(3), tied.get(2)),
+                List.of(tied.get(1), tied.get(0)),
+                List.of(older));
+        assertThat(decode(cursors.get(0))).isEqualTo(
+                PROCESSED_AT.getEpochSecond() + ":" + PROCESSED_AT.getNano() + ":" + tied.get(4));
+        assertThat(cursors.get(3)).isNull();
+    }
+
+    @Test
+    void aFullLastPageHasNoCursor() {
+        long first = save("txn_1", PROCESSED_AT);
+        long second = save("txn_2", PROCESSED_AT);
+
+        TransactionPageDto page = queryService.findTransactions(NO_FILTER, null, 2);
+
+        assertThat(page.items()).extracting(TransactionSummaryDto::id).containsExactly(second, first);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsACursorItDidNotIssue() {
+        String twoParts = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1761661800:0".getBytes(StandardCharsets.US_ASCII));
+
+        for (String cursor : List.of("not base64!", twoParts)) {
+            assertThatThrownBy(() -> queryService.findTransactions(NO_FILTER, cursor, 2))
+                    .isInstanceOfSatisfying(ApiException.class, e -> {
+                        assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+                        assertThat(e).hasMessage("Invalid cursor");
+                    });
+        }
+    }
+
+    private long save(String transactionId, Instant processedAt) {
+        return transactionRepository.saveAndFlush(Transaction.builder()
+                .eventId("evt_" + transactionId)
+                .transactionId(transactionId)
+                .amount(new BigDecimal("10.00"))
+                .currency("USD")
+                .status(TransactionStatus.COMPLETED)
+                .processedAt(processedAt)
+                .build()).getId();
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,82 @@
+package com.koshal.webhook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebhookBatchIngestionServiceTest {
+
+    private static final String ITEM = """
+            {"event_id":"%s","event_type":"transaction.completed","timestamp":"2025-10-28T14:30:00Z",
+             "data":{"transaction_id":"txn_%s","amount":10.50,"currency":"USD",
+             "sender":{"id":"s1","name":"Alice","email":"a@example.com","country":"US"},
+             "receiver":{"id":"r1","name":"Raj","email":"r@example.in","country":"IN"},
+             "status":"completed","payment_method":"card"}}""".replace("\n", "");
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebhookMetrics metrics = new WebhookMetrics(meterRegistry);
+    private final WebhookBatchIngestionService service = new WebhookBatchIngestionService(
+            mapper,
+            new WebhookPayloadReader(mapper, Validation.buildDefaultValidatorFactory().getValidator(), metrics),
+            webhookService,
+            mock(SenderRateLimiter.class),
+            metrics);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void answersEveryNdjsonItemInOrderAndStoresItsRawBytes() throws Exception {
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        when(webhookService.processBatch(anyList())).thenAnswer(invocation -> {
+            List<IncomingWebhook> webhooks = invocation.getArgument(0);
+            assertThat(new String(webhooks.get(0).rawBody(), StandardCharsets.UTF_8)).isEqualTo(item("evt_1"));
+            return Set.of("evt_1");
+        });
+        String body = item("evt_1") + "\n" + item("evt_1").replace("USD", "XXX") + "\n" + item("evt_2") + "\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.ingest(body.getBytes(StandardCharsets.UTF_8), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).contains("\"index\":0", "\"result\":\"ok\"");
+        assertThat(lines.get(1)).contains("\"index\":1", "\"result\":\"invalid\"", "data.currency");
+        assertThat(lines.get(2)).contains("\"index\":2", "\"event_id\":\"evt_2\"", "\"result\":\"duplicate\"");
+        assertThat(meterRegistry.get("webhook.outcome").tag("outcome", "validation_error").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void acceptsJsonArrayAndReportsDuplicatesWithinTheBatch() throws Exception {
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        when(webhookService.processBatch(anyList())).thenReturn(Set.of("evt_1"));
+        String body = "[" + item("evt_1") + "," + item("evt_1") + "]";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.ingest(body.getBytes(StandardCharsets.UTF_8), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"result\":\"ok\"");
+        assertThat(lines.get(1)).contains("\"result\":\"duplicate\"");
+    }
+
+    private static String item(String eventId) {
+        return ITEM.formatted(eventId, eventId);
+    }
+}
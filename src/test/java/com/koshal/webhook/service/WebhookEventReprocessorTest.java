@@ -0,0 +1,79 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.repository.WebhookEventStateRepository;
+import com.koshal.webhook.repository.WebhookEventStateRepository.StoredEvent;
+import com.koshal.webhook.service.WebhookEventReprocessor.ReplayResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookEventReprocessorTest {
+
+    private static final Instant FROM = Instant.parse("2026-10-18T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-10-19T00:00:00Z");
+
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final WebhookEventStateRepository repository = mock(WebhookEventStateRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebhookEventReprocessor reprocessor = new WebhookEventReprocessor(webhookService, repository,
+            transactionTemplate, meterRegistry, true, 2, 2, 4, 30, 100, 300);
+
+    @AfterEach
+    void shutdown() {
+        reprocessor.shutdown();
+    }
+
+    @Test
+    void backoffDoublesUpToTheCapUntilTheAttemptsRunOut() {
+        Instant start = Instant.now();
+
+        assertThat(Duration.between(start, reprocessor.retryAt(1)).toSeconds()).isBetween(30L, 31L);
+        assertThat(Duration.between(start, reprocessor.retryAt(2)).toSeconds()).isBetween(60L, 61L);
+        assertThat(Duration.between(start, reprocessor.retryAt(3)).toSeconds()).isBetween(100L, 101L);
+        assertThat(reprocessor.retryAt(4)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayWalksFailedEventsByIdUpToTheLimit() {
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        // Ids 1 to 7 are failed; each claim returns the next ones after the id given
+        when(repository.claimFailed(eq(FROM), eq(TO), anyLong(), any(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(2);
+            int limit = invocation.getArgument(4);
+            return LongStream.rangeClosed(after + 1, Math.min(7, after + limit))
+                    .mapToObj(id -> new StoredEvent(id, FROM, "evt_" + id, new byte[0], "none", 4, TO))
+                    .toList();
+        });
+        when(webhookService.reprocess(any(), any())).thenAnswer(
+                invocation -> ((StoredEvent) invocation.getArgument(0)).id() % 2 == 0);
+
+        ReplayResult result = reprocessor.replay(FROM, TO, 5);
+
+        assertThat(result).isEqualTo(new ReplayResult(5, 2, 3));
+        verify(repository).claimFailed(eq(FROM), eq(TO), eq(4L), any(), eq(1));
+        // Dead letters get one more attempt, and no further retry after it
+        verify(webhookService).reprocess(argThat(event -> event.id() == 5), eq(null));
+        assertThat(meterRegistry.get("webhook.reprocess.attempts").tag("result", "failed").counter().count())
+                .isEqualTo(3);
+    }
+}
@@ -0,0 +1,43 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.service.WebhookEventRetentionService.Partition;
+import com.koshal.webhook.service.WebhookEventRetentionService.Plan;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookEventRetentionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Test
+    void partitionsEndingOnOrBeforeTheCutoffExpire() {
+        List<Partition> partitions = List.of(
+                new Partition("p_history", LocalDate.of(2026, 7, 1)),
+                new Partition("p20260719", LocalDate.of(2026, 7, 20)),
+                new Partition("p20260720", LocalDate.of(2026, 7, 21)),
+                new Partition("p20261025", LocalDate.of(2026, 10, 26)),
+                new Partition("p_max", null));
+
+        Plan plan = WebhookEventRetentionService.plan(partitions, TODAY, 90, 7);
+
+        // Cutoff is 2026-07-20: p20260720 still holds rows from that day
+        assertThat(plan.expired()).extracting(Partition::name).containsExactly("p_history", "p20260719");
+        assertThat(plan.newBounds()).isEmpty();
+    }
+
+    @Test
+    void missingDaysAheadAreAdded() {
+        List<Partition> partitions = List.of(
+                new Partition("p20261018", LocalDate.of(2026, 10, 19)),
+                new Partition("p_max", null));
+
+        Plan plan = WebhookEventRetentionService.plan(partitions, TODAY, 90, 2);
+
+        assertThat(plan.expired()).isEmpty();
+        assertThat(plan.newBounds()).containsExactly(LocalDate.of(2026, 10, 20), LocalDate.of(2026, 10, 21));
+    }
+}
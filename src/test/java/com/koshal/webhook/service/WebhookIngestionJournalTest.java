@@ -0,0 +1,73 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.journal.Journal;
+import com.koshal.webhook.model.enums.EventStatus;
+import com.koshal.webhook.model.enums.IngestionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebhookIngestionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final WebhookPayloadReader payloadReader = mock(WebhookPayloadReader.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void keepsRecordsTheDatabaseCouldNotStoreUntilTheyApply() throws Exception {
+        when(payloadReader.read(any())).thenAnswer(invocation -> WebhookPayloadDto.builder()
+                .eventId(new String(invocation.<byte[]>getArgument(0), StandardCharsets.UTF_8))
+                .build());
+        when(webhookService.processBatch(anyList())).thenThrow(
+                new ApiException("Webhook batch processing failed", HttpStatus.INTERNAL_SERVER_ERROR));
+        // evt_2 cannot be stored on its first two tries, as during a brief outage
+        AtomicInteger evt2Attempts = new AtomicInteger();
+        CountDownLatch evt2Stored = new CountDownLatch(1);
+        when(webhookService.processWebhook(any())).thenAnswer(invocation -> {
+            String eventId = invocation.<IncomingWebhook>getArgument(0).eventId();
+            if (eventId.equals("evt_2")) {
+                if (evt2Attempts.incrementAndGet() <= 2) {
+                    throw new ApiException("Webhook processing failed", HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+                evt2Stored.countDown();
+            }
+            return EventStatus.PROCESSED;
+        });
+        WebhookIngestionJournal ingestion = new WebhookIngestionJournal(webhookService, payloadReader, meterRegistry,
+                IngestionMode.JOURNAL, directory, 1 << 20, 4, 5000, 10, 5);
+        ingestion.start();
+
+        for (String eventId : List.of("evt_1", "evt_2", "evt_3")) {
+            ingestion.append(eventId.getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(evt2Stored.await(10, TimeUnit.SECONDS)).isTrue();
+        ingestion.stop();
+
+        assertThat(evt2Attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("webhook.journal.dropped").count()).isZero();
+        assertThat(meterRegistry.counter("webhook.journal.applied").count()).isEqualTo(3);
+        try (Journal journal = Journal.open(directory, 1 << 20, 4)) {
+            assertThat(journal.getCheckpointSequence()).isEqualTo(3);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.model.enums.EventStatus;
+import com.koshal.webhook.model.enums.IngestionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookIngestionQueueTest {
+
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebhookIngestionQueue queue;
+
+    @AfterEach
+    void stop() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void drainsEverythingQueuedInBatchesOfAtMostTheBatchSize() throws Exception {
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        Set<String> written = Collections.synchronizedSet(new HashSet<>());
+        when(webhookService.processBatch(anyList())).thenAnswer(invocation -> {
+            List<IncomingWebhook> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            firstBatch.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            Set<String> stored = new HashSet<>();
+            batch.forEach(webhook -> stored.add(webhook.eventId()));
+            written.addAll(stored);
+            return stored;
+        });
+        queue = start(100, 10, 1);
+
+        queue.enqueue(webhook("evt_0"));
+        // The writer holds the first event while 25 more pile up behind it
+        assertThat(firstBatch.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 25; i++) {
+            queue.enqueue(webhook("evt_" + i));
+        }
+        release.countDown();
+        queue.stop();
+
+        assertThat(written).hasSize(26);
+        assertThat(batchSizes).containsExactly(1, 10, 10, 5);
+        assertThat(meterRegistry.counter("webhook.ingestion.persisted").count()).isEqualTo(26);
+    }
+
+    @Test
+    void aFailedBatchIsWrittenOneWebhookAtATime() {
+        when(webhookService.processBatch(anyList())).thenThrow(
+                new ApiException("Webhook batch processing failed", HttpStatus.INTERNAL_SERVER_ERROR));
+        when(webhookService.processWebhook(argThat(webhook -> webhook != null && webhook.eventId().equals("evt_ok"))))
+                .thenReturn(EventStatus.PROCESSED);
+        when(webhookService.processWebhook(argThat(webhook -> webhook != null && webhook.eventId().equals("evt_retry"))))
+                .thenReturn(EventStatus.FAILED);
+        when(webhookService.processWebhook(argThat(webhook -> webhook != null && webhook.eventId().equals("evt_dup"))))
+                .thenThrow(new ApiException("Duplicate event: evt_dup", HttpStatus.CONFLICT));
+        when(webhookService.processWebhook(argThat(webhook -> webhook != null && webhook.eventId().equals("evt_bad"))))
+                .thenThrow(new ApiException("Webhook processing failed", HttpStatus.INTERNAL_SERVER_ERROR));
+        queue = start(100, 10, 1);
+
+        for (String eventId : List.of("evt_ok", "evt_retry", "evt_dup", "evt_bad")) {
+            queue.enqueue(webhook(eventId));
+        }
+        queue.stop();
+
+        verify(webhookService, times(4)).processWebhook(any());
+        assertThat(meterRegistry.counter("webhook.ingestion.persisted").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("webhook.ingestion.reprocessing").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("webhook.ingestion.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void answers503WhenTheQueueIsFullOrStopped() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(webhookService.processBatch(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Set.of();
+        });
+        queue = start(2, 1, 1);
+
+        queue.enqueue(webhook("evt_0"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.enqueue(webhook("evt_1"));
+        queue.enqueue(webhook("evt_2"));
+
+        assertThatThrownBy(() -> queue.enqueue(webhook("evt_3")))
+                .isInstanceOfSatisfying(ApiException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(meterRegistry.counter("webhook.ingestion.queue.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        queue.stop();
+        verify(webhookService, times(3)).processBatch(anyList());
+        assertThatThrownBy(() -> queue.enqueue(webhook("evt_4")))
+                .isInstanceOfSatisfying(ApiException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    private WebhookIngestionQueue start(int capacity, int batchSize, int writers) {
+        WebhookIngestionQueue started = new WebhookIngestionQueue(
+                webhookService, meterRegistry, IngestionMode.ASYNC, capacity, batchSize, writers, 5);
+        started.start();
+        return started;
+    }
+
+    private static IncomingWebhook webhook(String eventId) {
+        return new IncomingWebhook(WebhookPayloadDto.builder().eventId(eventId).build(), new byte[0]);
+    }
+}
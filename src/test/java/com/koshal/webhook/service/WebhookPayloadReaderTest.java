@@ -0,0 +1,131 @@
+package com.koshal.webhook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.exception.GlobalExceptionHandler.ApiException;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookPayloadReaderTest {
+
+    private static final String PAYLOAD = """
+            {"event_id":"evt_1","event_type":"transaction.completed","timestamp":"2025-10-28T14:30:00Z",
+             "data":{"transaction_id":"txn_1","amount":10.50,"currency":"USD",
+             "sender":{"id":"s1","name":"Alice","email":"a@example.com","country":"US"},
+             "receiver":{"id":"r1","name":"Raj","email":"r@example.in","country":"IN"},
+             "status":"completed","payment_method":"card","metadata":{"reference":"INV-1"}}}""";
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final WebhookPayloadReader reader =
+            new WebhookPayloadReader(mapper, validator, new WebhookMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void bindsEveryField() {
+        WebhookPayloadDto payload = reader.read(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(payload.getEventId()).isEqualTo("evt_1");
+        assertThat(payload.getTimestamp()).isEqualTo(Instant.parse("2025-10-28T14:30:00Z"));
+        assertThat(payload.getData().getAmount()).isEqualByComparingTo(new BigDecimal("10.50"));
+        assertThat(payload.getData().getSender().getEmail()).isEqualTo("a@example.com");
+        assertThat(payload.getData().getReceiver().getCountry()).isEqualTo("IN");
+        assertThat(payload.getData().getPaymentMethod()).isEqualTo("card");
+        assertThat(payload.getData().getMetadata().getReference()).isEqualTo("INV-1");
+    }
+
+    @Test
+    void acceptsCurrencyAndStatusInAnyCase() {
+        WebhookPayloadDto payload = reader.read(mutate(json -> {
+            data(json).put("currency", "inr");
+            data(json).put("status", "PENDING");
+        }));
+
+        assertThat(payload.getData().getCurrency()).isEqualTo("inr");
+        assertThat(payload.getData().getStatus()).isEqualTo("PENDING");
+    }
+
+    @Test
+    void reportsTheSameMessageAsBeanValidation() throws Exception {
+        List<Consumer<ObjectNode>> mutations = List.of(
+                json -> json.remove("event_id"),
+                json -> json.put("event_type", " \t"),
+                json -> json.putNull("timestamp"),
+                json -> json.remove("data"),
+                json -> data(json).put("transaction_id", ""),
+                json -> data(json).remove("amount"),
+                json -> data(json).put("amount", 0.001),
+                json -> data(json).put("amount", -5),
+                json -> data(json).put("currency", "XYZ"),
+                json -> data(json).put("currency", "US"),
+                json -> data(json).put("currency", " "),
+                json -> data(json).put("status", "refunded"),
+                json -> data(json).remove("status"),
+                json -> data(json).remove("receiver"),
+                json -> ((ObjectNode) data(json).get("sender")).remove("id"),
+                json -> ((ObjectNode) data(json).get("receiver")).put("name", ""),
+                json -> ((ObjectNode) data(json).get("sender")).put("email", "not-an-email"),
+                json -> ((ObjectNode) data(json).get("receiver")).put("country", "IND"));
+
+        for (Consumer<ObjectNode> mutation : mutations) {
+            byte[] body = mutate(mutation);
+            Set<ConstraintViolation<WebhookPayloadDto>> violations =
+                    validator.validate(mapper.readValue(body, WebhookPayloadDto.class));
+            assertThat(violations).hasSize(1);
+            ConstraintViolation<WebhookPayloadDto> violation = violations.iterator().next();
+
+            assertThatThrownBy(() -> reader.read(body))
+                    .isInstanceOf(ApiException.class)
+                    .hasMessage(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+    }
+
+    @Test
+    void stopsAtTheFirstInvalidField() {
+        byte[] body = """
+                {"event_id":"evt_1","data":{"currency":"XYZ","status":"refunded"}""".getBytes(StandardCharsets.UTF_8);
+
+        // The body is cut short too, but the currency is reported before the parser gets there
+        assertThatThrownBy(() -> reader.read(body)).hasMessage(
+                "data.currency: Currency must be a valid ISO 4217 currency code");
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndOtherTypesAsMalformed() {
+        assertThatThrownBy(() -> reader.read(mutate(json -> data(json).put("fee", 1))))
+                .hasMessageStartingWith("Malformed webhook payload: Unrecognized field \"fee\"");
+        assertThatThrownBy(() -> reader.read(mutate(json -> data(json).putArray("sender"))))
+                .hasMessageStartingWith("Malformed webhook payload: Cannot deserialize value of type `com.koshal.webhook.dto.PartyDto`");
+        assertThatThrownBy(() -> reader.read("null".getBytes(StandardCharsets.UTF_8)))
+                .hasMessage("Invalid request");
+    }
+
+    private byte[] mutate(Consumer<ObjectNode> mutation) {
+        try {
+            ObjectNode json = (ObjectNode) mapper.readTree(PAYLOAD);
+            mutation.accept(json);
+            return mapper.writeValueAsBytes(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ObjectNode data(ObjectNode json) {
+        return (ObjectNode) json.get("data");
+    }
+}
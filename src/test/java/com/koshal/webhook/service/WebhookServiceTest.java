@@ -0,0 +1,254 @@
+package com.koshal.webhook.service;
+
+import com.koshal.webhook.codec.PayloadCodecs;
+import com.koshal.webhook.dto.IncomingWebhook;
+import com.koshal.webhook.dto.PartyDto;
+import com.koshal.webhook.dto.TransactionAggregateDto;
+import com.koshal.webhook.dto.TransactionDataDto;
+import com.koshal.webhook.dto.WebhookPayloadDto;
+import com.koshal.webhook.metrics.WebhookMetrics;
+import com.koshal.webhook.model.Transaction;
+import com.koshal.webhook.model.enums.EventStatus;
+import com.koshal.webhook.model.enums.TransactionStatus;
+import com.koshal.webhook.repository.TransactionUpsertRepository;
+import com.koshal.webhook.repository.WebhookEventIdRepository;
+import com.koshal.webhook.repository.WebhookEventRepository;
+import com.koshal.webhook.repository.WebhookEventStateRepository;
+import com.koshal.webhook.repository.WebhookEventStateRepository.StoredEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The upsert and the locking read run on an embedded H2 in MySQL mode; collaborators off that path are mocked
+class WebhookServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-10-28T14:30:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboundDispatcher outboundDispatcher = mock(OutboundDispatcher.class);
+    private final ExchangeRateProvider exchangeRateProvider = mock(ExchangeRateProvider.class);
+    private final WebhookEventStateRepository eventStateRepository = mock(WebhookEventStateRepository.class);
+    private final WebhookPayloadReader payloadReader = mock(WebhookPayloadReader.class);
+    private final List<List<TransactionStatus>> published = new CopyOnWriteArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionAggregates aggregates;
+    private WebhookService webhookService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:webhook-service;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE transactions (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    event_id VARCHAR(255) NOT NULL UNIQUE,
+                    transaction_id VARCHAR(255) NOT NULL UNIQUE,
+                    amount DECIMAL(19, 2), currency VARCHAR(3),
+                    sender_id VARCHAR(255), sender_name VARCHAR(255), sender_country VARCHAR(2),
+                    receiver_id VARCHAR(255), receiver_name VARCHAR(255), receiver_country VARCHAR(2),
+                    payment_method VARCHAR(255), processing_fee DECIMAL(19, 4), net_amount DECIMAL(19, 4),
+                    exchange_rate DECIMAL(24, 10), base_amount DECIMAL(19, 2), processed_at DATETIME,
+                    status VARCHAR(20), event_timestamp DATETIME(3)
+                )""");
+
+        FeeCalculator feeCalculator = mock(FeeCalculator.class);
+        when(feeCalculator.fee(any())).thenReturn(BigDecimal.ZERO);
+        when(exchangeRateProvider.snapshot()).thenReturn(new ExchangeRateProvider.Snapshot("USD", Map.of(), T0));
+        recordPublished();
+
+        aggregates = new TransactionAggregates(jdbcTemplate, meterRegistry, 1440);
+        webhookService = new WebhookService(
+                new TransactionUpsertRepository(jdbcTemplate),
+                mock(WebhookEventRepository.class),
+                mock(WebhookEventIdRepository.class),
+                new EventIdDeduplicator(meterRegistry, 1000, 0.01, 100),
+                mock(PayloadCodecs.class, RETURNS_DEEP_STUBS),
+                new WebhookMetrics(meterRegistry),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                aggregates,
+                exchangeRateProvider,
+                feeCalculator,
+                outboundDispatcher,
+                eventStateRepository,
+                payloadReader);
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP TABLE transactions");
+    }
+
+    @Test
+    void concurrentUpdatesOfOneTransactionFollowTheStateTheTableTook() throws Exception {
+        webhookService.processWebhook(webhook("evt_1", TransactionStatus.PENDING, T0));
+        published.clear();
+
+        // The first update holds its write transaction open until the second has had time to reach the lock
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (holding.getCount() > 0) {
+                holding.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            published.add(statuses(invocation.getArgument(0)));
+            return null;
+        }).when(outboundDispatcher).capture(anyList());
+
+        CompletableFuture<EventStatus> completed = CompletableFuture.supplyAsync(() ->
+                webhookService.processWebhook(webhook("evt_2", TransactionStatus.COMPLETED, T0.plusSeconds(1))));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<EventStatus> failed = CompletableFuture.supplyAsync(() ->
+                webhookService.processWebhook(webhook("evt_3", TransactionStatus.FAILED, T0.plusSeconds(2))));
+        Thread.sleep(300);
+        release.countDown();
+
+        assertThat(completed.get(10, TimeUnit.SECONDS)).isEqualTo(EventStatus.PROCESSED);
+        assertThat(failed.get(10, TimeUnit.SECONDS)).isEqualTo(EventStatus.PROCESSED);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM transactions WHERE transaction_id = 'txn_1'",
+                String.class)).isEqualTo("COMPLETED");
+        // The failure came second, saw COMPLETED and changed nothing
+        assertThat(published).containsExactlyInAnyOrder(List.of(TransactionStatus.COMPLETED), List.of());
+        assertThat(aggregates.totals(null, null)).singleElement().satisfies(row -> {
+            assertThat(row.status()).isEqualTo(TransactionStatus.COMPLETED);
+            assertThat(row.count()).isEqualTo(1);
+        });
+        assertThat(meterRegistry.counter("webhook.outcome", "outcome", "invalid_transition").count()).isEqualTo(1);
+    }
+
+    @Test
+    void processedAtIsKeptInTheWholeSecondsTheColumnStores() {
+        webhookService.processWebhook(webhook("evt_1", TransactionStatus.PENDING, T0));
+
+        Instant stored = jdbcTemplate.queryForObject(
+                "SELECT processed_at FROM transactions WHERE transaction_id = 'txn_1'", Timestamp.class).toInstant();
+        assertThat(stored.getNano()).isZero();
+        assertThat(aggregates.window(stored.minusSeconds(60), stored.plusSeconds(60), null, null, true))
+                .singleElement()
+                .satisfies(row -> assertThat(row.minute()).isEqualTo(stored.truncatedTo(ChronoUnit.MINUTES)));
+    }
+
+    @Test
+    void updatesKeepTheProcessedAtTheTransactionWasFirstStoredWith() {
+        webhookService.processWebhook(webhook("evt_1", TransactionStatus.PENDING, T0));
+        Instant firstStored = T0.minusSeconds(3600);
+        jdbcTemplate.update("UPDATE transactions SET processed_at = ? WHERE transaction_id = 'txn_1'",
+                Timestamp.from(firstStored));
+        List<Transaction> captured = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> captured.addAll(invocation.getArgument(0)))
+                .when(outboundDispatcher).capture(anyList());
+
+        webhookService.processWebhook(webhook("evt_2", TransactionStatus.COMPLETED, T0.plusSeconds(1)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT processed_at FROM transactions WHERE transaction_id = 'txn_1'",
+                Timestamp.class).toInstant()).isEqualTo(firstStored);
+        assertThat(captured).singleElement().satisfies(written -> {
+            assertThat(written.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+            assertThat(written.getProcessedAt()).isEqualTo(firstStored);
+        });
+
+        // The upsert keeps it too, whatever the state written carries
+        new TransactionUpsertRepository(jdbcTemplate).upsert(List.of(Transaction.builder()
+                .eventId("evt_3")
+                .transactionId("txn_1")
+                .status(TransactionStatus.COMPLETED)
+                .eventTimestamp(T0.plusSeconds(2))
+                .processedAt(T0)
+                .build()));
+        assertThat(jdbcTemplate.queryForMap(
+                "SELECT event_id, processed_at FROM transactions WHERE transaction_id = 'txn_1'"))
+                .containsEntry("event_id", "evt_3")
+                .containsEntry("processed_at", Timestamp.from(firstStored));
+    }
+
+    @Test
+    void storesAndConvertsALowercaseCurrencyUnderItsIsoCode() {
+        when(exchangeRateProvider.snapshot()).thenReturn(new ExchangeRateProvider.Snapshot(
+                "USD", Map.of("EUR", new BigDecimal("1.1")), T0));
+
+        webhookService.processWebhook(webhook("evt_1", TransactionStatus.COMPLETED, T0, "eur"));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT currency, base_amount FROM transactions WHERE transaction_id = 'txn_1'");
+        assertThat(row.get("currency")).isEqualTo("EUR");
+        assertThat((BigDecimal) row.get("base_amount")).isEqualByComparingTo("11.00");
+        assertThat(aggregates.totals(null, null)).singleElement()
+                .satisfies(total -> assertThat(total.currency()).isEqualTo("EUR"));
+    }
+
+    @Test
+    void reprocessingRollsBackWhenTheClaimWasLostToAnotherInstance() {
+        when(payloadReader.read(any())).thenReturn(
+                webhook("evt_1", TransactionStatus.COMPLETED, T0).payload());
+        when(eventStateRepository.markProcessed(any())).thenReturn(false);
+        StoredEvent event = new StoredEvent(1, T0, "evt_1", new byte[0], "none", 1, T0.plusSeconds(300));
+
+        assertThat(webhookService.reprocess(event, null)).isFalse();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class)).isZero();
+        assertThat(aggregates.totals(null, null)).isEmpty();
+        verify(eventStateRepository, never()).markFailed(any(), any(), any());
+    }
+
+    private void recordPublished() {
+        doAnswer(invocation -> {
+            published.add(statuses(invocation.getArgument(0)));
+            return null;
+        }).when(outboundDispatcher).capture(anyList());
+    }
+
+    private static List<TransactionStatus> statuses(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getStatus).toList();
+    }
+
+    private static IncomingWebhook webhook(String eventId, TransactionStatus status, Instant timestamp) {
+        return webhook(eventId, status, timestamp, "USD");
+    }
+
+    private static IncomingWebhook webhook(String eventId, TransactionStatus status, Instant timestamp,
+                                           String currency) {
+        PartyDto party = PartyDto.builder().id("usr_1").name("Alice").email("a@example.com").country("US").build();
+        WebhookPayloadDto payload = WebhookPayloadDto.builder()
+                .eventId(eventId)
+                .eventType("transaction." + status.name().toLowerCase())
+                .timestamp(timestamp)
+                .data(TransactionDataDto.builder()
+                        .transactionId("txn_1")
+                        .amount(new BigDecimal("10.00"))
+                        .currency(currency)
+                        .sender(party)
+                        .receiver(party)
+                        .status(status.name().toLowerCase())
+                        .paymentMethod("card")
+                        .build())
+                .build();
+        return new IncomingWebhook(payload, new byte[0]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.koshal.webhook.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long TARGET = 100;
+
+    @Test
+    void refusesRequestsOverTheLimitWithoutWaiting() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, TARGET, 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileFastAndBusyUpToTheMax() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 6, TARGET, 0.5);
+
+        // Two in flight keep a limit of 4 busy enough to grow, but not a limit of 5
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(0, 10, false);
+        limiter.release(0, 10, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(0, 10, false);
+            limiter.release(0, 10, false);
+            limiter.release(0, 10, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(6);
+    }
+
+    @Test
+    void slowRequestsCutTheLimitOncePerRoundDownToTheMin() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 3, 20, TARGET, 0.5);
+
+        // Four requests admitted together all run slow: only the first completion cuts
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(1_000, 1_500 + i, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        // Requests admitted after the cut can cut again
+        limiter.tryAcquire();
+        limiter.release(2_000, 2_010, true);
+        limiter.tryAcquire();
+        limiter.release(3_000, 3_500, false);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,43 @@
+package com.koshal.webhook.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HmacSignatureValidatorTest {
+
+    private final HmacSignatureValidator validator = new HmacSignatureValidator();
+    private final HmacKey key = new HmacKey("super-key", HmacSignatureValidator.HMAC_SHA256);
+    private final byte[] body = "{\"event_id\":\"evt_1\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void acceptsSignatureWithAndWithoutPrefix() {
+        String signature = validator.calculateSignature(new String(body, StandardCharsets.UTF_8), "super-key");
+
+        assertThat(validator.isValidSignature(body, "sha256=" + signature, key)).isTrue();
+        assertThat(validator.isValidSignature(body, signature, key)).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedBodyAndMalformedHeader() {
+        String signature = "sha256=" + validator.calculateSignature(new String(body, StandardCharsets.UTF_8), "super-key");
+        byte[] tampered = "{\"event_id\":\"evt_2\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(validator.isValidSignature(tampered, signature, key)).isFalse();
+        assertThat(validator.isValidSignature(body, "sha256=not base64!", key)).isFalse();
+    }
+
+    @Test
+    void findsWhichOfSeveralKeysSignedTheBody() {
+        HmacKey current = new HmacKey("new-key", HmacSignatureValidator.HMAC_SHA256);
+        String signedWithOld = "sha256=" + validator.calculateSignature(new String(body, StandardCharsets.UTF_8), "super-key");
+        String signedWithNew = "sha256=" + validator.calculateSignature(new String(body, StandardCharsets.UTF_8), "new-key");
+
+        assertThat(validator.findMatchingKey(body, signedWithNew, List.of(current, key))).isZero();
+        assertThat(validator.findMatchingKey(body, signedWithOld, List.of(current, key))).isEqualTo(1);
+        assertThat(validator.findMatchingKey(body, signedWithOld, List.of(current))).isEqualTo(-1);
+    }
+}
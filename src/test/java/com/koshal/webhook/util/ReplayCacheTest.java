@@ -0,0 +1,62 @@
+package com.koshal.webhook.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayCacheTest {
+
+    private static final long NOW = 1_700_000_000L;
+
+    @Test
+    void refusesTheSameDigestWithinTheWindow() {
+        ReplayCache cache = new ReplayCache(300, 30);
+
+        assertThat(cache.add(42, NOW)).isTrue();
+        assertThat(cache.add(42, NOW)).isFalse();
+        assertThat(cache.add(43, NOW)).isTrue();
+        assertThat(cache.size(NOW)).isEqualTo(2);
+    }
+
+    @Test
+    void forgottenDigestsCanBeSentAgainWithoutLosingTheirNeighbours() {
+        ReplayCache cache = new ReplayCache(300, 30);
+        for (long fingerprint = 1; fingerprint <= 5000; fingerprint++) {
+            assertThat(cache.add(fingerprint * 0x9E3779B97F4A7C15L, NOW)).isTrue();
+        }
+
+        for (long fingerprint = 1; fingerprint <= 5000; fingerprint += 2) {
+            cache.remove(fingerprint * 0x9E3779B97F4A7C15L, NOW);
+        }
+
+        for (long fingerprint = 1; fingerprint <= 5000; fingerprint++) {
+            assertThat(cache.add(fingerprint * 0x9E3779B97F4A7C15L, NOW)).isEqualTo(fingerprint % 2 == 1);
+        }
+        assertThat(cache.size(NOW)).isEqualTo(5000);
+    }
+
+    @Test
+    void generationsOutsideTheWindowAreDroppedWhole() {
+        ReplayCache cache = new ReplayCache(300, 30);
+        cache.add(42, NOW - 300);
+
+        // Past the tolerance the old generation no longer counts, and its slot is reused by a new one
+        long later = NOW + 360;
+        assertThat(cache.size(later)).isZero();
+        for (long timestamp = later - 300; timestamp <= later + 300; timestamp += 30) {
+            cache.add(7, timestamp);
+        }
+        assertThat(cache.size(later)).isEqualTo(21);
+        assertThat(cache.add(42, NOW - 300)).isTrue();
+    }
+
+    @Test
+    void timestampsOlderThanTheRingAreNotRecorded() {
+        ReplayCache cache = new ReplayCache(300, 30);
+        cache.add(7, NOW);
+
+        assertThat(cache.add(42, NOW - 23 * 30)).isTrue();
+        assertThat(cache.add(42, NOW - 23 * 30)).isTrue();
+        assertThat(cache.add(7, NOW)).isFalse();
+    }
+}